@@ -1,8 +1,16 @@
 package com.ddemott.chessai;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import com.ddemott.chessai.bitboard.Bitboards;
+import com.ddemott.chessai.bitboard.EncodedMove;
+import com.ddemott.chessai.bitboard.MoveGenerator;
+import com.ddemott.chessai.bitboard.MoveList;
+import com.ddemott.chessai.bitboard.PieceType;
+import com.ddemott.chessai.bitboard.Position;
+import com.ddemott.chessai.bitboard.StaticExchange;
 import com.ddemott.chessai.pieces.Bishop;
 import com.ddemott.chessai.pieces.IPiece;
 import com.ddemott.chessai.pieces.King;
@@ -11,11 +19,42 @@ import com.ddemott.chessai.pieces.Pawn;
 import com.ddemott.chessai.pieces.Queen;
 import com.ddemott.chessai.pieces.Rook;
 
+/**
+ * The chess board as seen by the rest of the application. Pieces are kept as
+ * {@link IPiece} objects in a 2D array for the String-square API, and every
+ * write is mirrored into a bitboard {@link Position} which answers attack and
+ * king queries without scanning the array.
+ * <p>
+ * Search plays moves in place with {@link #makeMove} and takes them back with
+ * {@link #unmakeMove} instead of cloning the board for every node.
+ */
 public class Board {
+	// Squares whose contents decide castling rights
+	private static final long CASTLING_SQUARES = Bitboards.bit(0) | Bitboards.bit(4) | Bitboards.bit(7)
+			| Bitboards.bit(56) | Bitboards.bit(60) | Bitboards.bit(63);
+
 	private IPiece[][] board; // 2D array to represent the board
-	private String enPassantTarget; // Target square for en passant capture (e.g., "e3")
+	private final Position position = new Position(); // Bitboard mirror of the array, also holds en passant state
 	private List<IPiece> capturedWhitePieces = new ArrayList<>();
 	private List<IPiece> capturedBlackPieces = new ArrayList<>();
+	private MoveRecord[] moveRecords = new MoveRecord[0]; // Undo stack for makeMove, grown on demand
+	private int moveRecordCount;
+	private final MoveList legalMoves = new MoveList(); // Scratch list for mate, stalemate and pin checks
+
+	/**
+	 * The piece objects touched by a {@link #makeMove}, so the array side of the
+	 * board can be restored exactly. Records are reused between moves.
+	 */
+	private static final class MoveRecord {
+		int from;
+		int to;
+		IPiece moved;
+		boolean movedHadMoved;
+		IPiece captured;
+		int capturedSquare;
+		IPiece rook;
+		boolean rookHadMoved;
+	}
 
 	public Board() {
 		this(true); // Default constructor initializes the board
@@ -24,7 +63,6 @@ public class Board {
 	// Private constructor for cloning
 	private Board(boolean initialize) {
 		board = new IPiece[8][8]; // 8x8 chess board
-		enPassantTarget = null; // No en passant target initially
 		if (initialize) {
 			initializeBoard();
 		}
@@ -33,61 +71,159 @@ public class Board {
 	private void initializeBoard() {
 		// Adding Pawns for both sides
 		for (char col = 'a'; col <= 'h'; col++) {
-			board[1][col - 'a'] = new Pawn(Side.WHITE, col + "2");
-			board[6][col - 'a'] = new Pawn(Side.BLACK, col + "7");
+			place(1, col - 'a', new Pawn(Side.WHITE, col + "2"));
+			place(6, col - 'a', new Pawn(Side.BLACK, col + "7"));
 		}
 
 		// Adding Rooks for both sides
-		board[0][0] = new Rook(Side.WHITE, "a1");
-		board[0][7] = new Rook(Side.WHITE, "h1");
-		board[7][0] = new Rook(Side.BLACK, "a8");
-		board[7][7] = new Rook(Side.BLACK, "h8");
+		place(0, 0, new Rook(Side.WHITE, "a1"));
+		place(0, 7, new Rook(Side.WHITE, "h1"));
+		place(7, 0, new Rook(Side.BLACK, "a8"));
+		place(7, 7, new Rook(Side.BLACK, "h8"));
 
 		// Adding Knights for both sides
-		board[0][1] = new Knight(Side.WHITE, "b1");
-		board[0][6] = new Knight(Side.WHITE, "g1");
-		board[7][1] = new Knight(Side.BLACK, "b8");
-		board[7][6] = new Knight(Side.BLACK, "g8");
+		place(0, 1, new Knight(Side.WHITE, "b1"));
+		place(0, 6, new Knight(Side.WHITE, "g1"));
+		place(7, 1, new Knight(Side.BLACK, "b8"));
+		place(7, 6, new Knight(Side.BLACK, "g8"));
 
 		// Adding Bishops for both sides
-		board[0][2] = new Bishop(Side.WHITE, "c1");
-		board[0][5] = new Bishop(Side.WHITE, "f1");
-		board[7][2] = new Bishop(Side.BLACK, "c8");
-		board[7][5] = new Bishop(Side.BLACK, "f8");
+		place(0, 2, new Bishop(Side.WHITE, "c1"));
+		place(0, 5, new Bishop(Side.WHITE, "f1"));
+		place(7, 2, new Bishop(Side.BLACK, "c8"));
+		place(7, 5, new Bishop(Side.BLACK, "f8"));
 
 		// Adding Queens for both sides
-		board[0][3] = new Queen(Side.WHITE, "d1");
-		board[7][3] = new Queen(Side.BLACK, "d8");
+		place(0, 3, new Queen(Side.WHITE, "d1"));
+		place(7, 3, new Queen(Side.BLACK, "d8"));
 
 		// Adding Kings for both sides
-		board[0][4] = new King(Side.WHITE, "e1");
-		board[7][4] = new King(Side.BLACK, "e8");
+		place(0, 4, new King(Side.WHITE, "e1"));
+		place(7, 4, new King(Side.BLACK, "e8"));
 	}
 
 	public IPiece getPieceAt(String position) {
-		int[] coords = convertPositionToCoordinates(position);
-		if (coords == null) {
+		int square = Bitboards.squareOf(position);
+		if (square == Bitboards.NO_SQUARE) {
 			return null; // Out of bounds or invalid
 		}
-		if (coords[0] < 0 || coords[0] >= 8 || coords[1] < 0 || coords[1] >= 8) {
-			return null; // Out of bounds
-		}
-		return board[coords[0]][coords[1]];
+		return board[Bitboards.row(square)][Bitboards.col(square)];
 	}
 
 	public void setPieceAt(String position, IPiece piece) {
-		int[] coords = convertPositionToCoordinates(position);
-		if (coords == null) {
+		int square = Bitboards.squareOf(position);
+		if (square == Bitboards.NO_SQUARE) {
 			return; // Out of bounds or invalid
 		}
-		if (coords[0] < 0 || coords[0] >= 8 || coords[1] < 0 || coords[1] >= 8) {
-			return; // Out of bounds
-		}
-		board[coords[0]][coords[1]] = piece;
+		place(Bitboards.row(square), Bitboards.col(square), piece);
 		if (piece != null) {
 			// Ensure piece internal position always matches board coordinates
-			piece.setPosition(position);
+			piece.setPosition(Bitboards.squareName(square));
+		}
+	}
+
+	/**
+	 * Writes a piece into the array and the bitboard mirror. Every change to the
+	 * board contents must go through here so the two stay in sync.
+	 */
+	private void place(int row, int col, IPiece piece) {
+		board[row][col] = piece;
+		int square = Bitboards.square(row, col);
+		position.removePiece(square);
+		if (piece != null) {
+			int type = PieceType.fromSymbol(piece.getSymbol());
+			if (type != PieceType.NONE) {
+				position.putPiece(square, PieceType.make(piece.getSide().ordinal(), type));
+			}
+		}
+		if ((CASTLING_SQUARES & Bitboards.bit(square)) != 0) {
+			syncCastlingRights();
+		}
+	}
+
+	/**
+	 * Derives the bitboard castling rights from the kings' and rooks' hasMoved
+	 * flags, which remain the source of truth for the piece classes.
+	 */
+	private void syncCastlingRights() {
+		int rights = 0;
+		if (isUnmoved(0, 4, Side.WHITE, 'K')) {
+			if (isUnmoved(0, 7, Side.WHITE, 'R')) {
+				rights |= Position.WHITE_KINGSIDE;
+			}
+			if (isUnmoved(0, 0, Side.WHITE, 'R')) {
+				rights |= Position.WHITE_QUEENSIDE;
+			}
+		}
+		if (isUnmoved(7, 4, Side.BLACK, 'K')) {
+			if (isUnmoved(7, 7, Side.BLACK, 'R')) {
+				rights |= Position.BLACK_KINGSIDE;
+			}
+			if (isUnmoved(7, 0, Side.BLACK, 'R')) {
+				rights |= Position.BLACK_QUEENSIDE;
+			}
 		}
+		position.setCastlingRights(rights);
+	}
+
+	private boolean isUnmoved(int row, int col, Side side, char symbol) {
+		IPiece piece = board[row][col];
+		return piece != null && piece.getSide() == side && piece.getSymbol() == symbol && !piece.hasMoved();
+	}
+
+	/**
+	 * Returns the bitboard mirror of this board. Callers must treat it as
+	 * read-only; changes go through {@link #setPieceAt} and the move methods.
+	 */
+	public Position getPosition() {
+		return position;
+	}
+
+	/**
+	 * Returns the Zobrist key of the position (pieces, side to move, castling
+	 * rights and en passant square). It is updated incrementally by every change
+	 * to the board.
+	 */
+	public long getZobristKey() {
+		return position.getKey();
+	}
+
+	/**
+	 * Returns a bitboard of the squares attacked by at least one piece of
+	 * {@code side}. Like the Zobrist key it is maintained incrementally, so
+	 * reading it is free.
+	 */
+	public long getAttackedSquares(Side side) {
+		return position.getAttackedSquares(side.ordinal());
+	}
+
+	/**
+	 * Returns how many pieces of {@code side} attack a square (defend it, if it
+	 * holds one of that side's pieces), or 0 for an invalid square.
+	 */
+	public int getAttackerCount(String square, Side side) {
+		int index = Bitboards.squareOf(square);
+		return index == Bitboards.NO_SQUARE ? 0 : position.getAttackerCount(index, side.ordinal());
+	}
+
+	/**
+	 * Returns the static exchange evaluation of a move for the side making it:
+	 * the material it wins, or loses if negative, once every recapture on the
+	 * destination square that pays off has been played (see
+	 * {@link StaticExchange}). A pawn reaching the last rank is assumed to
+	 * promote to a queen. Returns 0 for invalid squares or an empty origin.
+	 */
+	public int evaluateExchange(String from, String to) {
+		int fromSquare = Bitboards.squareOf(from);
+		int toSquare = Bitboards.squareOf(to);
+		if (fromSquare == Bitboards.NO_SQUARE || toSquare == Bitboards.NO_SQUARE) {
+			return 0;
+		}
+		int moved = position.getPiece(fromSquare);
+		int row = Bitboards.row(toSquare);
+		boolean promotes = moved != PieceType.NONE && PieceType.typeOf(moved) == PieceType.PAWN
+				&& (row == 0 || row == 7);
+		return StaticExchange.evaluate(position, fromSquare, toSquare, promotes ? PieceType.QUEEN : PieceType.NONE);
 	}
 
 	public int[] convertPositionToCoordinates(String position) {
@@ -112,9 +248,7 @@ public class Board {
 		if (row < 0 || row >= 8 || col < 0 || col >= 8) {
 			return null; // Out of bounds
 		}
-		char column = (char) ('a' + col);
-		char rowChar = (char) ('1' + row);
-		return String.valueOf(column) + rowChar;
+		return Bitboards.squareName(Bitboards.square(row, col));
 	}
 
 	/**
@@ -149,7 +283,7 @@ public class Board {
 				&& Math.abs(convertPositionToCoordinates(to)[1] - convertPositionToCoordinates(from)[1]) == 2) {
 			boolean castlingSuccess = executeCastling(from, to);
 			if (castlingSuccess) {
-				enPassantTarget = null;
+				position.setEnPassantSquare(Bitboards.NO_SQUARE);
 			}
 			return castlingSuccess;
 		}
@@ -181,13 +315,9 @@ public class Board {
 		piece.setHasMoved(true);
 		// Track pawn two-square moves for en passant
 		if (piece instanceof Pawn && isPawnTwoSquareMove(from, to)) {
-			int[] fromCoords = convertPositionToCoordinates(from);
-			int[] toCoords = convertPositionToCoordinates(to);
-			int targetRow = (fromCoords[0] + toCoords[0]) / 2;
-			int targetCol = fromCoords[1];
-			enPassantTarget = convertCoordinatesToPosition(targetRow, targetCol);
+			position.setEnPassantSquare((Bitboards.squareOf(from) + Bitboards.squareOf(to)) / 2);
 		} else {
-			enPassantTarget = null;
+			position.setEnPassantSquare(Bitboards.NO_SQUARE);
 		}
 		return true;
 	}
@@ -202,111 +332,33 @@ public class Board {
 	 * @return true if the move would expose the king to check
 	 */
 	public boolean wouldExposeKingToCheck(String from, String to) {
-		IPiece piece = getPieceAt(from);
-		if (piece == null || piece instanceof King) {
-			return false; // Kings can't be pinned
-		}
-
-		Side opponentSide = piece.getSide().flip();
-		String kingPosition = findKingPosition(piece.getSide());
-		if (kingPosition == null) {
+		int fromSquare = Bitboards.squareOf(from);
+		int toSquare = Bitboards.squareOf(to);
+		if (fromSquare == Bitboards.NO_SQUARE || toSquare == Bitboards.NO_SQUARE) {
 			return false;
 		}
-		int[] kingCoords = convertPositionToCoordinates(kingPosition);
-		int[] pieceCoords = convertPositionToCoordinates(from);
-		int[] targetCoords = convertPositionToCoordinates(to);
-
-		// Check if piece is aligned with king (orthogonal or diagonal)
-		int dRow = Integer.signum(pieceCoords[0] - kingCoords[0]);
-		int dCol = Integer.signum(pieceCoords[1] - kingCoords[1]);
-		boolean isOrthogonal = (dRow == 0 || dCol == 0);
-		boolean isDiagonal = (Math.abs(pieceCoords[0] - kingCoords[0]) == Math.abs(pieceCoords[1] - kingCoords[1]));
-		if (!isOrthogonal && !isDiagonal) {
-			// Not on a pin line, just check normal check exposure
-			Board clonedBoard = this.clone();
-			clonedBoard.setPieceAt(to, piece.clonePiece());
-			clonedBoard.setPieceAt(from, null);
-			return clonedBoard.isKingInCheck(piece.getSide());
-		}
-
-		// Search for a pinning piece in the direction from piece to king (opposite
-		// direction)
-		int pinDirRow = -dRow;
-		int pinDirCol = -dCol;
-		int curRow = pieceCoords[0] + pinDirRow;
-		int curCol = pieceCoords[1] + pinDirCol;
-		boolean foundKing = false;
-		while (curRow >= 0 && curRow < 8 && curCol >= 0 && curCol < 8) {
-			if (curRow == kingCoords[0] && curCol == kingCoords[1]) {
-				foundKing = true;
-				break;
-			}
-			if (board[curRow][curCol] != null) {
-				break;
-			}
-			curRow += pinDirRow;
-			curCol += pinDirCol;
-		}
-		if (!foundKing) {
-			// Not on a pin line, just check normal check exposure
-			Board clonedBoard = this.clone();
-			clonedBoard.setPieceAt(to, piece.clonePiece());
-			clonedBoard.setPieceAt(from, null);
-			return clonedBoard.isKingInCheck(piece.getSide());
-		}
-
-		// Now search for a pinning attacker in the direction from piece away from king
-		int attRow = pieceCoords[0] + dRow;
-		int attCol = pieceCoords[1] + dCol;
-		IPiece pinningAttacker = null;
-		while (attRow >= 0 && attRow < 8 && attCol >= 0 && attCol < 8) {
-			IPiece att = board[attRow][attCol];
-			if (att != null) {
-				if (att.getSide() == opponentSide) {
-					if ((isOrthogonal && (att instanceof Rook || att instanceof Queen))
-							|| (isDiagonal && (att instanceof Bishop || att instanceof Queen))) {
-						pinningAttacker = att;
-					}
-				}
-				break;
-			}
-			attRow += dRow;
-			attCol += dCol;
-		}
-		if (pinningAttacker == null) {
-			// Not pinned, just check normal check exposure
-			Board clonedBoard = this.clone();
-			clonedBoard.setPieceAt(to, piece.clonePiece());
-			clonedBoard.setPieceAt(from, null);
-			return clonedBoard.isKingInCheck(piece.getSide());
+		int piece = position.getPiece(fromSquare);
+		if (piece == PieceType.NONE || PieceType.typeOf(piece) == PieceType.KING) {
+			return false; // Kings can't be pinned
 		}
-
-		// If pinned, only allow moves strictly along the pin line between king and
-		// attacker (not past attacker)
-		// Knights cannot move if pinned
-		if (piece instanceof Knight) {
-			return true;
+		int side = PieceType.sideOf(piece);
+		int kingSquare = position.getKingSquare(side);
+		if (kingSquare == Bitboards.NO_SQUARE) {
+			return false;
 		}
-		// Check if move is on the pin line and between king and attacker
-		int moveVecRow = targetCoords[0] - kingCoords[0];
-		int moveVecCol = targetCoords[1] - kingCoords[1];
-		// Must be collinear with pin direction
-		boolean collinear = (dRow == 0 ? moveVecRow == 0 : moveVecRow % dRow == 0)
-				&& (dCol == 0 ? moveVecCol == 0 : moveVecCol % dCol == 0);
-		// Must be in the same direction
-		boolean sameDirection = (dRow == 0 || Integer.signum(moveVecRow) == dRow)
-				&& (dCol == 0 || Integer.signum(moveVecCol) == dCol);
-		// Must not go past the attacker
-		boolean notPastAttacker = isBetweenInclusive(targetCoords[0], kingCoords[0], attRow - dRow)
-				&& isBetweenInclusive(targetCoords[1], kingCoords[1], attCol - dCol);
-		if (!(collinear && sameDirection && notPastAttacker)) {
-			return true; // Illegal move for pinned piece
-		}
-		// Otherwise, simulate the move and check for check
-		Board clonedBoard = this.clone();
-		clonedBoard.setPieceAt(to, piece.clonePiece());
-		clonedBoard.setPieceAt(from, null);
-		return clonedBoard.isKingInCheck(piece.getSide());
+		// Look at the king through the occupancy after the move; a piece captured on
+		// the target square (or by en passant) no longer attacks
+		long removed = Bitboards.bit(fromSquare);
+		long captured = Bitboards.bit(toSquare);
+		if (PieceType.typeOf(piece) == PieceType.PAWN && toSquare == position.getEnPassantSquare()
+				&& Bitboards.col(fromSquare) != Bitboards.col(toSquare)) {
+			int capturedSquare = toSquare + (side == Position.WHITE ? -8 : 8);
+			removed |= Bitboards.bit(capturedSquare);
+			captured |= Bitboards.bit(capturedSquare);
+		}
+		long occupied = (position.getOccupancy() & ~removed) | Bitboards.bit(toSquare);
+		long enemy = position.getSidePieces(side ^ 1) & ~captured;
+		return (position.attackersTo(kingSquare, occupied) & enemy) != 0;
 	}
 
 	/**
@@ -364,12 +416,13 @@ public class Board {
 	 * Check if a move is an en passant capture
 	 */
 	private boolean isEnPassantCapture(String from, String to) {
-		if (enPassantTarget == null) {
+		int target = position.getEnPassantSquare();
+		if (target == Bitboards.NO_SQUARE) {
 			return false;
 		}
 
 		// Check if the destination matches the en passant target
-		return to.equals(enPassantTarget);
+		return Bitboards.squareOf(to) == target;
 	}
 
 	/**
@@ -393,7 +446,7 @@ public class Board {
 		setPieceAt(capturedPawnPosition, null);
 
 		// Clear en passant target
-		enPassantTarget = null;
+		position.setEnPassantSquare(Bitboards.NO_SQUARE);
 
 		return true;
 	}
@@ -433,8 +486,10 @@ public class Board {
 				}
 			}
 		}
-		// Copy en passant target state
-		newBoard.enPassantTarget = this.enPassantTarget;
+		// Copies en passant state along with the bitboards; castling rights are
+		// re-derived in case hasMoved flags were changed directly
+		newBoard.position.copyFrom(this.position);
+		newBoard.syncCastlingRights();
 		return newBoard;
 	}
 
@@ -444,7 +499,7 @@ public class Board {
 	 * @return the target square (e.g., "e3") or null if no en passant is possible
 	 */
 	public String getEnPassantTarget() {
-		return enPassantTarget;
+		return Bitboards.squareName(position.getEnPassantSquare());
 	}
 
 	/**
@@ -454,7 +509,153 @@ public class Board {
 	 *            the target square (e.g., "e3") or null to clear
 	 */
 	public void setEnPassantTarget(String target) {
-		this.enPassantTarget = target;
+		position.setEnPassantSquare(Bitboards.squareOf(target));
+	}
+
+	/**
+	 * Plays a move in place without validating it, so that it can be taken back
+	 * with {@link #unmakeMove()}. Castling, en passant and promotion are applied
+	 * as in {@link #movePiece(String, String, String)}, including the captured
+	 * piece lists. Intended for search, which generates its own moves and checks
+	 * legality afterwards with {@link #isKingInCheck(Side)}.
+	 *
+	 * @param from
+	 *            Starting position
+	 * @param to
+	 *            Ending position
+	 * @param promotionPiece
+	 *            Piece to promote to (Q, R, B, N) or null for no promotion
+	 */
+	public void makeMove(String from, String to, String promotionPiece) {
+		int fromSquare = Bitboards.squareOf(from);
+		int toSquare = Bitboards.squareOf(to);
+		if (fromSquare == Bitboards.NO_SQUARE || toSquare == Bitboards.NO_SQUARE) {
+			throw new IllegalArgumentException("Invalid move " + from + " " + to);
+		}
+		int promotion = promotionPiece == null ? PieceType.NONE : PieceType.fromSymbol(promotionPiece.charAt(0));
+		makeMove(EncodedMove.of(fromSquare, toSquare, promotion, 0));
+	}
+
+	/**
+	 * Plays an {@link EncodedMove encoded move} in place; see
+	 * {@link #makeMove(String, String, String)}.
+	 */
+	public void makeMove(int move) {
+		int fromSquare = EncodedMove.from(move);
+		int toSquare = EncodedMove.to(move);
+		IPiece moved = board[Bitboards.row(fromSquare)][Bitboards.col(fromSquare)];
+		if (moved == null) {
+			throw new IllegalArgumentException("No piece at " + Bitboards.squareName(fromSquare));
+		}
+
+		if (moveRecordCount == moveRecords.length) {
+			growMoveRecords();
+		}
+		MoveRecord record = moveRecords[moveRecordCount++];
+		record.from = fromSquare;
+		record.to = toSquare;
+		record.moved = moved;
+		record.movedHadMoved = moved.hasMoved();
+		record.rook = null;
+
+		int capturedSquare = toSquare;
+		if (moved instanceof Pawn && toSquare == position.getEnPassantSquare()
+				&& Bitboards.col(fromSquare) != Bitboards.col(toSquare)
+				&& board[Bitboards.row(toSquare)][Bitboards.col(toSquare)] == null) {
+			capturedSquare = moved.getSide() == Side.WHITE ? toSquare - 8 : toSquare + 8;
+		}
+
+		int promotion = EncodedMove.promotion(move);
+		position.makeMove(fromSquare, toSquare, promotion);
+
+		// Mirror the position's changes onto the piece objects
+		IPiece captured = board[Bitboards.row(capturedSquare)][Bitboards.col(capturedSquare)];
+		record.captured = captured;
+		record.capturedSquare = capturedSquare;
+		if (captured != null) {
+			capturedListFor(captured.getSide()).add(captured);
+			board[Bitboards.row(capturedSquare)][Bitboards.col(capturedSquare)] = null;
+		}
+
+		IPiece arriving = moved;
+		if (promotion != PieceType.NONE) {
+			arriving = createPromotionPiece(String.valueOf(PieceType.symbolOf(promotion)), moved.getColor(),
+					Bitboards.squareName(toSquare));
+		}
+		setArrayPiece(fromSquare, null);
+		setArrayPiece(toSquare, arriving);
+		moved.setHasMoved(true);
+
+		if (moved instanceof King && Math.abs(Bitboards.col(toSquare) - Bitboards.col(fromSquare)) == 2) {
+			int rank = Bitboards.row(fromSquare);
+			boolean kingside = toSquare > fromSquare;
+			IPiece rook = board[rank][kingside ? 7 : 0];
+			record.rook = rook;
+			record.rookHadMoved = rook.hasMoved();
+			setArrayPiece(Bitboards.square(rank, kingside ? 7 : 0), null);
+			setArrayPiece(Bitboards.square(rank, kingside ? 5 : 3), rook);
+			rook.setHasMoved(true);
+		}
+	}
+
+	/**
+	 * Takes back the last move played with {@link #makeMove}, restoring the
+	 * pieces, their hasMoved flags, the captured piece lists and the en passant
+	 * and castling state.
+	 *
+	 * @throws IllegalStateException
+	 *             if there is no move to take back
+	 */
+	public void unmakeMove() {
+		if (moveRecordCount == 0) {
+			throw new IllegalStateException("No move to unmake");
+		}
+		MoveRecord record = moveRecords[--moveRecordCount];
+		position.unmakeMove();
+
+		if (record.rook != null) {
+			int rank = Bitboards.row(record.from);
+			boolean kingside = record.to > record.from;
+			setArrayPiece(Bitboards.square(rank, kingside ? 5 : 3), null);
+			setArrayPiece(Bitboards.square(rank, kingside ? 7 : 0), record.rook);
+			record.rook.setHasMoved(record.rookHadMoved);
+			record.rook = null;
+		}
+
+		setArrayPiece(record.to, null);
+		setArrayPiece(record.from, record.moved);
+		record.moved.setHasMoved(record.movedHadMoved);
+		if (record.captured != null) {
+			List<IPiece> capturedList = capturedListFor(record.captured.getSide());
+			capturedList.remove(capturedList.size() - 1);
+			setArrayPiece(record.capturedSquare, record.captured);
+		}
+		// Drop references so records do not keep pieces alive
+		record.moved = null;
+		record.captured = null;
+	}
+
+	/**
+	 * Writes the array only; used by make/unmake, where the bitboard mirror has
+	 * already been updated by the position itself.
+	 */
+	private void setArrayPiece(int square, IPiece piece) {
+		board[Bitboards.row(square)][Bitboards.col(square)] = piece;
+		if (piece != null) {
+			piece.setPosition(Bitboards.squareName(square));
+		}
+	}
+
+	private List<IPiece> capturedListFor(Side side) {
+		return side == Side.WHITE ? capturedWhitePieces : capturedBlackPieces;
+	}
+
+	private void growMoveRecords() {
+		int oldLength = moveRecords.length;
+		moveRecords = Arrays.copyOf(moveRecords, Math.max(64, oldLength * 2));
+		for (int i = oldLength; i < moveRecords.length; i++) {
+			moveRecords[i] = new MoveRecord();
+		}
 	}
 
 	// Method to get board representation as string for display purposes
@@ -488,47 +689,16 @@ public class Board {
 	}
 
 	public boolean isKingInCheck(Side kingSide) {
-		// Find the king position
-		String kingPosition = findKingPosition(kingSide);
-		if (kingPosition == null) {
+		int kingSquare = position.getKingSquare(kingSide.ordinal());
+		if (kingSquare == Bitboards.NO_SQUARE) {
 			return false; // No king found (shouldn't happen in normal game)
 		}
-
-		Side opponentSide = kingSide.flip();
-
-		// Directly check each opponent piece to see if it can attack the king
-		for (int row = 0; row < 8; row++) {
-			for (int col = 0; col < 8; col++) {
-				IPiece piece = board[row][col];
-				if (piece != null && piece.getSide() == opponentSide) {
-					String piecePosition = convertCoordinatesToPosition(row, col);
-					// Temporarily update piece position for validation
-					String oldPosition = piece.getPosition();
-					piece.setPosition(piecePosition);
-
-					// For non-king pieces, use normal validation
-					if (!(piece instanceof King)) {
-						if (piece.isValidMove(kingPosition, this)) {
-							piece.setPosition(oldPosition); // Restore
-							return true;
-						}
-					} else {
-						// For king pieces, do NOT count adjacent kings as attacking each other
-						// Kings cannot legally move next to each other
-						int[] targetCoords = convertPositionToCoordinates(kingPosition);
-						int dx = Math.abs(targetCoords[0] - row);
-						int dy = Math.abs(targetCoords[1] - col);
-						// If kings are adjacent, do NOT count as check
-						if (dx <= 1 && dy <= 1 && (dx != 0 || dy != 0)) {
-							piece.setPosition(oldPosition); // Restore
-							continue;
-						}
-					}
-					piece.setPosition(oldPosition); // Restore
-				}
-			}
-		}
-		return false;
+		// Adjacent kings are not counted as giving check - kings cannot legally move
+		// next to each other, so only non-king attackers matter here
+		int enemy = kingSide.flip().ordinal();
+		int attackers = position.getAttackerCount(kingSquare, enemy)
+				- Long.bitCount(Bitboards.kingAttacks(kingSquare) & position.getPieces(enemy, PieceType.KING));
+		return attackers > 0;
 	}
 
 	/**
@@ -572,60 +742,30 @@ public class Board {
 	}
 
 	public String findKingPosition(Side kingSide) {
-		for (int row = 0; row < 8; row++) {
-			for (int col = 0; col < 8; col++) {
-				IPiece piece = board[row][col];
-				if (piece instanceof King && piece.getSide() == kingSide) {
-					return convertCoordinatesToPosition(row, col);
-				}
-			}
-		}
-		return null; // King not found
+		// Null when the king is not on the board
+		return Bitboards.squareName(position.getKingSquare(kingSide.ordinal()));
 	}
 
 	/**
-	 * Check if a square is under attack by the opponent Uses a non-recursive
-	 * approach to avoid infinite loops during castling validation
+	 * Check if a square is under attack by the opponent. Pawns count as attacking
+	 * both diagonal squares in front of them, whether or not they are occupied. A
+	 * square holding one of the attacker's own pieces is never under attack.
 	 */
 	public boolean isSquareUnderAttack(String position, String defendingColor) {
 		return isSquareUnderAttack(position, defendingColor.equalsIgnoreCase("White") ? Side.WHITE : Side.BLACK);
 	}
 
 	public boolean isSquareUnderAttack(String position, Side defendingSide) {
-		Side attackingSide = defendingSide.flip();
-		// Check each opposing piece to see if it can attack the position
-		for (int row = 0; row < 8; row++) {
-			for (int col = 0; col < 8; col++) {
-				IPiece piece = board[row][col];
-				if (piece != null && piece.getSide() == attackingSide) {
-					String piecePosition = convertCoordinatesToPosition(row, col);
-					// Temporarily update piece position for validation
-					String oldPosition = piece.getPosition();
-					piece.setPosition(piecePosition);
-
-					// For non-king pieces, use normal validation
-					if (!(piece instanceof King)) {
-						if (piece.isValidMove(position, this)) {
-							piece.setPosition(oldPosition); // Restore
-							return true;
-						}
-					} else {
-						// For king pieces, only check normal moves (not castling) to avoid recursion
-						int[] targetCoords = convertPositionToCoordinates(position);
-						int dx = Math.abs(targetCoords[0] - row);
-						int dy = Math.abs(targetCoords[1] - col);
-						// King can attack one square in any direction
-						if (dx <= 1 && dy <= 1 && (dx != 0 || dy != 0)) {
-							piece.setPosition(oldPosition); // Restore
-							return true;
-						}
-					}
-					piece.setPosition(oldPosition); // Restore
-				}
-			}
+		int square = Bitboards.squareOf(position);
+		if (square == Bitboards.NO_SQUARE) {
+			return false;
 		}
-
-		return false;
+		int attackingSide = defendingSide.flip().ordinal();
+		int occupant = this.position.getPiece(square);
+		if (occupant != PieceType.NONE && PieceType.sideOf(occupant) == attackingSide) {
+			return false; // Pieces cannot attack their own side
+		}
+		return this.position.isSquareAttacked(square, attackingSide);
 	}
 
 	/**
@@ -636,57 +776,7 @@ public class Board {
 	}
 
 	public boolean isCheckmate(Side playerSide) {
-		// Regular checkmate logic
-		if (!isKingInCheck(playerSide)) {
-			return false; // Not in check, so can't be checkmate
-		}
-
-		// Try all possible moves to see if any gets out of check
-		for (int fromRow = 0; fromRow < 8; fromRow++) {
-			for (int fromCol = 0; fromCol < 8; fromCol++) {
-				IPiece piece = board[fromRow][fromCol];
-				if (piece != null && piece.getSide() == playerSide) {
-					String from = convertCoordinatesToPosition(fromRow, fromCol);
-
-					// Temporarily sync piece position for validation
-					String oldPosition = piece.getPosition();
-					piece.setPosition(from);
-
-					// Get all possible moves for this piece
-					for (int toRow = 0; toRow < 8; toRow++) {
-						for (int toCol = 0; toCol < 8; toCol++) {
-							String to = convertCoordinatesToPosition(toRow, toCol);
-
-							// Skip if it's not a valid move
-							if (!piece.isValidMove(to, this)) {
-								continue;
-							}
-
-							// Simulate the move
-							Board clonedBoard = this.clone();
-
-							// Execute the move on the cloned board
-							IPiece clonedPiece = clonedBoard.getPieceAt(from);
-							if (clonedPiece != null) {
-								clonedPiece.setPosition(to);
-								clonedBoard.setPieceAt(to, clonedPiece);
-								clonedBoard.setPieceAt(from, null);
-
-								// Check if this move gets out of check
-								if (!clonedBoard.isKingInCheck(playerSide)) {
-									piece.setPosition(oldPosition); // Restore
-									return false; // Found a move that gets out of check
-								}
-							}
-						}
-					}
-
-					piece.setPosition(oldPosition); // Restore
-				}
-			}
-		}
-
-		return true; // No moves get out of check - checkmate
+		return isKingInCheck(playerSide) && !MoveGenerator.hasLegalMove(position, playerSide.ordinal(), legalMoves);
 	}
 
 	/**
@@ -697,74 +787,7 @@ public class Board {
 	}
 
 	public boolean isStalemate(Side playerSide) {
-		if (isKingInCheck(playerSide)) {
-			return false; // In check, so can't be stalemate
-		}
-
-		// Check for any legal moves
-		for (int fromRow = 0; fromRow < 8; fromRow++) {
-			for (int fromCol = 0; fromCol < 8; fromCol++) {
-				IPiece piece = board[fromRow][fromCol];
-				if (piece != null && piece.getSide() == playerSide) {
-					String from = convertCoordinatesToPosition(fromRow, fromCol);
-
-					// Temporarily sync piece position for validation
-					String oldPosition = piece.getPosition();
-					piece.setPosition(from);
-
-					// For each destination square
-					for (int toRow = 0; toRow < 8; toRow++) {
-						for (int toCol = 0; toCol < 8; toCol++) {
-							String to = convertCoordinatesToPosition(toRow, toCol);
-
-							// Skip if the move isn't valid according to piece rules
-							if (!piece.isValidMove(to, this)) {
-								continue;
-							}
-
-							// For pawn promotion, check if any promotion is legal
-							if (piece instanceof Pawn) {
-								boolean isPromotionRank = (piece.getSide() == Side.WHITE && toRow == 7)
-										|| (piece.getSide() == Side.BLACK && toRow == 0);
-								if (isPromotionRank) {
-									// Try all promotion pieces
-									String[] promotions = {"Q", "R", "B", "N"};
-									for (String promotionPiece : promotions) {
-										Board clonedBoard = this.clone();
-										IPiece promotedPiece = clonedBoard.createPromotionPiece(promotionPiece,
-												piece.getColor(), to);
-										if (promotedPiece != null) {
-											clonedBoard.setPieceAt(from, null);
-											clonedBoard.setPieceAt(to, promotedPiece);
-
-											// If this promotion doesn't leave king in check, it's legal
-											if (!clonedBoard.isKingInCheck(piece.getSide())) {
-												piece.setPosition(oldPosition); // Restore
-												return false; // Found a legal promotion move
-											}
-										}
-									}
-									continue; // Skip regular move check for promotion moves
-								}
-							}
-
-							// Skip if this move would expose the king to check
-							if (wouldExposeKingToCheck(from, to)) {
-								continue;
-							}
-
-							// If we reach here, this is a legal move
-							piece.setPosition(oldPosition); // Restore
-							return false;
-						}
-					}
-
-					piece.setPosition(oldPosition); // Restore
-				}
-			}
-		}
-
-		return true; // No legal moves found - stalemate
+		return !isKingInCheck(playerSide) && !MoveGenerator.hasLegalMove(position, playerSide.ordinal(), legalMoves);
 	}
 
 	/**
@@ -776,91 +799,39 @@ public class Board {
 	 * @return true if the piece is pinned, false otherwise
 	 */
 	public boolean isPiecePinned(String position) {
-		IPiece piece = getPieceAt(position);
-		if (piece == null) {
+		int square = Bitboards.squareOf(position);
+		if (square == Bitboards.NO_SQUARE) {
 			return false;
 		}
-
-		String kingPosition = findKingPosition(piece.getSide());
-		if (kingPosition == null) {
+		int piece = this.position.getPiece(square);
+		if (piece == PieceType.NONE) {
 			return false;
 		}
-
-		int[] kingCoords = convertPositionToCoordinates(kingPosition);
-		int[] pieceCoords = convertPositionToCoordinates(position);
-		if (kingCoords == null || pieceCoords == null) {
+		int side = PieceType.sideOf(piece);
+		if (this.position.getKingSquare(side) == Bitboards.NO_SQUARE) {
 			return false;
 		}
-
-		int dRow = Integer.signum(pieceCoords[0] - kingCoords[0]);
-		int dCol = Integer.signum(pieceCoords[1] - kingCoords[1]);
-		boolean isOrthogonal = (dRow == 0 || dCol == 0);
-		boolean isDiagonal = (Math.abs(pieceCoords[0] - kingCoords[0]) == Math.abs(pieceCoords[1] - kingCoords[1]));
-		if (isOrthogonal || isDiagonal) {
-			// Check for pinning attacker in the direction from piece away from king
-			int attRow = pieceCoords[0] + dRow;
-			int attCol = pieceCoords[1] + dCol;
-			while (attRow >= 0 && attRow < 8 && attCol >= 0 && attCol < 8) {
-				IPiece att = board[attRow][attCol];
-				if (att != null) {
-					if (att.getSide() != piece.getSide()) {
-						if ((isOrthogonal && (att instanceof Rook || att instanceof Queen))
-								|| (isDiagonal && (att instanceof Bishop || att instanceof Queen))) {
-							// Check that there are no other pieces between piece and attacker
-							int checkRow = kingCoords[0] + dRow;
-							int checkCol = kingCoords[1] + dCol;
-							boolean clear = true;
-							while ((checkRow != pieceCoords[0] || checkCol != pieceCoords[1]) && clear) {
-								if (board[checkRow][checkCol] != null) {
-									clear = false;
-								}
-								checkRow += dRow;
-								checkCol += dCol;
-							}
-							if (clear) {
-								return true;
-							}
-						}
-					}
-					break;
-				}
-				attRow += dRow;
-				attCol += dCol;
-			}
+		if ((MoveGenerator.pinnedPieces(this.position, side) & Bitboards.bit(square)) != 0) {
+			return true;
 		}
-
-		// For knights, if aligned and attacker present, already handled above
-		if (piece instanceof Knight) {
+		// Otherwise pinned in effect if it has moves but none of them are legal
+		legalMoves.clear();
+		MoveGenerator.generate(this.position, side, legalMoves);
+		if (!hasMoveFrom(square)) {
 			return false;
 		}
+		legalMoves.clear();
+		MoveGenerator.generateLegal(this.position, side, legalMoves);
+		return !hasMoveFrom(square);
+	}
 
-		// Fallback: check if every move exposes king to check
-		List<String> possibleMoves = piece.getAllPossibleMoves(this);
-		if (possibleMoves.isEmpty()) {
-			return false; // No moves to check
-		}
-		boolean foundPin = false;
-		for (String move : possibleMoves) {
-			String[] parts = move.split(" ");
-			if (parts.length == 2) {
-				String to = parts[1];
-				if (!piece.isValidMove(to, this)) {
-					continue;
-				}
-				Board clonedBoard = this.clone();
-				IPiece capturedPiece = clonedBoard.getPieceAt(to);
-				clonedBoard.setPieceAt(to, piece.clonePiece());
-				clonedBoard.setPieceAt(position, null);
-				if (!clonedBoard.isKingInCheck(piece.getSide())) {
-					return false; // Found a legal move, not pinned
-				} else {
-					foundPin = true;
-				}
-				clonedBoard.setPieceAt(position, piece.clonePiece());
-				clonedBoard.setPieceAt(to, capturedPiece);
+	private boolean hasMoveFrom(int square) {
+		for (int i = 0; i < legalMoves.size(); i++) {
+			if (EncodedMove.from(legalMoves.get(i)) == square) {
+				return true;
 			}
 		}
-		return foundPin;
+		return false;
 	}
 
 	/**
@@ -903,26 +874,19 @@ public class Board {
 					return false;
 				}
 
-				// For promotion moves, simulate the promotion and check if it exposes king to
-				// check
-				Board clonedBoard = this.clone();
 				IPiece promotedPiece = createPromotionPiece(promotionPiece, piece.getColor(), to);
 				if (promotedPiece == null) {
 					return false;
 				}
-
-				// Execute the promotion on the cloned board
-				clonedBoard.setPieceAt(from, null);
-				clonedBoard.setPieceAt(to, promotedPiece);
-
-				// Check if this would expose the king to check
-				if (clonedBoard.isKingInCheck(piece.getSide())) {
+				// The promoted piece blocks the same lines as the pawn would
+				if (wouldExposeKingToCheck(from, to)) {
 					return false;
 				}
 
 				// Execute promotion move on actual board
 				setPieceAt(from, null);
 				setPieceAt(to, promotedPiece);
+				position.setEnPassantSquare(Bitboards.NO_SQUARE);
 				return true;
 			} else if (promotionPiece != null) {
 				// Can't promote when not on promotion rank
@@ -953,13 +917,9 @@ public class Board {
 		piece.setHasMoved(true);
 		// Track pawn two-square moves for en passant
 		if (piece instanceof Pawn && isPawnTwoSquareMove(from, to)) {
-			int[] fromCoords = convertPositionToCoordinates(from);
-			int[] toCoords = convertPositionToCoordinates(to);
-			int targetRow = (fromCoords[0] + toCoords[0]) / 2;
-			int targetCol = fromCoords[1];
-			enPassantTarget = convertCoordinatesToPosition(targetRow, targetCol);
+			position.setEnPassantSquare((Bitboards.squareOf(from) + Bitboards.squareOf(to)) / 2);
 		} else {
-			enPassantTarget = null;
+			position.setEnPassantSquare(Bitboards.NO_SQUARE);
 		}
 		return true;
 	}
@@ -1030,12 +990,76 @@ public class Board {
 				board[row][col] = null;
 			}
 		}
+		position.clear();
+		moveRecordCount = 0;
+	}
+
+	/**
+	 * Replaces the board with the pieces and game state of a bitboard position,
+	 * such as one parsed from FEN. hasMoved flags are derived so that the piece
+	 * classes agree with the position: kings and rooks on their home squares are
+	 * unmoved exactly when a castling right needs them, pawns are unmoved on their
+	 * starting rank and other pieces are unmoved. Castling rights that no
+	 * unmoved king and rook back up are dropped. The undo history is discarded.
+	 */
+	public void setUpPosition(Position source) {
+		clearBoard();
+		int rights = source.getCastlingRights();
+		for (int square = 0; square < Bitboards.SQUARE_COUNT; square++) {
+			int code = source.getPiece(square);
+			if (code == PieceType.NONE) {
+				continue;
+			}
+			Side side = PieceType.sideOf(code) == Position.WHITE ? Side.WHITE : Side.BLACK;
+			String name = Bitboards.squareName(square);
+			IPiece piece = createPiece(PieceType.typeOf(code), side, name);
+			piece.setHasMoved(!isUnmovedInSetUp(PieceType.typeOf(code), side, square, rights));
+			place(Bitboards.row(square), Bitboards.col(square), piece);
+		}
+		syncCastlingRights();
+		position.setEnPassantSquare(source.getEnPassantSquare());
+		position.setSideToMove(source.getSideToMove());
+		position.setHalfmoveClock(source.getHalfmoveClock());
+	}
+
+	private static IPiece createPiece(int type, Side side, String square) {
+		switch (type) {
+			case PieceType.PAWN :
+				return new Pawn(side, square);
+			case PieceType.KNIGHT :
+				return new Knight(side, square);
+			case PieceType.BISHOP :
+				return new Bishop(side, square);
+			case PieceType.ROOK :
+				return new Rook(side, square);
+			case PieceType.QUEEN :
+				return new Queen(side, square);
+			default :
+				return new King(side, square);
+		}
+	}
+
+	private static boolean isUnmovedInSetUp(int type, Side side, int square, int rights) {
+		int homeRank = side == Side.WHITE ? 0 : 7;
+		int kingside = side == Side.WHITE ? Position.WHITE_KINGSIDE : Position.BLACK_KINGSIDE;
+		int queenside = side == Side.WHITE ? Position.WHITE_QUEENSIDE : Position.BLACK_QUEENSIDE;
+		switch (type) {
+			case PieceType.PAWN :
+				return Bitboards.row(square) == (side == Side.WHITE ? 1 : 6);
+			case PieceType.KING :
+				return square == Bitboards.square(homeRank, 4) && (rights & (kingside | queenside)) != 0;
+			case PieceType.ROOK :
+				return (square == Bitboards.square(homeRank, 7) && (rights & kingside) != 0)
+						|| (square == Bitboards.square(homeRank, 0) && (rights & queenside) != 0);
+			default :
+				return true; // The flag means nothing for the other pieces
+		}
 	}
 
 	/**
 	 * Convert the current board position to Forsyth–Edwards Notation (FEN). This
-	 * method generates the piece placement portion of the FEN string. Full FEN
-	 * requires additional game state information that this method doesn't provide.
+	 * method generates the piece placement portion of the FEN string; see
+	 * {@link State#toFEN()} for all six fields.
 	 * 
 	 * @return The piece placement portion of FEN string representing the current
 	 *         board position.
@@ -0,0 +1,111 @@
+package com.ddemott.chessai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of static evaluations keyed by Zobrist key, so a leaf reached again in
+ * a later iteration or a sibling subtree is not evaluated twice. Any number of
+ * threads can share it without locks.
+ * <p>
+ * Each slot is two longs, {@code key ^ data} followed by {@code data}, where
+ * data holds the score in the low 32 bits and a marker bit above them so an
+ * empty slot never matches. A reader racing a writer may see the words of two
+ * different entries; they then fail to reproduce the key and count as a miss,
+ * as in the search's lock-free transposition table. Newer entries always
+ * replace older ones.
+ * <p>
+ * The score depends on which side it is taken for, so that side is mixed into
+ * the key.
+ */
+public final class EvaluationCache {
+	public static final int DEFAULT_MEGABYTES = 2;
+	// Outside the int range, so no score can be mistaken for it
+	public static final long MISS = Long.MIN_VALUE;
+
+	private static final int BYTES_PER_ENTRY = 16;
+	private static final long PRESENT = 1L << 32;
+	private static final long SCORE_MASK = PRESENT - 1;
+	private static final long BLACK_MIX = 0x9E3779B97F4A7C15L;
+	// Keeps the two-long array within the maximum array length
+	private static final int MAX_CAPACITY = 1 << 29;
+
+	private final long[] table;
+	private final int mask;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * @param megabytes
+	 *            memory budget; the capacity is the largest power of two that
+	 *            fits
+	 */
+	public EvaluationCache(int megabytes) {
+		if (megabytes < 1) {
+			throw new IllegalArgumentException("Evaluation cache needs at least 1 MB: " + megabytes);
+		}
+		long entries = (long) megabytes * 1024 * 1024 / BYTES_PER_ENTRY;
+		int capacity = (int) Math.min(Long.highestOneBit(entries), MAX_CAPACITY);
+		table = new long[capacity * 2];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * @return the cached score of the position with this key for {@code side},
+	 *         or {@link #MISS} if there is none
+	 */
+	public long probe(long key, Side side) {
+		long check = checkOf(key, side);
+		int index = ((int) check & mask) << 1;
+		long data = table[index + 1];
+		if (data == 0 || (table[index] ^ data) != check) {
+			misses.increment();
+			return MISS;
+		}
+		hits.increment();
+		return (int) (data & SCORE_MASK);
+	}
+
+	public void store(long key, Side side, int score) {
+		long check = checkOf(key, side);
+		int index = ((int) check & mask) << 1;
+		long data = PRESENT | (score & SCORE_MASK);
+		table[index] = check ^ data;
+		table[index + 1] = data;
+	}
+
+	private static long checkOf(long key, Side side) {
+		return side == Side.WHITE ? key : key ^ BLACK_MIX;
+	}
+
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return hits per probe since the last reset, or 0 before any probe
+	 */
+	public double getHitRate() {
+		long hitCount = hits.sum();
+		long probes = hitCount + misses.sum();
+		return probes == 0 ? 0.0 : (double) hitCount / probes;
+	}
+
+	public void resetStatistics() {
+		hits.reset();
+		misses.reset();
+	}
+
+	public void clear() {
+		Arrays.fill(table, 0L);
+		resetStatistics();
+	}
+}
@@ -1,6 +1,7 @@
 package com.ddemott.chessai;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -54,7 +55,7 @@ public class MoveHistory {
 			moves.remove(moves.size() - 1);
 		}
 
-		int moveNumber = (moves.size() / 2) + 1;
+		int moveNumber = (startingPly + moves.size()) / 2 + 1;
 		String algebraicNotation = generateAlgebraicNotation(from, to, movingPiece, capturedPiece, board,
 				promotionPiece);
 
@@ -454,59 +455,121 @@ public class MoveHistory {
 		}
 	}
 
+	/**
+	 * Returns an independent copy of this history. Moves are immutable, so the
+	 * copy shares the Move objects.
+	 */
+	public MoveHistory copy() {
+		MoveHistory copy = new MoveHistory();
+		copy.moves.addAll(moves);
+		copy.currentMoveIndex = currentMoveIndex;
+		copy.positionKeys = Arrays.copyOf(positionKeys, positionKeys.length);
+		copy.positionKeyCount = positionKeyCount;
+		copy.halfmoveClock = halfmoveClock;
+		copy.startingPly = startingPly;
+		return copy;
+	}
+
 	/**
 	 * Clears the move history
 	 */
 	public void clear() {
 		moves.clear();
 		currentMoveIndex = -1;
-		positionHistory.clear();
+		positionKeyCount = 0;
 		halfmoveClock = 0;
+		startingPly = 0;
+	}
+
+	/**
+	 * Clears the history and starts it from a position set up mid-game, e.g.
+	 * from FEN, so move numbers continue from there.
+	 *
+	 * @param fullmoveNumber
+	 *            the FEN full-move number, starting at 1
+	 * @param sideToMove
+	 *            the side to play the first recorded move
+	 * @param halfmoveClock
+	 *            half-moves since the last pawn move or capture
+	 */
+	public void setStartingPosition(int fullmoveNumber, Side sideToMove, int halfmoveClock) {
+		clear();
+		this.startingPly = (fullmoveNumber - 1) * 2 + (sideToMove == Side.BLACK ? 1 : 0);
+		this.halfmoveClock = halfmoveClock;
 	}
 
-	// Position repetition tracking
-	private final ArrayList<String> positionHistory = new ArrayList<>();
+	/**
+	 * @return the FEN full-move number of the current position: 1 at the start
+	 *         and incremented after each Black move
+	 */
+	public int getFullmoveNumber() {
+		return (startingPly + currentMoveIndex + 1) / 2 + 1;
+	}
+
+	// Position repetition tracking: Zobrist keys of the positions reached after
+	// each move, oldest first
+	private long[] positionKeys = new long[128];
+	private int positionKeyCount;
 	private int halfmoveClock = 0;
+	private int startingPly; // Plies played before the first recorded move
 
 	/**
-	 * Gets the history of positions for threefold repetition checking
+	 * Records the Zobrist key of the position reached by the move just added with
+	 * {@link #addMove}. Keys of moves that were undone and replaced are dropped
+	 * first.
 	 */
-	public List<String> getPositionHistory() {
-		return new ArrayList<>(positionHistory);
+	public void addPosition(long key) {
+		if (currentMoveIndex >= 0 && positionKeyCount > currentMoveIndex) {
+			positionKeyCount = currentMoveIndex;
+		}
+		pushPosition(key);
 	}
 
 	/**
-	 * Adds a position to the history and returns true if it's a threefold
-	 * repetition
+	 * Records a position reached during look-ahead. Unlike
+	 * {@link #addPosition(long)} this never truncates the history, so it can be
+	 * paired with {@link #popPosition()} when the move is taken back.
 	 */
-	public void addPosition(String position) {
-		positionHistory.add(position);
+	public void pushPosition(long key) {
+		if (positionKeyCount == positionKeys.length) {
+			positionKeys = Arrays.copyOf(positionKeys, positionKeyCount * 2);
+		}
+		positionKeys[positionKeyCount++] = key;
+	}
 
-		// Remove any positions after the current index (for undo/redo support)
-		while (positionHistory.size() > currentMoveIndex + 2) { // +2 because we add position before the move is
-																// recorded
-			positionHistory.remove(positionHistory.size() - 1);
+	/**
+	 * Removes the position recorded by the matching {@link #pushPosition(long)}.
+	 */
+	public void popPosition() {
+		positionKeyCount--;
+	}
+
+	/**
+	 * Counts how often a position occurs in the key history. Only positions since
+	 * the last pawn move or capture are scanned, since nothing earlier can repeat.
+	 */
+	public int countPositionOccurrences(long key) {
+		int oldest = Math.max(0, positionKeyCount - halfmoveClock - 1);
+		int occurrences = 0;
+		for (int i = positionKeyCount - 1; i >= oldest; i--) {
+			if (positionKeys[i] == key) {
+				occurrences++;
+			}
 		}
+		return occurrences;
+	}
+
+	public int getPositionKeyCount() {
+		return positionKeyCount;
 	}
 
 	/**
 	 * Checks if the current position has appeared three times
 	 */
 	public boolean isThreefoldRepetition() {
-		if (positionHistory.isEmpty())
+		if (positionKeyCount == 0)
 			return false;
-		String currentPosition = positionHistory.get(positionHistory.size() - 1);
-		int repetitions = 0;
-
-		for (String position : positionHistory) {
-			if (position.equals(currentPosition)) {
-				repetitions++;
-				if (repetitions >= 3) {
-					return true;
-				}
-			}
-		}
-		return false;
+		return countPositionOccurrences(positionKeys[positionKeyCount - 1]) >= 3;
 	}
 
 	/**
@@ -517,6 +580,13 @@ public class MoveHistory {
 		return halfmoveClock;
 	}
 
+	/**
+	 * Sets the half-move clock, e.g. when restoring it after a move is taken back
+	 */
+	public void setHalfmoveClock(int halfmoveClock) {
+		this.halfmoveClock = halfmoveClock;
+	}
+
 	/**
 	 * Updates the half-move clock
 	 * 
@@ -4,6 +4,8 @@ import java.util.List;
 import com.ddemott.chessai.pieces.*;
 
 import com.ddemott.chessai.ai.AIStrategy;
+import com.ddemott.chessai.bitboard.Fen;
+import com.ddemott.chessai.bitboard.Position;
 import com.ddemott.chessai.pieces.IPiece;
 
 public class State {
@@ -21,6 +23,31 @@ public class State {
 		this.moveHistory = new MoveHistory();
 	}
 
+	/**
+	 * Creates a game state from a FEN string, covering all six fields: pieces,
+	 * side to move, castling rights (as king and rook hasMoved flags), en passant
+	 * square, half-move clock and full-move number. The clocks may be omitted.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the string is not valid FEN
+	 */
+	public static State fromFEN(String fen) {
+		Position parsed = new Position();
+		int fullmoveNumber = Fen.parseInto(fen, parsed);
+		State state = new State();
+		state.board.setUpPosition(parsed);
+		state.setCurrentTurn(parsed.getSideToMove() == Position.WHITE ? Side.WHITE : Side.BLACK);
+		state.moveHistory.setStartingPosition(fullmoveNumber, state.currentTurn, parsed.getHalfmoveClock());
+		return state;
+	}
+
+	/**
+	 * @return the full six-field FEN of the current position
+	 */
+	public String toFEN() {
+		return Fen.toFen(board.getPosition(), moveHistory.getFullmoveNumber());
+	}
+
 	public Board getBoard() {
 		return board;
 	}
@@ -34,11 +61,12 @@ public class State {
 	}
 
 	public void setCurrentTurn(String currentTurn) {
-		this.currentTurn = currentTurn.equalsIgnoreCase("White") ? Side.WHITE : Side.BLACK;
+		setCurrentTurn(currentTurn.equalsIgnoreCase("White") ? Side.WHITE : Side.BLACK);
 	}
 
 	public void setCurrentTurn(Side side) {
 		this.currentTurn = side;
+		board.getPosition().setSideToMove(side.ordinal());
 	}
 
 	public void setAIStrategy(AIStrategy aiStrategy) {
@@ -68,18 +96,18 @@ public class State {
 
 		boolean moveSuccessful = board.movePiece(from, to);
 		if (moveSuccessful) {
-			// Record the position before updating the half-move clock
-			String positionFEN = board.toFEN().split(" ")[0]; // Only use board position part of FEN
-			moveHistory.addPosition(positionFEN);
-
 			// Update half-move clock
 			boolean isPawnMove = piece instanceof Pawn;
 			boolean isCapture = capturedPiece != null;
 			moveHistory.updateHalfmoveClock(isPawnMove, isCapture);
+			board.getPosition().setHalfmoveClock(moveHistory.getHalfmoveClock());
 
 			// Record the move in history
 			moveHistory.addMove(from, to, piece, capturedPiece, board, currentTurn.toString());
 			toggleTurn();
+
+			// Record the position (including side to move) for repetition detection
+			moveHistory.addPosition(getZobristKey());
 		}
 		return moveSuccessful;
 	}
@@ -94,40 +122,8 @@ public class State {
 	 * @return true if the move would expose the king to check, false otherwise
 	 */
 	private boolean isPiecePinned(String from, String to) {
-		return isPiecePinned(from, to, null);
-	}
-
-	private boolean isPiecePinned(String from, String to, String promotionPiece) {
-		IPiece piece = board.getPieceAt(from);
-		if (piece == null) {
-			return false;
-		}
-
-		// Skip king moves - kings can't be pinned
-		if (piece instanceof King) {
-			return false;
-		}
-
-		// Simulate the move
-		Board clonedBoard = this.board.clone();
-
-		// Execute the move on the cloned board, handling promotion if needed
-		if (promotionPiece != null && piece instanceof Pawn) {
-			// For promotion moves, simulate it with the move
-			if (!clonedBoard.movePiece(from, to, promotionPiece)) {
-				// If promotion move fails, simulate regular move
-				clonedBoard.setPieceAt(to, piece.clonePiece());
-			}
-		} else {
-			clonedBoard.setPieceAt(to, piece.clonePiece());
-		}
-		clonedBoard.setPieceAt(from, null);
-
-		// Check if the king is in check after this move
-		boolean kingInCheck = clonedBoard.isKingInCheck(piece.getSide());
-
-		// If the king is in check, the piece is pinned
-		return kingInCheck;
+		// Answered from the bitboards; the promotion piece does not matter here
+		return board.wouldExposeKingToCheck(from, to);
 	}
 
 	public boolean movePiece(String from, String to, String promotionPiece) {
@@ -145,13 +141,10 @@ public class State {
 
 		// Update game state if move was successful
 		if (moveSuccessful) {
-			// Record position
-			String positionFEN = board.toFEN().split(" ")[0];
-			moveHistory.addPosition(positionFEN);
-
 			// Update half-move clock
 			boolean isPawnMove = piece instanceof Pawn;
 			moveHistory.updateHalfmoveClock(isPawnMove, capturedPiece != null);
+			board.getPosition().setHalfmoveClock(moveHistory.getHalfmoveClock());
 
 			// Record move in history with promotion info if applicable
 			if (promotionPiece != null) {
@@ -161,6 +154,7 @@ public class State {
 			}
 
 			toggleTurn();
+			moveHistory.addPosition(getZobristKey());
 		}
 
 		return moveSuccessful;
@@ -171,7 +165,7 @@ public class State {
 	}
 
 	private void toggleTurn() {
-		currentTurn = currentTurn.flip();
+		setCurrentTurn(currentTurn.flip());
 	}
 
 	public List<String> getAllPossibleMoves(String color) {
@@ -189,37 +183,54 @@ public class State {
 		newState.currentTurn = this.currentTurn;
 		newState.setAIStrategy(this.aiStrategy); // Keep the same strategy
 		// Deep copy move history (including position history)
-		MoveHistory oldHistory = this.moveHistory;
-		MoveHistory newHistory = new MoveHistory();
-		// Copy moves
-		for (Move move : oldHistory.getMoves()) {
-			// Moves are immutable, so shallow copy is fine
-			newHistory.getMoves().add(move);
-		}
-		// Copy position history
-		for (String pos : oldHistory.getPositionHistory()) {
-			newHistory.getPositionHistory().add(pos);
-		}
-		// Copy halfmove clock
-		try {
-			java.lang.reflect.Field halfmoveClockField = MoveHistory.class.getDeclaredField("halfmoveClock");
-			halfmoveClockField.setAccessible(true);
-			halfmoveClockField.setInt(newHistory, oldHistory.getHalfmoveClock());
-		} catch (Exception e) {
-			// Ignore if reflection fails
-		}
-		// Copy current move index
-		try {
-			java.lang.reflect.Field currentMoveIndexField = MoveHistory.class.getDeclaredField("currentMoveIndex");
-			currentMoveIndexField.setAccessible(true);
-			currentMoveIndexField.setInt(newHistory, oldHistory.getMoves().size() - 1);
-		} catch (Exception e) {
-			// Ignore if reflection fails
-		}
-		newState.moveHistory = newHistory;
+		newState.moveHistory = this.moveHistory.copy();
 		return newState;
 	}
 
+	/**
+	 * Plays a move in place for look-ahead, without validation and without adding
+	 * it to the move list. The resulting position is recorded for repetition
+	 * detection and the half-move clock is updated; {@link #unmakeMove()} undoes
+	 * all of it. Search should clone the state once and then make and unmake
+	 * moves on that copy.
+	 *
+	 * @param from
+	 *            Starting position
+	 * @param to
+	 *            Ending position
+	 * @param promotionPiece
+	 *            Piece to promote to (Q, R, B, N) or null for no promotion
+	 */
+	public void makeMove(String from, String to, String promotionPiece) {
+		board.makeMove(from, to, promotionPiece);
+		afterMakeMove();
+	}
+
+	/**
+	 * Plays an {@link com.ddemott.chessai.bitboard.EncodedMove encoded move} in
+	 * place; see {@link #makeMove(String, String, String)}.
+	 */
+	public void makeMove(int move) {
+		board.makeMove(move);
+		afterMakeMove();
+	}
+
+	private void afterMakeMove() {
+		moveHistory.setHalfmoveClock(board.getPosition().getHalfmoveClock());
+		toggleTurn();
+		moveHistory.pushPosition(getZobristKey());
+	}
+
+	/**
+	 * Takes back the last move played with {@link #makeMove}.
+	 */
+	public void unmakeMove() {
+		board.unmakeMove();
+		moveHistory.popPosition();
+		moveHistory.setHalfmoveClock(board.getPosition().getHalfmoveClock());
+		toggleTurn();
+	}
+
 	// Getter for move history
 	public MoveHistory getMoveHistory() {
 		return moveHistory;
@@ -288,23 +299,16 @@ public class State {
 	 * history to check for repetitions
 	 */
 	public boolean isThreefoldRepetition() {
-		// Get all positions from move history
-		List<String> positions = moveHistory.getPositionHistory();
-		if (positions.size() < 3) { // Need at least 3 occurrences for threefold repetition
-			return false;
-		}
-
-		// Get current position FEN (without move numbers and counters)
-		String currentPosition = board.toFEN().split(" ")[0];
+		// Compare Zobrist keys (pieces, side to move, castling and en passant)
+		return moveHistory.countPositionOccurrences(getZobristKey()) >= 3;
+	}
 
-		// Count occurrences of current position
-		int repetitions = 0;
-		for (String position : positions) {
-			if (position.split(" ")[0].equals(currentPosition)) {
-				repetitions++;
-			}
-		}
-		return repetitions >= 3;
+	/**
+	 * Gets the Zobrist key of the current position, maintained incrementally by
+	 * the board as moves are made
+	 */
+	public long getZobristKey() {
+		return board.getZobristKey();
 	}
 
 	/**
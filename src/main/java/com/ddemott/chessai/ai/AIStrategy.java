@@ -1,7 +1,52 @@
 package com.ddemott.chessai.ai;
 
+import com.ddemott.chessai.Side;
 import com.ddemott.chessai.State;
+import com.ddemott.chessai.bitboard.EncodedMove;
 
-public interface AIStrategy {
+public interface AIStrategy extends AutoCloseable {
 	String calculateBestMove(State state, String color);
+
+	/**
+	 * Returns the best move as an {@link EncodedMove}, or
+	 * {@link EncodedMove#NONE}. The default parses
+	 * {@link #calculateBestMove(State, String)}; strategies that search on encoded
+	 * moves override it to skip the String round trip.
+	 */
+	default int calculateBestEncodedMove(State state, Side side) {
+		return EncodedMove.parse(calculateBestMove(state, side.toString()));
+	}
+
+	/**
+	 * Searches for {@code side} and returns a {@link SearchHandle} for the
+	 * result. The default searches synchronously on the calling thread with
+	 * {@link #calculateBestEncodedMove}, so the handle it returns has already
+	 * finished and stopping it or the deadline have no effect; strategies that
+	 * can search in the background override it.
+	 *
+	 * @param hardDeadlineMillis
+	 *            stop with the best move so far after this many milliseconds; 0
+	 *            for no deadline
+	 */
+	default SearchHandle startSearch(State state, Side side, long hardDeadlineMillis) {
+		if (hardDeadlineMillis < 0) {
+			throw new IllegalArgumentException("Deadline must not be negative: " + hardDeadlineMillis + " ms");
+		}
+		SearchHandle handle = new SearchHandle(hardDeadlineMillis);
+		try {
+			handle.update(0, calculateBestEncodedMove(state, side), 0);
+			handle.complete();
+		} catch (RuntimeException e) {
+			handle.fail(e);
+		}
+		return handle;
+	}
+
+	/**
+	 * Releases any threads the strategy has started; it must not be used
+	 * afterwards. The default has nothing to release.
+	 */
+	@Override
+	default void close() {
+	}
 }
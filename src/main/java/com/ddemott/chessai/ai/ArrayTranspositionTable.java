@@ -0,0 +1,117 @@
+package com.ddemott.chessai.ai;
+
+import java.util.Arrays;
+
+/**
+ * Single-threaded {@link TranspositionTable} stored in parallel primitive
+ * arrays, one slot per index {@code key & (capacity - 1)}.
+ * <p>
+ * Replacement policy: a slot is overwritten when it is empty, holds the same
+ * position, was written by an earlier search, or holds a result searched no
+ * deeper than the new one. This keeps deep, expensive results from the current
+ * search while letting stale ones age out.
+ */
+public class ArrayTranspositionTable implements TranspositionTable {
+	// key (8) + score (4) + move (4) + depth, bound and generation (1 each)
+	static final int BYTES_PER_ENTRY = 19;
+
+	private final long[] keys;
+	private final int[] scores;
+	private final int[] moves;
+	private final byte[] depths;
+	private final byte[] bounds; // 0 marks an empty slot
+	private final byte[] generations;
+	private final int mask;
+
+	private byte generation;
+	private int used;
+	private long probes;
+	private long hits;
+
+	/**
+	 * @param megabytes
+	 *            memory budget; the capacity is the largest power of two that
+	 *            fits
+	 */
+	public ArrayTranspositionTable(int megabytes) {
+		int capacity = TranspositionTable.capacityFor(megabytes, BYTES_PER_ENTRY);
+		keys = new long[capacity];
+		scores = new int[capacity];
+		moves = new int[capacity];
+		depths = new byte[capacity];
+		bounds = new byte[capacity];
+		generations = new byte[capacity];
+		mask = capacity - 1;
+	}
+
+	@Override
+	public long probe(long key) {
+		probes++;
+		int index = (int) key & mask;
+		if (bounds[index] == 0 || keys[index] != key) {
+			return MISS;
+		}
+		hits++;
+		return TranspositionTable.pack(depths[index] & 0xFF, bounds[index], scores[index], moves[index]);
+	}
+
+	@Override
+	public void store(long key, int depth, int bound, int score, int move) {
+		int index = (int) key & mask;
+		boolean empty = bounds[index] == 0;
+		boolean samePosition = !empty && keys[index] == key;
+		if (!empty && !samePosition && generations[index] == generation && depth < (depths[index] & 0xFF)) {
+			return; // Keep the deeper result from this search
+		}
+		if (empty) {
+			used++;
+		}
+		if (samePosition && move == 0) {
+			move = moves[index]; // Keep the known best move
+		}
+		keys[index] = key;
+		scores[index] = score;
+		moves[index] = move;
+		depths[index] = (byte) Math.min(depth, MAX_DEPTH);
+		bounds[index] = (byte) bound;
+		generations[index] = generation;
+	}
+
+	@Override
+	public void newSearch() {
+		generation++;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(bounds, (byte) 0);
+		used = 0;
+		resetStatistics();
+	}
+
+	@Override
+	public int getCapacity() {
+		return keys.length;
+	}
+
+	@Override
+	public double getOccupancy() {
+		return (double) used / keys.length;
+	}
+
+	@Override
+	public long getProbes() {
+		return probes;
+	}
+
+	@Override
+	public long getHits() {
+		return hits;
+	}
+
+	@Override
+	public void resetStatistics() {
+		probes = 0;
+		hits = 0;
+	}
+}
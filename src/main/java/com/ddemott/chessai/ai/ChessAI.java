@@ -1,51 +1,67 @@
 package com.ddemott.chessai.ai;
 
 import com.ddemott.chessai.Board;
+import com.ddemott.chessai.bitboard.EncodedMove;
+import com.ddemott.chessai.bitboard.MoveGenerator;
+import com.ddemott.chessai.bitboard.MoveList;
+import com.ddemott.chessai.bitboard.Position;
 import com.ddemott.chessai.pieces.IPiece;
 import java.util.List;
 
 public class ChessAI {
 	private int maxDepth;
+	private final MoveList[] moveLists; // One list per ply, reused between nodes
 	// private Random random = new Random();
 
 	public ChessAI(int maxDepth) {
 		this.maxDepth = maxDepth;
+		this.moveLists = new MoveList[Math.max(maxDepth, 1)];
+		for (int ply = 0; ply < moveLists.length; ply++) {
+			moveLists[ply] = new MoveList();
+		}
 	}
 
 	public String[] getBestMove(Board board, String aiColor) {
 		double bestValue = Double.NEGATIVE_INFINITY;
-		String[] bestMove = null;
-		List<String> moves = board.getAllPossibleMoves(aiColor);
-		for (String move : moves) {
-			Board cloned = board.clone();
-			String[] parts = move.split(" ");
-			cloned.movePiece(parts[0], parts[1]);
-			double value = minimax(cloned, maxDepth - 1, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, false,
-					aiColor);
-			if (value > bestValue || bestMove == null) {
+		int bestMove = EncodedMove.NONE;
+		int aiSide = sideOf(aiColor);
+		// Search a single copy, playing and taking back moves in place
+		Board searchBoard = board.clone();
+		MoveList moves = moveLists[0];
+		moves.clear();
+		MoveGenerator.generateLegal(searchBoard.getPosition(), aiSide, moves);
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moves.get(i);
+			searchBoard.makeMove(move);
+			double value = minimax(searchBoard, maxDepth - 1, 1, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+					false, aiColor);
+			searchBoard.unmakeMove();
+			if (value > bestValue || bestMove == EncodedMove.NONE) {
 				bestValue = value;
-				bestMove = parts;
+				bestMove = move;
 			}
 		}
 		// If multiple moves have the same value, pick randomly
-		return bestMove;
+		return bestMove == EncodedMove.NONE ? null : EncodedMove.toString(bestMove).split(" ");
 	}
 
-	private double minimax(Board board, int depth, double alpha, double beta, boolean maximizingPlayer,
+	private double minimax(Board board, int depth, int ply, double alpha, double beta, boolean maximizingPlayer,
 			String aiColor) {
 		String opponentColor = aiColor.equals("White") ? "Black" : "White";
 		if (depth == 0 || board.isCheckmate(aiColor) || board.isCheckmate(opponentColor) || board.isStalemate(aiColor)
 				|| board.isStalemate(opponentColor)) {
 			return evaluateBoard(board, aiColor);
 		}
-		List<String> moves = board.getAllPossibleMoves(maximizingPlayer ? aiColor : opponentColor);
+		int moverSide = sideOf(maximizingPlayer ? aiColor : opponentColor);
+		MoveList moves = moveLists[ply];
+		moves.clear();
+		MoveGenerator.generateLegal(board.getPosition(), moverSide, moves);
 		if (maximizingPlayer) {
 			double maxEval = Double.NEGATIVE_INFINITY;
-			for (String move : moves) {
-				Board cloned = board.clone();
-				String[] parts = move.split(" ");
-				cloned.movePiece(parts[0], parts[1]);
-				double eval = minimax(cloned, depth - 1, alpha, beta, false, aiColor);
+			for (int i = 0; i < moves.size(); i++) {
+				board.makeMove(moves.get(i));
+				double eval = minimax(board, depth - 1, ply + 1, alpha, beta, false, aiColor);
+				board.unmakeMove();
 				maxEval = Math.max(maxEval, eval);
 				alpha = Math.max(alpha, eval);
 				if (beta <= alpha)
@@ -54,11 +70,10 @@ public class ChessAI {
 			return maxEval;
 		} else {
 			double minEval = Double.POSITIVE_INFINITY;
-			for (String move : moves) {
-				Board cloned = board.clone();
-				String[] parts = move.split(" ");
-				cloned.movePiece(parts[0], parts[1]);
-				double eval = minimax(cloned, depth - 1, alpha, beta, true, aiColor);
+			for (int i = 0; i < moves.size(); i++) {
+				board.makeMove(moves.get(i));
+				double eval = minimax(board, depth - 1, ply + 1, alpha, beta, true, aiColor);
+				board.unmakeMove();
 				minEval = Math.min(minEval, eval);
 				beta = Math.min(beta, eval);
 				if (beta <= alpha)
@@ -68,6 +83,10 @@ public class ChessAI {
 		}
 	}
 
+	private static int sideOf(String color) {
+		return color.equalsIgnoreCase("White") ? Position.WHITE : Position.BLACK;
+	}
+
 	private double evaluateBoard(Board board, String aiColor) {
 		double score = 0.0;
 		IPiece[][] arr = board.getBoardArray();
@@ -0,0 +1,50 @@
+package com.ddemott.chessai.ai;
+
+import java.util.Arrays;
+
+import com.ddemott.chessai.bitboard.EncodedMove;
+
+/**
+ * History heuristic: a score per side and from/to square pair, raised whenever
+ * a quiet move causes a beta cutoff. Quiet moves that refuted many positions
+ * are tried first elsewhere in the tree. Each search thread keeps its own
+ * table.
+ */
+public final class HistoryTable {
+	// Scores are halved when one passes this, keeping recent cutoffs relevant
+	private static final int MAX_SCORE = 1 << 20;
+
+	private final int[] scores = new int[2 * 64 * 64];
+
+	public int get(int side, int move) {
+		return scores[index(side, move)];
+	}
+
+	/**
+	 * Credits a quiet move that caused a cutoff; deeper cutoffs count for more.
+	 */
+	public void reward(int side, int move, int depth) {
+		int index = index(side, move);
+		scores[index] += depth * depth;
+		if (scores[index] > MAX_SCORE) {
+			age();
+		}
+	}
+
+	/**
+	 * Halves every score, so older searches weigh less than the current one.
+	 */
+	public void age() {
+		for (int i = 0; i < scores.length; i++) {
+			scores[i] >>= 1;
+		}
+	}
+
+	public void clear() {
+		Arrays.fill(scores, 0);
+	}
+
+	private static int index(int side, int move) {
+		return (side << 12) | (EncodedMove.from(move) << 6) | EncodedMove.to(move);
+	}
+}
@@ -0,0 +1,136 @@
+package com.ddemott.chessai.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link TranspositionTable} that any number of search threads can probe and
+ * store concurrently without locks.
+ * <p>
+ * Each slot is two longs in one {@code long[]}: {@code key ^ data} followed by
+ * {@code data}, where data is a {@link TranspositionTable#pack packed} entry.
+ * Writers store both words with plain writes, so a reader racing a writer can
+ * see the words of two different entries; XOR-ing them back then fails to
+ * reproduce the probed key and the torn entry is treated as a miss. A
+ * collision can only pass this check if the two writes happen to combine to
+ * the same key, which is as unlikely as a full 64-bit key collision.
+ * <p>
+ * The search generation is kept in the spare bits 29-31 of the data word and
+ * the replacement policy matches {@link ArrayTranspositionTable}. Statistics
+ * are approximate under concurrency: counters use {@link LongAdder} and
+ * occupancy is sampled.
+ */
+public class LocklessTranspositionTable implements TranspositionTable {
+	// Two longs per slot
+	static final int BYTES_PER_ENTRY = 16;
+
+	private static final int GENERATION_SHIFT = 29;
+	private static final long GENERATION_MASK = 0x7L << GENERATION_SHIFT;
+	private static final int OCCUPANCY_SAMPLE = 1000;
+	// Keeps the two-long array within the maximum array length
+	private static final int MAX_CAPACITY = 1 << 29;
+
+	private final long[] table;
+	private final int mask;
+	private final LongAdder probes = new LongAdder();
+	private final LongAdder hits = new LongAdder();
+
+	private volatile int generation;
+
+	/**
+	 * @param megabytes
+	 *            memory budget; the capacity is the largest power of two that
+	 *            fits
+	 */
+	public LocklessTranspositionTable(int megabytes) {
+		int capacity = Math.min(TranspositionTable.capacityFor(megabytes, BYTES_PER_ENTRY), MAX_CAPACITY);
+		table = new long[capacity * 2];
+		mask = capacity - 1;
+	}
+
+	@Override
+	public long probe(long key) {
+		probes.increment();
+		int index = ((int) key & mask) << 1;
+		long data = table[index + 1];
+		long check = table[index];
+		if (data == 0 || (check ^ data) != key) {
+			return MISS;
+		}
+		hits.increment();
+		return data & ~GENERATION_MASK;
+	}
+
+	@Override
+	public void store(long key, int depth, int bound, int score, int move) {
+		int index = ((int) key & mask) << 1;
+		long oldData = table[index + 1];
+		long oldKey = table[index] ^ oldData;
+		int currentGeneration = generation;
+		if (oldData != 0) {
+			if (oldKey != key) {
+				if (generationOf(oldData) == currentGeneration && depth < TranspositionTable.depth(oldData)) {
+					return; // Keep the deeper result from this search
+				}
+			} else if (move == 0) {
+				move = TranspositionTable.move(oldData); // Keep the known best move
+			}
+		}
+		long data = TranspositionTable.pack(Math.min(depth, MAX_DEPTH), bound, score, move)
+				| ((long) currentGeneration << GENERATION_SHIFT);
+		table[index] = key ^ data;
+		table[index + 1] = data;
+	}
+
+	@Override
+	public void newSearch() {
+		generation = (generation + 1) & 0x7;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(table, 0L);
+		resetStatistics();
+	}
+
+	@Override
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * Estimated from the first slots of the table, since counting exactly would
+	 * need a shared counter on every store.
+	 */
+	@Override
+	public double getOccupancy() {
+		int sample = Math.min(OCCUPANCY_SAMPLE, getCapacity());
+		int used = 0;
+		for (int i = 0; i < sample; i++) {
+			if (table[(i << 1) + 1] != 0) {
+				used++;
+			}
+		}
+		return (double) used / sample;
+	}
+
+	@Override
+	public long getProbes() {
+		return probes.sum();
+	}
+
+	@Override
+	public long getHits() {
+		return hits.sum();
+	}
+
+	@Override
+	public void resetStatistics() {
+		probes.reset();
+		hits.reset();
+	}
+
+	private static int generationOf(long data) {
+		return (int) ((data & GENERATION_MASK) >>> GENERATION_SHIFT);
+	}
+}
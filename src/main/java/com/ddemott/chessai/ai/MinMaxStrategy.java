@@ -1,103 +1,606 @@
 package com.ddemott.chessai.ai;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import com.ddemott.chessai.State;
 import com.ddemott.chessai.Evaluation;
+import com.ddemott.chessai.EvaluationCache;
 import com.ddemott.chessai.GameConstants;
 import com.ddemott.chessai.Side;
-
-import java.util.List;
+import com.ddemott.chessai.bitboard.EncodedMove;
+import com.ddemott.chessai.bitboard.Position;
 
 /**
- * Implements the Minimax algorithm with alpha-beta pruning for the chess AI.
+ * Implements the Minimax algorithm with alpha-beta pruning for the chess AI, in
+ * its negamax form: every score is from the point of view of the side to move.
+ * The search works on a single copy of the game state and plays moves in place
+ * with {@link State#makeMove} / {@link State#unmakeMove}, so nodes do not
+ * clone the board. Moves are legal {@link EncodedMove encoded ints} handed out
+ * by one reusable {@link MovePicker} per ply; they become Strings only when the
+ * result is returned.
+ * <p>
+ * Results are cached in a {@link TranspositionTable}, which supplies both
+ * cutoffs and the first move to try. After it come captures (MVV-LVA), killer
+ * moves and the other quiet moves by history score.
+ * <p>
+ * At depth 0 a quiescence search plays out captures and promotions until the
+ * position is quiet, so a leaf is never scored in the middle of an exchange.
+ * The side to move may stand pat on the static evaluation (evaluated lazily
+ * when it clearly fails high), captures that lose material by static exchange
+ * evaluation are not searched, and captures that could not lift the score back
+ * to alpha even if unanswered are skipped (delta pruning).
+ * <p>
+ * The search deepens iteratively from depth 1 up to the {@link SearchLimits}
+ * (by default the depth given to the constructor). A timed search stops
+ * starting new iterations once half its budget is spent and abandons the
+ * current one at the deadline; either way the move returned is the best move
+ * of the last completed iteration.
+ * <p>
+ * With more than one thread the search runs as Lazy SMP: helper threads
+ * deepen over the same root, offset by a ply and with their own killer and
+ * history tables, sharing the transposition table and evaluation cache with
+ * the main thread. They contribute nothing but table entries; the result is
+ * always the main thread's, and the helpers are stopped as soon as it
+ * finishes.
+ * <p>
+ * {@link #startSearch} runs the search in the background and returns a
+ * {@link SearchHandle} that can stop it or impose a hard deadline. A strategy
+ * runs one search at a time. Its threads live until {@link #close}.
  */
 public class MinMaxStrategy implements AIStrategy {
+	public static final int DEFAULT_HASH_MB = 16;
+
+	// Larger than any evaluation, and safe to negate
+	private static final int INFINITY = 1_000_000;
+	// Scores beyond this are mates; they are stored relative to the node so they
+	// stay correct when found again at a different ply
+	private static final int MATE_THRESHOLD = GameConstants.CHECKMATE_SCORE - 1000;
+	// Slack allowed for positional gains when delta pruning a capture
+	private static final int DELTA_MARGIN = 200;
+	// Nodes between checks of the clock and stop requests
+	private static final int STOP_CHECK_INTERVAL = 1024;
+
 	// Expose both move and score for display
 	public MoveResult calculateBestMoveWithScore(State state, String color) {
 		Side side = color.equalsIgnoreCase("White") ? Side.WHITE : Side.BLACK;
-		MoveResult result = minMax(state, maxDepth, Integer.MIN_VALUE, Integer.MAX_VALUE, side, true);
-		return result;
+		SearchHandle handle = new SearchHandle(0);
+		search(state, side, handle);
+		return handle.join();
 	}
 
-	private int maxDepth;
-	private Evaluation evaluation;
+	private SearchLimits limits;
+	private final TranspositionTable transpositionTable;
+	// Shared by all threads; static scores stay valid from one search to the next
+	private final EvaluationCache evaluationCache = new EvaluationCache(EvaluationCache.DEFAULT_MEGABYTES);
+	private final SearchWorker[] workers; // workers[0] is the main search
+	private final AtomicBoolean searching = new AtomicBoolean();
+	private ExecutorService helperPool; // Created on first use
+	private ExecutorService backgroundSearch; // Created on first use
+	private volatile boolean stopHelpers;
+	private volatile SearchHandle lastSearch;
 
 	public MinMaxStrategy(int maxDepth) {
-		this.maxDepth = maxDepth;
-		this.evaluation = new Evaluation(); // Initialize the evaluation object
+		this(maxDepth, 1);
+	}
+
+	/**
+	 * @param threads
+	 *            number of search threads; more than one enables Lazy SMP with a
+	 *            shared {@link LocklessTranspositionTable}
+	 */
+	public MinMaxStrategy(int maxDepth, int threads) {
+		this(maxDepth, threads, threads > 1
+				? new LocklessTranspositionTable(DEFAULT_HASH_MB)
+				: new ArrayTranspositionTable(DEFAULT_HASH_MB));
+	}
+
+	public MinMaxStrategy(int maxDepth, TranspositionTable transpositionTable) {
+		this(maxDepth, 1, transpositionTable);
+	}
+
+	/**
+	 * @param transpositionTable
+	 *            must be safe for concurrent use when {@code threads} is more
+	 *            than one
+	 */
+	public MinMaxStrategy(int maxDepth, int threads, TranspositionTable transpositionTable) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Search needs at least one thread: " + threads);
+		}
+		this.limits = SearchLimits.depth(maxDepth);
+		this.transpositionTable = transpositionTable;
+		this.workers = new SearchWorker[threads];
+		for (int id = 0; id < threads; id++) {
+			workers[id] = new SearchWorker(id);
+		}
 	}
 
 	@Override
 	public String calculateBestMove(State state, String color) {
-		Side side = color.equalsIgnoreCase("White") ? Side.WHITE : Side.BLACK;
-		MoveResult result = minMax(state, maxDepth, Integer.MIN_VALUE, Integer.MAX_VALUE, side, true);
-		return result != null ? result.move() : null;
+		return calculateBestMoveWithScore(state, color).move();
+	}
+
+	@Override
+	public int calculateBestEncodedMove(State state, Side side) {
+		SearchHandle handle = new SearchHandle(0);
+		search(state, side, handle);
+		return handle.getBestEncodedMove();
+	}
+
+	/**
+	 * Starts searching in the background within the current
+	 * {@link SearchLimits}. The state is copied before this returns, so the
+	 * caller may keep using it.
+	 */
+	public SearchHandle startSearch(State state, Side side) {
+		return startSearch(state, side, 0);
+	}
+
+	/**
+	 * @param hardDeadlineMillis
+	 *            stop with the best move so far after this many milliseconds,
+	 *            whatever the search limits say; 0 for no deadline
+	 */
+	@Override
+	public SearchHandle startSearch(State state, Side side, long hardDeadlineMillis) {
+		if (hardDeadlineMillis < 0) {
+			throw new IllegalArgumentException("Deadline must not be negative: " + hardDeadlineMillis + " ms");
+		}
+		SearchHandle handle = new SearchHandle(hardDeadlineMillis);
+		State snapshot = state.clone();
+		lastSearch = handle; // So close() can stop it before it starts
+		backgroundSearch().execute(() -> {
+			try {
+				search(snapshot, side, handle);
+			} catch (RuntimeException e) {
+				handle.fail(e);
+			}
+		});
+		return handle;
+	}
+
+	public TranspositionTable getTranspositionTable() {
+		return transpositionTable;
+	}
+
+	public EvaluationCache getEvaluationCache() {
+		return evaluationCache;
+	}
+
+	public SearchLimits getSearchLimits() {
+		return limits;
+	}
+
+	/**
+	 * Replaces the depth given to the constructor, e.g. with a time budget.
+	 */
+	public void setSearchLimits(SearchLimits limits) {
+		this.limits = limits;
 	}
 
-	private MoveResult minMax(State state, int depth, int alpha, int beta, Side side, boolean maximizingPlayer) {
-		// Penalize threefold repetition as a draw
-		if (state.isThreefoldRepetition()) {
-			// Major negative score for repetition (draw)
-			int repetitionPenalty = maximizingPlayer ? -GameConstants.CHECKMATE_SCORE : GameConstants.CHECKMATE_SCORE;
-			return new MoveResult(repetitionPenalty, null);
+	/**
+	 * @return the depth of the last completed iteration of the last search
+	 */
+	public int getCompletedDepth() {
+		SearchHandle handle = lastSearch;
+		return handle == null ? 0 : handle.getCompletedDepth();
+	}
+
+	public int getThreadCount() {
+		return workers.length;
+	}
+
+	/**
+	 * @return nodes visited by all threads during the last search
+	 */
+	public long getNodeCount() {
+		long nodes = 0;
+		for (SearchWorker worker : workers) {
+			nodes += worker.nodes;
 		}
-		if (depth == 0) {
-			int evaluationScore = evaluation.evaluateBoard(state.getBoard(), side);
-			return new MoveResult(evaluationScore, null);
+		return nodes;
+	}
+
+	private void search(State state, Side side, SearchHandle handle) {
+		if (!searching.compareAndSet(false, true)) {
+			throw new IllegalStateException("A search is already running on this strategy");
 		}
+		try {
+			lastSearch = handle;
+			runSearch(state, side, handle);
+		} finally {
+			searching.set(false);
+		}
+		handle.complete();
+	}
 
-		List<String> possibleMoves = state.getAllPossibleMoves(side);
-		if (possibleMoves.isEmpty()) {
-			int evaluationScore = evaluation.evaluateBoard(state.getBoard(), side);
-			return new MoveResult(evaluationScore, null);
+	private void runSearch(State state, Side side, SearchHandle handle) {
+		SearchLimits searchLimits = limits;
+		long start = System.nanoTime();
+		long budgetNanos = searchLimits.getTimeBudgetMillis() * 1_000_000L;
+		transpositionTable.newSearch();
+		stopHelpers = false;
+		Future<?>[] helpers = new Future<?>[workers.length];
+		try {
+			for (int id = 1; id < workers.length; id++) {
+				SearchWorker helper = workers[id];
+				helper.prepare(state, side);
+				helpers[id] = helperPool().submit(() -> helper.deepen(1 + (helper.id & 1), SearchLimits.MAX_DEPTH));
+			}
+			searchMain(state, side, handle, searchLimits, start, budgetNanos);
+		} finally {
+			// Joins every helper, so none still writes to the workers when the
+			// next search starts
+			stopHelpers = true;
+			awaitHelpers(helpers);
 		}
+	}
 
-		MoveResult bestMove = new MoveResult(maximizingPlayer ? Integer.MIN_VALUE : Integer.MAX_VALUE, null);
+	private void searchMain(State state, Side side, SearchHandle handle, SearchLimits searchLimits, long start,
+			long budgetNanos) {
+		SearchWorker main = workers[0];
+		main.prepare(state, side);
+		main.handle = handle;
+		main.hasDeadline = searchLimits.isTimed() || handle.hasDeadline();
+		main.deadlineNanos = deadlineOf(start + budgetNanos, searchLimits.isTimed(), handle);
+		for (int depth = 1; depth <= searchLimits.getDepth(); depth++) {
+			// The first iteration always completes, so there is a move to play
+			main.interruptible = depth > 1;
+			int score = main.searchRoot(depth);
+			if (main.aborted()) {
+				break;
+			}
+			handle.update(depth, main.bestMove, score);
+			if (handle.isStopRequested()) {
+				break;
+			}
+			if (searchLimits.isTimed() && System.nanoTime() - start > budgetNanos / 2) {
+				break; // The next iteration would not finish in time
+			}
+		}
+	}
 
-		for (String move : possibleMoves) {
-			State newState = state.clone();
-			String[] positions = move.split(" ");
+	private static long deadlineOf(long budgetDeadline, boolean timed, SearchHandle handle) {
+		if (!handle.hasDeadline()) {
+			return budgetDeadline;
+		}
+		if (!timed || handle.getDeadlineNanos() - budgetDeadline < 0) {
+			return handle.getDeadlineNanos();
+		}
+		return budgetDeadline;
+	}
+
+	private synchronized ExecutorService backgroundSearch() {
+		if (backgroundSearch == null) {
+			backgroundSearch = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "search-main");
+				thread.setDaemon(true); // Never keeps the application alive
+				return thread;
+			});
+		}
+		return backgroundSearch;
+	}
+
+	private synchronized ExecutorService helperPool() {
+		if (helperPool == null) {
+			helperPool = Executors.newFixedThreadPool(workers.length - 1, runnable -> {
+				Thread thread = new Thread(runnable, "search-helper");
+				thread.setDaemon(true); // Never keeps the application alive
+				return thread;
+			});
+		}
+		return helperPool;
+	}
 
-			// Handle promotion moves: "e7 e8 Q"
-			String promotionPiece = null;
-			if (positions.length == 3) {
-				promotionPiece = positions[2];
-			} else if (positions.length != 2) {
-				continue;
+	/**
+	 * Stops the helper threads and the background search thread. A search still
+	 * running is asked to stop and completes with its best move so far.
+	 */
+	@Override
+	public synchronized void close() {
+		SearchHandle running = lastSearch;
+		if (running != null) {
+			running.stop();
+		}
+		stopHelpers = true;
+		if (helperPool != null) {
+			helperPool.shutdownNow();
+		}
+		if (backgroundSearch != null) {
+			// Not shutdownNow: a queued search must still run to complete its handle
+			backgroundSearch.shutdown();
+		}
+	}
+
+	/**
+	 * Waits for every submitted helper, even after one has failed or the thread
+	 * was interrupted, then throws for the first failure.
+	 */
+	private static void awaitHelpers(Future<?>[] helpers) {
+		IllegalStateException failure = null;
+		boolean interrupted = false;
+		for (Future<?> helper : helpers) {
+			while (helper != null) {
+				try {
+					helper.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = new IllegalStateException("Search helper failed", e.getCause());
+					} else {
+						failure.addSuppressed(e.getCause());
+					}
+					break;
+				}
 			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * One search thread's private state: its own copy of the position and move
+	 * lists. Only the transposition table and evaluation cache are shared.
+	 */
+	private final class SearchWorker {
+		private final int id;
+		private final Evaluation evaluation = new Evaluation(evaluationCache);
+		// One picker and killer pair per ply, reused between nodes
+		private final MovePicker[] pickers = new MovePicker[SearchLimits.MAX_DEPTH + 1];
+		private final int[][] killers = new int[SearchLimits.MAX_DEPTH + 1][2];
+		private final HistoryTable history = new HistoryTable();
+		private State state;
+		private int bestMove;
+		private long nodes;
+		private boolean abort; // Set by poll(); the iteration in progress is discarded
+		// Main thread only: the stop request and deadline to poll for
+		private SearchHandle handle;
+		private boolean interruptible;
+		private boolean hasDeadline;
+		private long deadlineNanos;
+
+		SearchWorker(int id) {
+			this.id = id;
+			for (int ply = 0; ply < pickers.length; ply++) {
+				pickers[ply] = new MovePicker();
+			}
+		}
 
-			newState.movePiece(positions[0], positions[1], promotionPiece);
+		void prepare(State rootState, Side side) {
+			state = rootState.clone();
+			state.setCurrentTurn(side);
+			bestMove = EncodedMove.NONE;
+			nodes = 0;
+			abort = false;
+			for (int[] pair : killers) {
+				pair[0] = EncodedMove.NONE;
+				pair[1] = EncodedMove.NONE;
+			}
+			history.age();
+		}
+
+		int searchRoot(int depth) {
+			return negamax(depth, 0, -INFINITY, INFINITY);
+		}
 
-			// Ensure the move does not leave the King in check
-			// Note: State.movePiece checks for validity but maybe not full check validation
-			// for *resulting* state
-			// if we are using the simple movePiece.
-			// But wait, standard State.movePiece already checks if move is valid and
-			// updates turn.
-			// The issue is that the AI might generate pseudo-legal moves.
-			// Let's rely on Board.isKingInCheck(side) which is robust now.
-			if (newState.getBoard().isKingInCheck(side)) {
-				continue;
+		/**
+		 * Helper loop: searches ever deeper until the main thread finishes.
+		 */
+		void deepen(int fromDepth, int toDepth) {
+			for (int depth = fromDepth; depth <= toDepth; depth++) {
+				poll();
+				if (aborted()) {
+					return;
+				}
+				searchRoot(depth);
 			}
+		}
 
-			MoveResult result = minMax(newState, depth - 1, alpha, beta, side.flip(), !maximizingPlayer);
+		boolean aborted() {
+			return abort;
+		}
 
-			if (maximizingPlayer) {
-				if (result.value() > bestMove.value()) {
-					bestMove = new MoveResult(result.value(), move);
+		/**
+		 * Checks the shared stop flags and the clock; called every
+		 * {@link #STOP_CHECK_INTERVAL} nodes so volatile reads stay off the hot
+		 * path.
+		 */
+		private void poll() {
+			if (id != 0) {
+				abort = stopHelpers;
+			} else if (interruptible) {
+				abort = handle.isStopRequested() || (hasDeadline && System.nanoTime() - deadlineNanos > 0);
+			}
+		}
+
+		private int negamax(int depth, int ply, int alpha, int beta) {
+			if (++nodes % STOP_CHECK_INTERVAL == 0) {
+				poll();
+			}
+			Side side = state.getCurrentTurnSide();
+			// A repeated position is a draw (the root is searched regardless)
+			if (ply > 0 && state.isThreefoldRepetition()) {
+				return GameConstants.DRAW_SCORE;
+			}
+			if (depth == 0 || ply >= SearchLimits.MAX_DEPTH) {
+				return quiescence(ply, alpha, beta);
+			}
+
+			long key = state.getZobristKey();
+			int tableMove = EncodedMove.NONE;
+			long entry = transpositionTable.probe(key);
+			if (entry != TranspositionTable.MISS) {
+				tableMove = TranspositionTable.move(entry);
+				if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+					int score = scoreFromTable(TranspositionTable.score(entry), ply);
+					int bound = TranspositionTable.bound(entry);
+					if (bound == TranspositionTable.BOUND_EXACT
+							|| (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+							|| (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+						return score;
+					}
+				}
+			}
+
+			MovePicker picker = pickers[ply];
+			picker.reset(state.getBoard().getPosition(), side.ordinal(), tableMove, killers[ply], history);
+
+			int originalAlpha = alpha;
+			int bestValue = -INFINITY;
+			int nodeBestMove = EncodedMove.NONE;
+			int legalMoves = 0;
+
+			for (int move = picker.next(); move != EncodedMove.NONE; move = picker.next()) {
+				legalMoves++;
+				state.makeMove(move);
+
+				int value = -negamax(depth - 1, ply + 1, -beta, -alpha);
+				state.unmakeMove();
+				if (aborted()) {
+					return 0; // Unfinished; nothing is stored
+				}
+
+				if (value > bestValue) {
+					bestValue = value;
+					nodeBestMove = move;
+					if (value > alpha) {
+						alpha = value;
+					}
+				}
+				if (alpha >= beta) {
+					if (!MovePicker.isTactical(move)) {
+						rememberCutoff(ply, side.ordinal(), move, depth);
+					}
+					break; // Alpha-beta pruning
 				}
-				alpha = Math.max(alpha, result.value());
+			}
+
+			if (legalMoves == 0) {
+				// Checkmate (sooner is worse) or stalemate
+				return state.getBoard().getPosition().isInCheck(side.ordinal())
+						? -GameConstants.CHECKMATE_SCORE + ply
+						: GameConstants.DRAW_SCORE;
+			}
+
+			int bound = bestValue <= originalAlpha
+					? TranspositionTable.BOUND_UPPER
+					: bestValue >= beta ? TranspositionTable.BOUND_LOWER : TranspositionTable.BOUND_EXACT;
+			transpositionTable.store(key, depth, bound, scoreToTable(bestValue, ply), nodeBestMove);
+
+			if (ply == 0) {
+				bestMove = nodeBestMove;
+			}
+			return bestValue;
+		}
+
+		/**
+		 * Searches only captures and promotions, standing pat on the static
+		 * evaluation. In check every move is searched instead, since standing pat
+		 * is not an option there.
+		 */
+		private int quiescence(int ply, int alpha, int beta) {
+			if (++nodes % STOP_CHECK_INTERVAL == 0) {
+				poll();
+			}
+			Side side = state.getCurrentTurnSide();
+			Position position = state.getBoard().getPosition();
+			if (ply >= SearchLimits.MAX_DEPTH) {
+				return evaluation.evaluateBoard(state.getBoard(), side);
+			}
+
+			boolean inCheck = position.isInCheck(side.ordinal());
+			int bestValue = -INFINITY;
+			int standPat = 0;
+			MovePicker picker = pickers[ply];
+			if (inCheck) {
+				picker.reset(position, side.ordinal(), EncodedMove.NONE, killers[ply], history);
 			} else {
-				if (result.value() < bestMove.value()) {
-					bestMove = new MoveResult(result.value(), move);
+				// Lazy only above beta, where the stand-pat cutoff needs no more
+				// than a bound; below alpha delta pruning needs the real score
+				standPat = evaluation.evaluateBoard(state.getBoard(), side, -INFINITY, beta);
+				if (standPat >= beta) {
+					return standPat;
+				}
+				if (standPat > alpha) {
+					alpha = standPat;
+				}
+				bestValue = standPat;
+				picker.resetTactical(position, side.ordinal());
+			}
+
+			boolean anyLegal = false;
+			for (int move = picker.next(); move != EncodedMove.NONE; move = picker.next()) {
+				// Delta pruning: even winning this material outright cannot reach alpha
+				if (!inCheck && standPat + MovePicker.materialGain(position, move) + DELTA_MARGIN <= alpha) {
+					continue;
+				}
+				anyLegal = true;
+				state.makeMove(move);
+
+				int value = -quiescence(ply + 1, -beta, -alpha);
+				state.unmakeMove();
+				if (aborted()) {
+					return 0;
+				}
+
+				if (value > bestValue) {
+					bestValue = value;
+					if (value > alpha) {
+						alpha = value;
+					}
+				}
+				if (alpha >= beta) {
+					break;
 				}
-				beta = Math.min(beta, result.value());
 			}
 
-			if (beta <= alpha) {
-				break; // Alpha-beta pruning
+			if (inCheck && !anyLegal) {
+				return -GameConstants.CHECKMATE_SCORE + ply;
 			}
+			return bestValue;
 		}
 
-		return bestMove;
+		/**
+		 * Makes a quiet move that refuted a position a killer for its ply and
+		 * credits it in the history table.
+		 */
+		private void rememberCutoff(int ply, int side, int move, int depth) {
+			int[] pair = killers[ply];
+			if (!EncodedMove.sameMove(pair[0], move)) {
+				pair[1] = pair[0];
+				pair[0] = move;
+			}
+			history.reward(side, move, depth);
+		}
+	}
+
+	private static int scoreToTable(int score, int ply) {
+		if (score >= MATE_THRESHOLD) {
+			return score + ply;
+		}
+		if (score <= -MATE_THRESHOLD) {
+			return score - ply;
+		}
+		return score;
+	}
+
+	private static int scoreFromTable(int score, int ply) {
+		if (score >= MATE_THRESHOLD) {
+			return score - ply;
+		}
+		if (score <= -MATE_THRESHOLD) {
+			return score + ply;
+		}
+		return score;
 	}
-}
\ No newline at end of file
+}
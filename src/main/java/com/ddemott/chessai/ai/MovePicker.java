@@ -0,0 +1,252 @@
+package com.ddemott.chessai.ai;
+
+import com.ddemott.chessai.GameConstants;
+import com.ddemott.chessai.bitboard.EncodedMove;
+import com.ddemott.chessai.bitboard.MoveGenerator;
+import com.ddemott.chessai.bitboard.MoveList;
+import com.ddemott.chessai.bitboard.PieceType;
+import com.ddemott.chessai.bitboard.Position;
+import com.ddemott.chessai.bitboard.StaticExchange;
+
+/**
+ * Hands out the moves of one search node best-first, in stages, so a cutoff
+ * early in the list skips the work of ordering the rest:
+ * <ol>
+ * <li>the transposition table move,</li>
+ * <li>captures and promotions that do not lose material by
+ * {@link StaticExchange static exchange evaluation}, most valuable victim first
+ * and least valuable attacker breaking ties (MVV-LVA),</li>
+ * <li>the two killer moves (quiet moves that caused a cutoff at this ply in a
+ * sibling node),</li>
+ * <li>the remaining quiet moves by their history score,</li>
+ * <li>the losing captures, least losing first.</li>
+ * </ol>
+ * Each stage picks its next move by selection rather than sorting up front,
+ * and captures are only scored once the table move has been tried.
+ * Moves are legal, as produced by {@link MoveGenerator#generateLegal}, so a
+ * node with no moves is checkmate or stalemate. One picker is reused for every
+ * node at its ply.
+ * <p>
+ * For quiescence search, {@link #resetTactical} hands out only the captures
+ * and promotions that do not lose material.
+ */
+public final class MovePicker {
+	private static final int STAGE_TABLE_MOVE = 0;
+	private static final int STAGE_SCORE_CAPTURES = 1;
+	private static final int STAGE_CAPTURES = 2;
+	private static final int STAGE_KILLERS = 3;
+	private static final int STAGE_QUIETS = 4;
+	private static final int STAGE_BAD_CAPTURES = 5;
+	private static final int STAGE_DONE = 6;
+
+	private static final int[] NO_KILLERS = {EncodedMove.NONE, EncodedMove.NONE};
+
+	private final MoveList moves = new MoveList();
+	private final int[] exchangeBuffer = StaticExchange.newBuffer();
+	private Position position;
+	private int side;
+	private int tableMove;
+	private int killer1;
+	private int killer2;
+	private HistoryTable history;
+	private int stage;
+	private int index; // Next unpicked move in the current stage
+	private int quietStart; // Captures and promotions are [0, quietStart)
+	private int badStart; // Losing captures left over after the capture stage
+	private boolean tacticalOnly;
+
+	/**
+	 * Generates the moves of a node and starts over at the first stage.
+	 *
+	 * @param tableMove
+	 *            best move from the transposition table, or
+	 *            {@link EncodedMove#NONE}
+	 * @param killers
+	 *            killer moves for this ply (two entries, NONE when unused)
+	 */
+	public void reset(Position position, int side, int tableMove, int[] killers, HistoryTable history) {
+		start(position, side, killers, history, false);
+		MoveGenerator.generateLegal(position, side, moves);
+
+		// Partition captures and promotions ahead of quiet moves
+		quietStart = 0;
+		for (int i = 0; i < moves.size(); i++) {
+			if (isTactical(moves.get(i))) {
+				moves.swap(i, quietStart++);
+			}
+		}
+		// Keep the full encoding (with flags) of the table move, if it is playable
+		this.tableMove = tableMove == EncodedMove.NONE ? EncodedMove.NONE : moves.find(tableMove);
+	}
+
+	/**
+	 * Like {@link #reset}, but only captures and promotions are generated and
+	 * handed out.
+	 */
+	public void resetTactical(Position position, int side) {
+		start(position, side, NO_KILLERS, null, true);
+		MoveGenerator.generateLegalTactical(position, side, moves);
+		quietStart = moves.size();
+		tableMove = EncodedMove.NONE;
+	}
+
+	private void start(Position position, int side, int[] killers, HistoryTable history, boolean tacticalOnly) {
+		this.tacticalOnly = tacticalOnly;
+		this.position = position;
+		this.side = side;
+		this.killer1 = killers[0];
+		this.killer2 = killers[1];
+		this.history = history;
+		moves.clear();
+		stage = STAGE_TABLE_MOVE;
+		index = 0;
+	}
+
+	/**
+	 * @return the next move to search, or {@link EncodedMove#NONE} when every
+	 *         move has been handed out
+	 */
+	public int next() {
+		while (true) {
+			switch (stage) {
+				case STAGE_TABLE_MOVE :
+					// Handed out before any scoring, so a cutoff on it costs nothing more
+					stage = STAGE_SCORE_CAPTURES;
+					if (tableMove != EncodedMove.NONE) {
+						return tableMove;
+					}
+					continue;
+				case STAGE_SCORE_CAPTURES :
+					scoreCaptures();
+					stage = STAGE_CAPTURES;
+					index = 0;
+					continue;
+				case STAGE_CAPTURES :
+					while (index < quietStart) {
+						int move = pickBest(index, quietStart);
+						if (moves.getScore(index) < 0) {
+							break; // Only losing captures are left
+						}
+						index++;
+						if (move != tableMove) {
+							return move;
+						}
+					}
+					badStart = index;
+					stage = tacticalOnly ? STAGE_DONE : STAGE_KILLERS;
+					index = 0;
+					continue;
+				case STAGE_KILLERS :
+					while (index < 2) {
+						int killer = index++ == 0 ? killer1 : killer2;
+						int found = killer == EncodedMove.NONE ? -1 : findQuiet(killer);
+						if (found >= 0 && moves.get(found) != tableMove) {
+							return moves.get(found);
+						}
+					}
+					stage = STAGE_QUIETS;
+					index = quietStart;
+					scoreQuiets();
+					continue;
+				case STAGE_QUIETS :
+					while (index < moves.size()) {
+						int move = pickBest(index++, moves.size());
+						if (move != tableMove && !isKiller(move)) {
+							return move;
+						}
+					}
+					stage = STAGE_BAD_CAPTURES;
+					index = badStart;
+					continue;
+				case STAGE_BAD_CAPTURES :
+					while (index < quietStart) {
+						int move = pickBest(index++, quietStart);
+						if (move != tableMove) {
+							return move;
+						}
+					}
+					stage = STAGE_DONE;
+					continue;
+				default :
+					return EncodedMove.NONE;
+			}
+		}
+	}
+
+	/**
+	 * @return whether the move is a capture or promotion, the moves the
+	 *         quiet-move heuristics leave alone
+	 */
+	public static boolean isTactical(int move) {
+		return EncodedMove.isCapture(move) || EncodedMove.isPromotion(move);
+	}
+
+	/**
+	 * @return the material a capture or promotion wins, before any recapture:
+	 *         the captured piece plus what a promoted pawn gains
+	 */
+	public static int materialGain(Position position, int move) {
+		int gain = 0;
+		if (EncodedMove.isCapture(move)) {
+			int victim = EncodedMove.isEnPassant(move)
+					? PieceType.PAWN
+					: PieceType.typeOf(position.getPiece(EncodedMove.to(move)));
+			gain = StaticExchange.value(victim);
+		}
+		if (EncodedMove.isPromotion(move)) {
+			gain += StaticExchange.value(EncodedMove.promotion(move)) - GameConstants.PAWN_VALUE;
+		}
+		return gain;
+	}
+
+	/**
+	 * Scores captures and promotions by MVV-LVA, or by their (negative) exchange
+	 * value if they lose material, so losing ones sort below every other.
+	 */
+	private void scoreCaptures() {
+		for (int i = 0; i < quietStart; i++) {
+			int move = moves.get(i);
+			int exchange = StaticExchange.evaluate(position, move, exchangeBuffer);
+			if (exchange < 0) {
+				moves.setScore(i, exchange);
+			} else {
+				int attacker = PieceType.typeOf(position.getPiece(EncodedMove.from(move)));
+				moves.setScore(i, materialGain(position, move) * 8 - attacker);
+			}
+		}
+	}
+
+	private void scoreQuiets() {
+		for (int i = quietStart; i < moves.size(); i++) {
+			moves.setScore(i, history.get(side, moves.get(i)));
+		}
+	}
+
+	/**
+	 * Swaps the highest-scored move in [from, to) into position {@code from}.
+	 */
+	private int pickBest(int from, int to) {
+		int best = from;
+		for (int i = from + 1; i < to; i++) {
+			if (moves.getScore(i) > moves.getScore(best)) {
+				best = i;
+			}
+		}
+		moves.swap(from, best);
+		return moves.get(from);
+	}
+
+	private int findQuiet(int move) {
+		for (int i = quietStart; i < moves.size(); i++) {
+			if (EncodedMove.sameMove(moves.get(i), move)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private boolean isKiller(int move) {
+		return (killer1 != EncodedMove.NONE && EncodedMove.sameMove(move, killer1))
+				|| (killer2 != EncodedMove.NONE && EncodedMove.sameMove(move, killer2));
+	}
+}
@@ -0,0 +1,107 @@
+package com.ddemott.chessai.ai;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.ddemott.chessai.bitboard.EncodedMove;
+
+/**
+ * A running (or finished) search started with
+ * {@link AIStrategy#startSearch}. The final result arrives through
+ * {@link #getResult()}; meanwhile the best move of the last completed
+ * iteration can be read at any time, and {@link #stop()} asks the search to
+ * finish early with that move.
+ * <p>
+ * {@link MinMaxStrategy} polls the stop request every 1024 nodes rather than
+ * being interrupted, so it stops within a fraction of a second and always
+ * leaves the strategy ready for the next search.
+ */
+public class SearchHandle {
+	private final CompletableFuture<MoveResult> result = new CompletableFuture<>();
+	private final long deadlineNanos; // 0 when there is no hard deadline
+
+	private volatile boolean stopRequested;
+	private volatile int bestMove = EncodedMove.NONE;
+	private volatile int score;
+	private volatile int completedDepth;
+
+	SearchHandle(long hardDeadlineMillis) {
+		this.deadlineNanos = hardDeadlineMillis > 0 ? System.nanoTime() + hardDeadlineMillis * 1_000_000L : 0;
+	}
+
+	/**
+	 * Asks the search to stop and complete with the best move found so far. Has
+	 * no effect once the search has finished.
+	 */
+	public void stop() {
+		stopRequested = true;
+	}
+
+	/**
+	 * @return completes with the chosen move and its score (the move is null if
+	 *         the side to move has no legal moves)
+	 */
+	public CompletableFuture<MoveResult> getResult() {
+		return result;
+	}
+
+	/**
+	 * Waits for the search to finish.
+	 */
+	public MoveResult join() {
+		return result.join();
+	}
+
+	public boolean isDone() {
+		return result.isDone();
+	}
+
+	/**
+	 * @return the best move so far in "e2 e4" form, or null before the first
+	 *         iteration completes
+	 */
+	public String getBestMove() {
+		int move = bestMove;
+		return move == EncodedMove.NONE ? null : EncodedMove.toString(move);
+	}
+
+	public int getBestEncodedMove() {
+		return bestMove;
+	}
+
+	/**
+	 * @return the score of the best move so far, from the mover's point of view
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	public int getCompletedDepth() {
+		return completedDepth;
+	}
+
+	boolean isStopRequested() {
+		return stopRequested || result.isCancelled();
+	}
+
+	boolean hasDeadline() {
+		return deadlineNanos != 0;
+	}
+
+	long getDeadlineNanos() {
+		return deadlineNanos;
+	}
+
+	void update(int depth, int move, int score) {
+		this.bestMove = move;
+		this.score = score;
+		this.completedDepth = depth;
+	}
+
+	void complete() {
+		result.complete(new MoveResult(score, getBestMove()));
+	}
+
+	void fail(Throwable cause) {
+		result.completeExceptionally(cause);
+	}
+}
@@ -0,0 +1,103 @@
+package com.ddemott.chessai.ai;
+
+/**
+ * How long {@link MinMaxStrategy} may search for one move: to a fixed depth,
+ * for a fixed time, or for a share of the remaining clock plus increment.
+ * Timed searches deepen iteratively until the time runs out and play the best
+ * move of the last completed depth.
+ */
+public final class SearchLimits {
+	// Deepest iteration a timed search will start
+	public static final int MAX_DEPTH = 64;
+
+	// Assume this many moves remain when splitting the clock
+	static final int MOVES_TO_GO = 30;
+	// Left on the clock to cover the time spent outside the search
+	static final long SAFETY_MARGIN_MILLIS = 50;
+
+	private final int depth;
+	private final long moveTimeMillis;
+	private final long remainingMillis;
+	private final long incrementMillis;
+
+	private SearchLimits(int depth, long moveTimeMillis, long remainingMillis, long incrementMillis) {
+		this.depth = depth;
+		this.moveTimeMillis = moveTimeMillis;
+		this.remainingMillis = remainingMillis;
+		this.incrementMillis = incrementMillis;
+	}
+
+	/**
+	 * Search to a fixed depth, however long it takes.
+	 */
+	public static SearchLimits depth(int depth) {
+		if (depth < 1 || depth > MAX_DEPTH) {
+			throw new IllegalArgumentException("Search depth must be between 1 and " + MAX_DEPTH + ": " + depth);
+		}
+		return new SearchLimits(depth, 0, 0, 0);
+	}
+
+	/**
+	 * Search for a fixed time per move.
+	 */
+	public static SearchLimits moveTime(long millis) {
+		if (millis <= 0) {
+			throw new IllegalArgumentException("Move time must be positive: " + millis + " ms");
+		}
+		return new SearchLimits(MAX_DEPTH, millis, 0, 0);
+	}
+
+	/**
+	 * Search for a share of the remaining clock time plus most of the increment.
+	 */
+	public static SearchLimits clock(long remainingMillis, long incrementMillis) {
+		if (remainingMillis <= 0 || incrementMillis < 0) {
+			throw new IllegalArgumentException(
+					"Invalid clock: " + remainingMillis + " ms remaining, " + incrementMillis + " ms increment");
+		}
+		return new SearchLimits(MAX_DEPTH, 0, remainingMillis, incrementMillis);
+	}
+
+	/**
+	 * @return a copy that also stops after the given depth
+	 */
+	public SearchLimits withDepth(int depth) {
+		if (depth < 1 || depth > MAX_DEPTH) {
+			throw new IllegalArgumentException("Search depth must be between 1 and " + MAX_DEPTH + ": " + depth);
+		}
+		return new SearchLimits(depth, moveTimeMillis, remainingMillis, incrementMillis);
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public boolean isTimed() {
+		return moveTimeMillis > 0 || remainingMillis > 0;
+	}
+
+	/**
+	 * @return the time the search may use for this move, or 0 if it is not timed
+	 */
+	public long getTimeBudgetMillis() {
+		if (moveTimeMillis > 0) {
+			return moveTimeMillis;
+		}
+		if (remainingMillis > 0) {
+			long budget = remainingMillis / MOVES_TO_GO + incrementMillis * 3 / 4;
+			return Math.max(1, Math.min(budget, remainingMillis - SAFETY_MARGIN_MILLIS));
+		}
+		return 0;
+	}
+
+	@Override
+	public String toString() {
+		if (moveTimeMillis > 0) {
+			return "movetime " + moveTimeMillis + " ms";
+		}
+		if (remainingMillis > 0) {
+			return "clock " + remainingMillis + " ms + " + incrementMillis + " ms";
+		}
+		return "depth " + depth;
+	}
+}
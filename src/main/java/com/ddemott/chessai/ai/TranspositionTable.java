@@ -0,0 +1,109 @@
+package com.ddemott.chessai.ai;
+
+/**
+ * Cache of search results keyed by Zobrist key, so positions reached through
+ * different move orders are searched once. Entries are handed out packed into a
+ * single {@code long} (see {@link #pack}) so a probe returns one consistent
+ * snapshot and never allocates.
+ */
+public interface TranspositionTable {
+	// Returned by probe when the key is not in the table (packed entries always
+	// have a non-zero bound, so they are never 0)
+	long MISS = 0L;
+
+	// Bound types: the stored score is exact, a lower bound (fail high) or an
+	// upper bound (fail low)
+	int BOUND_EXACT = 1;
+	int BOUND_LOWER = 2;
+	int BOUND_UPPER = 3;
+
+	int MAX_DEPTH = 255;
+
+	// Encoded moves fit in 19 bits (see EncodedMove)
+	int MOVE_MASK = 0x7FFFF;
+
+	/**
+	 * @return the packed entry for the key, or {@link #MISS}
+	 */
+	long probe(long key);
+
+	/**
+	 * Offers a search result to the table. Whether it replaces the entry already
+	 * in its slot is up to the table's replacement policy.
+	 *
+	 * @param move
+	 *            best move as an encoded move, or 0 if none
+	 */
+	void store(long key, int depth, int bound, int score, int move);
+
+	/**
+	 * Marks the start of a new search, so entries from earlier searches become
+	 * preferred victims for replacement.
+	 */
+	void newSearch();
+
+	void clear();
+
+	/**
+	 * @return the number of entries the table can hold
+	 */
+	int getCapacity();
+
+	/**
+	 * @return the fraction (0-1) of slots holding an entry
+	 */
+	double getOccupancy();
+
+	long getProbes();
+
+	long getHits();
+
+	/**
+	 * @return hits divided by probes, or 0 before the first probe
+	 */
+	default double getHitRate() {
+		long probes = getProbes();
+		return probes == 0 ? 0.0 : (double) getHits() / probes;
+	}
+
+	/**
+	 * Resets the probe and hit counters without clearing entries.
+	 */
+	void resetStatistics();
+
+	/**
+	 * Packs an entry: bound in bits 0-1, depth in bits 2-9, move in bits 10-28 and
+	 * score in bits 32-63. Bits 29-31 are always 0 in packed entries and are free
+	 * for an implementation's own bookkeeping.
+	 */
+	static long pack(int depth, int bound, int score, int move) {
+		return ((long) score << 32) | ((long) (move & MOVE_MASK) << 10) | ((long) (depth & 0xFF) << 2) | (bound & 0x3);
+	}
+
+	static int bound(long entry) {
+		return (int) (entry & 0x3);
+	}
+
+	static int depth(long entry) {
+		return (int) ((entry >>> 2) & 0xFF);
+	}
+
+	static int move(long entry) {
+		return (int) ((entry >>> 10) & MOVE_MASK);
+	}
+
+	static int score(long entry) {
+		return (int) (entry >> 32);
+	}
+
+	/**
+	 * Number of entries (a power of two) that fit in a memory budget.
+	 */
+	static int capacityFor(int megabytes, int bytesPerEntry) {
+		if (megabytes <= 0) {
+			throw new IllegalArgumentException("Transposition table size must be positive: " + megabytes + " MB");
+		}
+		long entries = ((long) megabytes << 20) / bytesPerEntry;
+		return (int) Math.max(1L, Long.highestOneBit(Math.min(entries, 1L << 30)));
+	}
+}
@@ -0,0 +1,73 @@
+package com.ddemott.chessai.bitboard;
+
+import java.util.Arrays;
+
+/**
+ * Per-side attack information for a {@link Position}: how many pieces of each
+ * side attack each square, and a bitboard of the squares attacked at least
+ * once. {@link Position} keeps it up to date as pieces are placed and removed,
+ * so reading it never scans the board.
+ * <p>
+ * A square counts as attacked by a piece when that piece could capture on it:
+ * pawns attack diagonally whether or not the square is occupied, and sliders
+ * attack up to and including the first blocker of either side.
+ */
+final class AttackMap {
+	private final int[][] counts = new int[2][Bitboards.SQUARE_COUNT];
+	private final long[] attacked = new long[2];
+
+	long getAttacked(int side) {
+		return attacked[side];
+	}
+
+	int getCount(int side, int square) {
+		return counts[side][square];
+	}
+
+	int[] getCounts(int side) {
+		return counts[side];
+	}
+
+	void add(int side, long squares) {
+		int[] sideCounts = counts[side];
+		for (long b = squares; b != 0; b &= b - 1) {
+			int square = Long.numberOfTrailingZeros(b);
+			if (sideCounts[square]++ == 0) {
+				attacked[side] |= Bitboards.bit(square);
+			}
+		}
+	}
+
+	void remove(int side, long squares) {
+		int[] sideCounts = counts[side];
+		for (long b = squares; b != 0; b &= b - 1) {
+			int square = Long.numberOfTrailingZeros(b);
+			if (--sideCounts[square] == 0) {
+				attacked[side] &= ~Bitboards.bit(square);
+			}
+		}
+	}
+
+	/**
+	 * Records that a piece's attack set changed from {@code before} to
+	 * {@code after}, touching only the squares that differ.
+	 */
+	void change(int side, long before, long after) {
+		remove(side, before & ~after);
+		add(side, after & ~before);
+	}
+
+	void clear() {
+		Arrays.fill(counts[Position.WHITE], 0);
+		Arrays.fill(counts[Position.BLACK], 0);
+		attacked[Position.WHITE] = 0L;
+		attacked[Position.BLACK] = 0L;
+	}
+
+	void copyFrom(AttackMap other) {
+		System.arraycopy(other.counts[Position.WHITE], 0, counts[Position.WHITE], 0, Bitboards.SQUARE_COUNT);
+		System.arraycopy(other.counts[Position.BLACK], 0, counts[Position.BLACK], 0, Bitboards.SQUARE_COUNT);
+		attacked[Position.WHITE] = other.attacked[Position.WHITE];
+		attacked[Position.BLACK] = other.attacked[Position.BLACK];
+	}
+}
@@ -0,0 +1,207 @@
+package com.ddemott.chessai.bitboard;
+
+/**
+ * Constants and helpers for 64-bit bitboards. Square 0 is a1 and square 63 is
+ * h8, so {@code square = row * 8 + col} matches the {@code [row][col]}
+ * indexing used by {@link com.ddemott.chessai.Board}.
+ * <p>
+ * Attack sets are table lookups: knight, king and pawn attacks are
+ * precomputed per square, and rook and bishop attacks use
+ * {@link Magics magic bitboards}.
+ */
+public final class Bitboards {
+	private Bitboards() {
+	} // Prevent instantiation
+
+	public static final int SQUARE_COUNT = 64;
+	public static final int NO_SQUARE = -1;
+
+	public static final long FILE_A = 0x0101010101010101L;
+	public static final long FILE_B = FILE_A << 1;
+	public static final long FILE_G = FILE_A << 6;
+	public static final long FILE_H = FILE_A << 7;
+	public static final long RANK_1 = 0xFFL;
+	public static final long RANK_2 = RANK_1 << 8;
+	public static final long RANK_7 = RANK_1 << 48;
+	public static final long RANK_8 = RANK_1 << 56;
+
+	private static final String[] SQUARE_NAMES = new String[SQUARE_COUNT];
+	private static final long[] KNIGHT_ATTACKS = new long[SQUARE_COUNT];
+	private static final long[] KING_ATTACKS = new long[SQUARE_COUNT];
+	private static final long[][] PAWN_ATTACKS = new long[2][SQUARE_COUNT];
+	// Squares strictly between two squares on a shared rank, file or diagonal
+	private static final long[][] BETWEEN = new long[SQUARE_COUNT][SQUARE_COUNT];
+	// The whole rank, file or diagonal through two squares
+	private static final long[][] LINE = new long[SQUARE_COUNT][SQUARE_COUNT];
+
+	static {
+		for (int square = 0; square < SQUARE_COUNT; square++) {
+			SQUARE_NAMES[square] = String.valueOf((char) ('a' + col(square))) + (char) ('1' + row(square));
+			long b = bit(square);
+			long left1 = (b >>> 1) & ~FILE_H;
+			long left2 = (b >>> 2) & ~(FILE_G | FILE_H);
+			long right1 = (b << 1) & ~FILE_A;
+			long right2 = (b << 2) & ~(FILE_A | FILE_B);
+			long oneCol = left1 | right1;
+			long twoCols = left2 | right2;
+			KNIGHT_ATTACKS[square] = (oneCol << 16) | (oneCol >>> 16) | (twoCols << 8) | (twoCols >>> 8);
+			long sideways = oneCol | b;
+			KING_ATTACKS[square] = oneCol | (sideways << 8) | (sideways >>> 8);
+			PAWN_ATTACKS[Position.WHITE][square] = oneCol << 8;
+			PAWN_ATTACKS[Position.BLACK][square] = oneCol >>> 8;
+		}
+		for (int from = 0; from < SQUARE_COUNT; from++) {
+			for (int to = 0; to < SQUARE_COUNT; to++) {
+				if (from == to) {
+					continue;
+				}
+				int rowStep = Integer.signum(row(to) - row(from));
+				int colStep = Integer.signum(col(to) - col(from));
+				boolean aligned = row(from) == row(to) || col(from) == col(to)
+						|| Math.abs(row(to) - row(from)) == Math.abs(col(to) - col(from));
+				if (!aligned) {
+					continue;
+				}
+				// Walk from one square towards the other, stopping on it
+				long ray = slide(from, bit(to), rowStep, colStep);
+				BETWEEN[from][to] = ray & ~bit(to);
+				LINE[from][to] = slide(from, 0L, rowStep, colStep) | slide(from, 0L, -rowStep, -colStep) | bit(from);
+			}
+		}
+	}
+
+	public static int square(int row, int col) {
+		return (row << 3) | col;
+	}
+
+	public static int row(int square) {
+		return square >>> 3;
+	}
+
+	public static int col(int square) {
+		return square & 7;
+	}
+
+	public static long bit(int square) {
+		return 1L << square;
+	}
+
+	/**
+	 * Returns the algebraic name of a square (e.g. "e4"). The returned strings are
+	 * shared constants, so callers on hot paths do not allocate.
+	 */
+	public static String squareName(int square) {
+		if (square < 0 || square >= SQUARE_COUNT) {
+			return null;
+		}
+		return SQUARE_NAMES[square];
+	}
+
+	/**
+	 * Parses an algebraic square name such as "e4" (case-insensitive) without
+	 * allocating.
+	 *
+	 * @return the square index, or {@link #NO_SQUARE} if the name is invalid
+	 */
+	public static int squareOf(String name) {
+		if (name == null || name.length() != 2) {
+			return NO_SQUARE;
+		}
+		int col = Character.toLowerCase(name.charAt(0)) - 'a';
+		int row = name.charAt(1) - '1';
+		if (row < 0 || row >= 8 || col < 0 || col >= 8) {
+			return NO_SQUARE;
+		}
+		return square(row, col);
+	}
+
+	/**
+	 * Returns the lowest set square of a bitboard, or {@link #NO_SQUARE} if empty.
+	 */
+	public static int lowestSquare(long bitboard) {
+		return bitboard == 0 ? NO_SQUARE : Long.numberOfTrailingZeros(bitboard);
+	}
+
+	public static int count(long bitboard) {
+		return Long.bitCount(bitboard);
+	}
+
+	public static long knightAttacks(int square) {
+		return KNIGHT_ATTACKS[square];
+	}
+
+	public static long kingAttacks(int square) {
+		return KING_ATTACKS[square];
+	}
+
+	/**
+	 * Squares attacked (diagonally) by a pawn of the given side standing on the
+	 * given square.
+	 */
+	public static long pawnAttacks(int side, int square) {
+		return PAWN_ATTACKS[side][square];
+	}
+
+	/**
+	 * @return the squares strictly between two squares on a shared rank, file or
+	 *         diagonal, or 0 if they are not aligned
+	 */
+	public static long between(int from, int to) {
+		return BETWEEN[from][to];
+	}
+
+	/**
+	 * @return the full rank, file or diagonal through both squares (edge to
+	 *         edge), or 0 if they are not aligned
+	 */
+	public static long line(int from, int to) {
+		return LINE[from][to];
+	}
+
+	public static long rookAttacks(int square, long occupied) {
+		return Magics.rookAttacks(square, occupied);
+	}
+
+	public static long bishopAttacks(int square, long occupied) {
+		return Magics.bishopAttacks(square, occupied);
+	}
+
+	public static long queenAttacks(int square, long occupied) {
+		return Magics.rookAttacks(square, occupied) | Magics.bishopAttacks(square, occupied);
+	}
+
+	/**
+	 * Walks a ray from the square until the board edge or the first occupied
+	 * square (which is included, since it can be captured or defended).
+	 */
+	private static long slide(int square, long occupied, int rowStep, int colStep) {
+		long attacks = 0L;
+		int row = row(square) + rowStep;
+		int col = col(square) + colStep;
+		while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+			long b = bit(square(row, col));
+			attacks |= b;
+			if ((occupied & b) != 0) {
+				break;
+			}
+			row += rowStep;
+			col += colStep;
+		}
+		return attacks;
+	}
+
+	/**
+	 * Renders a bitboard as an 8x8 grid (rank 8 first) for debugging and test
+	 * failure messages.
+	 */
+	public static String toString(long bitboard) {
+		StringBuilder sb = new StringBuilder();
+		for (int row = 7; row >= 0; row--) {
+			for (int col = 0; col < 8; col++) {
+				sb.append((bitboard & bit(square(row, col))) != 0 ? '1' : '.');
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,136 @@
+package com.ddemott.chessai.bitboard;
+
+/**
+ * Packs a move into a single int so move generation and search never allocate:
+ * <ul>
+ * <li>bits 0-5: origin square</li>
+ * <li>bits 6-11: destination square</li>
+ * <li>bits 12-14: promotion piece type (0 means none; a pawn is never a
+ * promotion target)</li>
+ * <li>bits 15-18: {@link #CAPTURE}, {@link #EN_PASSANT}, {@link #CASTLING} and
+ * {@link #DOUBLE_PUSH} flags</li>
+ * </ul>
+ * Conversion to the "e2 e4" / "e7 e8 Q" strings used by the rest of the
+ * application happens only at the API boundary.
+ */
+public final class EncodedMove {
+	private EncodedMove() {
+	} // Prevent instantiation
+
+	// No move (a1 to a1 can never be played)
+	public static final int NONE = 0;
+
+	public static final int CAPTURE = 1 << 15;
+	public static final int EN_PASSANT = 1 << 16;
+	public static final int CASTLING = 1 << 17;
+	public static final int DOUBLE_PUSH = 1 << 18;
+
+	private static final int SQUARE_MASK = 0x3F;
+	private static final int TO_SHIFT = 6;
+	private static final int PROMOTION_SHIFT = 12;
+	private static final int PROMOTION_MASK = 0x7;
+
+	public static int of(int from, int to) {
+		return from | (to << TO_SHIFT);
+	}
+
+	/**
+	 * @param promotion
+	 *            piece type to promote to, or {@link PieceType#NONE}
+	 * @param flags
+	 *            any combination of the flag constants
+	 */
+	public static int of(int from, int to, int promotion, int flags) {
+		int encodedPromotion = promotion == PieceType.NONE ? 0 : promotion << PROMOTION_SHIFT;
+		return from | (to << TO_SHIFT) | encodedPromotion | flags;
+	}
+
+	public static int from(int move) {
+		return move & SQUARE_MASK;
+	}
+
+	public static int to(int move) {
+		return (move >>> TO_SHIFT) & SQUARE_MASK;
+	}
+
+	/**
+	 * @return the promotion piece type, or {@link PieceType#NONE}
+	 */
+	public static int promotion(int move) {
+		int type = (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+		return type == 0 ? PieceType.NONE : type;
+	}
+
+	public static boolean isCapture(int move) {
+		return (move & CAPTURE) != 0;
+	}
+
+	public static boolean isEnPassant(int move) {
+		return (move & EN_PASSANT) != 0;
+	}
+
+	public static boolean isCastling(int move) {
+		return (move & CASTLING) != 0;
+	}
+
+	public static boolean isPromotion(int move) {
+		return ((move >>> PROMOTION_SHIFT) & PROMOTION_MASK) != 0;
+	}
+
+	/**
+	 * @return the promotion symbol ("Q", "R", "B" or "N") in the form
+	 *         {@link com.ddemott.chessai.Board#movePiece(String, String, String)}
+	 *         expects, or null
+	 */
+	public static String promotionSymbol(int move) {
+		int promotion = promotion(move);
+		return promotion == PieceType.NONE ? null : String.valueOf(PieceType.symbolOf(promotion));
+	}
+
+	/**
+	 * Formats a move as "e2 e4", or "e7 e8 Q" for a promotion, matching the strings
+	 * produced by the piece classes.
+	 */
+	public static String toString(int move) {
+		String text = Bitboards.squareName(from(move)) + " " + Bitboards.squareName(to(move));
+		String promotion = promotionSymbol(move);
+		return promotion == null ? text : text + " " + promotion;
+	}
+
+	/**
+	 * Parses "e2 e4" or "e7 e8 Q". Flags are not recovered; callers that need
+	 * them should look the move up in a generated {@link MoveList}.
+	 *
+	 * @return the move, or {@link #NONE} if the text is not a move
+	 */
+	public static int parse(String text) {
+		if (text == null) {
+			return NONE;
+		}
+		String[] parts = text.trim().split("\\s+");
+		if (parts.length != 2 && parts.length != 3) {
+			return NONE;
+		}
+		int from = Bitboards.squareOf(parts[0]);
+		int to = Bitboards.squareOf(parts[1]);
+		if (from == Bitboards.NO_SQUARE || to == Bitboards.NO_SQUARE || from == to) {
+			return NONE;
+		}
+		int promotion = PieceType.NONE;
+		if (parts.length == 3) {
+			promotion = parts[2].length() == 1 ? PieceType.fromSymbol(parts[2].charAt(0)) : PieceType.NONE;
+			if (promotion == PieceType.NONE || promotion == PieceType.PAWN || promotion == PieceType.KING) {
+				return NONE;
+			}
+		}
+		return of(from, to, promotion, 0);
+	}
+
+	/**
+	 * Compares the squares and promotion of two moves, ignoring flags.
+	 */
+	public static boolean sameMove(int a, int b) {
+		int mask = (1 << 15) - 1;
+		return (a & mask) == (b & mask);
+	}
+}
@@ -0,0 +1,81 @@
+package com.ddemott.chessai.bitboard;
+
+import java.util.logging.Logger;
+
+/**
+ * The mobility sum of the evaluation, computed over a position's per-square
+ * attack counts.
+ * <p>
+ * Two backends give identical results: a scalar one that walks the set bits of
+ * the attacked squares, and an experimental one that adds the counts of all 64
+ * squares in SIMD lanes of the incubating {@code jdk.incubator.vector} API,
+ * masked by the squares the side does not occupy.
+ * <p>
+ * The backend is chosen once at startup with the {@value #PROPERTY} system
+ * property ({@code scalar}, the default, or {@code vector}). The vector backend
+ * is only compiled by the {@code vector} Maven profile and needs the JVM started
+ * with {@code --add-modules jdk.incubator.vector}; without either the scalar
+ * backend is used instead.
+ */
+public interface EvaluationKernel {
+	String PROPERTY = "chessai.evaluation.kernel";
+
+	/**
+	 * The backend chosen by {@value #PROPERTY} when this class was loaded; an
+	 * unknown name logs a warning and selects the scalar backend.
+	 */
+	EvaluationKernel SELECTED = selected(System.getProperty(PROPERTY, "scalar"));
+
+	/**
+	 * @param name
+	 *            {@code scalar} or {@code vector}
+	 * @return the backend of that name; {@code vector} falls back to the
+	 *         scalar backend when the Vector API is not available
+	 */
+	static EvaluationKernel named(String name) {
+		switch (name) {
+			case "scalar" :
+				return ScalarEvaluationKernel.INSTANCE;
+			case "vector" :
+				return vectorOrScalar();
+			default :
+				throw new IllegalArgumentException("Unknown evaluation kernel: " + name);
+		}
+	}
+
+	/**
+	 * @return whether the Vector API backend can run in this JVM
+	 */
+	static boolean isVectorAvailable() {
+		return !(vectorOrScalar() instanceof ScalarEvaluationKernel);
+	}
+
+	private static EvaluationKernel selected(String name) {
+		// Thrown from here it would surface as an ExceptionInInitializerError
+		try {
+			return named(name);
+		} catch (IllegalArgumentException e) {
+			Logger.getLogger(EvaluationKernel.class.getName())
+					.warning(e.getMessage() + "; using the scalar evaluation kernel");
+			return ScalarEvaluationKernel.INSTANCE;
+		}
+	}
+
+	private static EvaluationKernel vectorOrScalar() {
+		try {
+			// Loaded by name so this class links without the incubator module
+			return (EvaluationKernel) Class.forName("com.ddemott.chessai.bitboard.VectorEvaluationKernel")
+					.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return ScalarEvaluationKernel.INSTANCE;
+		}
+	}
+
+	String getName();
+
+	/**
+	 * @return how many times {@code side}'s pieces attack squares not occupied
+	 *         by its own pieces, counting every attacker of a square
+	 */
+	int mobility(Position position, int side);
+}
@@ -0,0 +1,196 @@
+package com.ddemott.chessai.bitboard;
+
+/**
+ * Reads and writes Forsyth–Edwards Notation for a {@link Position}: piece
+ * placement, side to move, castling rights, en passant square and half-move
+ * clock. The full-move number is not part of a {@link Position}, so it is
+ * validated when parsing and passed in when writing.
+ */
+public final class Fen {
+	private Fen() {
+	} // Prevent instantiation
+
+	public static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+	/**
+	 * Parses a FEN string. The clock fields may be omitted and default to "0 1".
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the string is not valid FEN
+	 */
+	public static Position parse(String fen) {
+		Position position = new Position();
+		parseInto(fen, position);
+		return position;
+	}
+
+	/**
+	 * Replaces the contents of {@code position} with the position described by
+	 * a FEN string. The undo history is discarded.
+	 *
+	 * @return the full-move number
+	 * @throws IllegalArgumentException
+	 *             if the string is not valid FEN; the position is then left
+	 *             unchanged
+	 */
+	public static int parseInto(String fen, Position position) {
+		if (fen == null) {
+			throw new IllegalArgumentException("FEN must not be null");
+		}
+		String[] fields = fen.trim().split("\\s+");
+		if (fields.length != 4 && fields.length != 6) {
+			throw new IllegalArgumentException("FEN must have 4 or 6 fields: " + fen);
+		}
+		Position parsed = new Position();
+		parsePlacement(fields[0], parsed, fen);
+
+		switch (fields[1]) {
+			case "w" :
+				parsed.setSideToMove(Position.WHITE);
+				break;
+			case "b" :
+				parsed.setSideToMove(Position.BLACK);
+				break;
+			default :
+				throw new IllegalArgumentException("Invalid side to move '" + fields[1] + "': " + fen);
+		}
+
+		parsed.setCastlingRights(parseCastling(fields[2], fen));
+
+		if (!fields[3].equals("-")) {
+			int square = Bitboards.squareOf(fields[3]);
+			int row = square == Bitboards.NO_SQUARE ? -1 : Bitboards.row(square);
+			if (row != 2 && row != 5) {
+				throw new IllegalArgumentException("Invalid en passant square '" + fields[3] + "': " + fen);
+			}
+			parsed.setEnPassantSquare(square);
+		}
+
+		int fullmoveNumber = 1;
+		if (fields.length == 6) {
+			parsed.setHalfmoveClock(parseNumber(fields[4], 0, fen));
+			fullmoveNumber = parseNumber(fields[5], 1, fen);
+		}
+		position.copyFrom(parsed);
+		return fullmoveNumber;
+	}
+
+	/**
+	 * @return the six-field FEN of {@code position}
+	 */
+	public static String toFen(Position position, int fullmoveNumber) {
+		StringBuilder fen = new StringBuilder(90);
+		for (int row = 7; row >= 0; row--) {
+			int empty = 0;
+			for (int col = 0; col < 8; col++) {
+				int piece = position.getPiece(Bitboards.square(row, col));
+				if (piece == PieceType.NONE) {
+					empty++;
+					continue;
+				}
+				if (empty > 0) {
+					fen.append(empty);
+					empty = 0;
+				}
+				char symbol = PieceType.symbolOf(PieceType.typeOf(piece));
+				fen.append(PieceType.sideOf(piece) == Position.WHITE ? symbol : Character.toLowerCase(symbol));
+			}
+			if (empty > 0) {
+				fen.append(empty);
+			}
+			if (row > 0) {
+				fen.append('/');
+			}
+		}
+
+		fen.append(position.getSideToMove() == Position.WHITE ? " w " : " b ");
+
+		int rights = position.getCastlingRights();
+		if (rights == 0) {
+			fen.append('-');
+		} else {
+			if ((rights & Position.WHITE_KINGSIDE) != 0) {
+				fen.append('K');
+			}
+			if ((rights & Position.WHITE_QUEENSIDE) != 0) {
+				fen.append('Q');
+			}
+			if ((rights & Position.BLACK_KINGSIDE) != 0) {
+				fen.append('k');
+			}
+			if ((rights & Position.BLACK_QUEENSIDE) != 0) {
+				fen.append('q');
+			}
+		}
+
+		int enPassant = position.getEnPassantSquare();
+		fen.append(' ').append(enPassant == Bitboards.NO_SQUARE ? "-" : Bitboards.squareName(enPassant));
+		fen.append(' ').append(position.getHalfmoveClock());
+		fen.append(' ').append(fullmoveNumber);
+		return fen.toString();
+	}
+
+	private static void parsePlacement(String placement, Position position, String fen) {
+		String[] ranks = placement.split("/", -1);
+		if (ranks.length != 8) {
+			throw new IllegalArgumentException("Piece placement must have 8 ranks: " + fen);
+		}
+		for (int i = 0; i < 8; i++) {
+			int row = 7 - i;
+			int col = 0;
+			for (char c : ranks[i].toCharArray()) {
+				if (c >= '1' && c <= '8') {
+					col += c - '0';
+				} else {
+					int type = PieceType.fromSymbol(c);
+					if (type == PieceType.NONE || col >= 8) {
+						throw new IllegalArgumentException("Invalid rank '" + ranks[i] + "': " + fen);
+					}
+					int side = Character.isUpperCase(c) ? Position.WHITE : Position.BLACK;
+					position.putPiece(Bitboards.square(row, col++), PieceType.make(side, type));
+				}
+			}
+			if (col != 8) {
+				throw new IllegalArgumentException("Rank '" + ranks[i] + "' does not have 8 squares: " + fen);
+			}
+		}
+	}
+
+	private static int parseCastling(String field, String fen) {
+		if (field.equals("-")) {
+			return 0;
+		}
+		int rights = 0;
+		for (char c : field.toCharArray()) {
+			switch (c) {
+				case 'K' :
+					rights |= Position.WHITE_KINGSIDE;
+					break;
+				case 'Q' :
+					rights |= Position.WHITE_QUEENSIDE;
+					break;
+				case 'k' :
+					rights |= Position.BLACK_KINGSIDE;
+					break;
+				case 'q' :
+					rights |= Position.BLACK_QUEENSIDE;
+					break;
+				default :
+					throw new IllegalArgumentException("Invalid castling rights '" + field + "': " + fen);
+			}
+		}
+		return rights;
+	}
+
+	private static int parseNumber(String field, int minimum, String fen) {
+		try {
+			int value = Integer.parseInt(field);
+			if (value >= minimum) {
+				return value;
+			}
+		} catch (NumberFormatException e) {
+			// Reported below
+		}
+		throw new IllegalArgumentException("Invalid move counter '" + field + "': " + fen);
+	}
+}
@@ -0,0 +1,158 @@
+package com.ddemott.chessai.bitboard;
+
+/**
+ * Magic bitboard lookup tables for rook and bishop attacks. For each square,
+ * the occupancy of the squares that can block the piece (its "relevant"
+ * squares, excluding the board edge) is multiplied by a magic number; the top
+ * bits of the product index a table holding the attack set for every possible
+ * blocker arrangement. A lookup is a mask, a multiply, a shift and a read.
+ * <p>
+ * The magic numbers are found when the class loads, by trying sparse random
+ * numbers from a fixed seed until one maps every blocker arrangement without a
+ * harmful collision. This takes a fraction of a second and gives the same tables on
+ * every run.
+ */
+final class Magics {
+	private Magics() {
+	} // Prevent instantiation
+
+	private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+	private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+	private static final long SEED = 0x2545F4914F6CDD1DL;
+
+	private static final long[] ROOK_MASKS = new long[Bitboards.SQUARE_COUNT];
+	private static final long[] ROOK_MAGICS = new long[Bitboards.SQUARE_COUNT];
+	private static final int[] ROOK_SHIFTS = new int[Bitboards.SQUARE_COUNT];
+	private static final int[] ROOK_OFFSETS = new int[Bitboards.SQUARE_COUNT];
+	private static final long[] ROOK_TABLE;
+
+	private static final long[] BISHOP_MASKS = new long[Bitboards.SQUARE_COUNT];
+	private static final long[] BISHOP_MAGICS = new long[Bitboards.SQUARE_COUNT];
+	private static final int[] BISHOP_SHIFTS = new int[Bitboards.SQUARE_COUNT];
+	private static final int[] BISHOP_OFFSETS = new int[Bitboards.SQUARE_COUNT];
+	private static final long[] BISHOP_TABLE;
+
+	static {
+		long[] random = {SEED};
+		ROOK_TABLE = build(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS, random);
+		BISHOP_TABLE = build(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS, random);
+	}
+
+	static long rookAttacks(int square, long occupied) {
+		return ROOK_TABLE[ROOK_OFFSETS[square]
+				+ (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+	}
+
+	static long bishopAttacks(int square, long occupied) {
+		return BISHOP_TABLE[BISHOP_OFFSETS[square]
+				+ (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+	}
+
+	/**
+	 * Attacks found by walking each ray, used to fill the tables and to check
+	 * them in tests.
+	 */
+	static long slidingAttacks(int square, long occupied, boolean rook) {
+		long attacks = 0L;
+		for (int[] direction : rook ? ROOK_DIRECTIONS : BISHOP_DIRECTIONS) {
+			int row = Bitboards.row(square) + direction[0];
+			int col = Bitboards.col(square) + direction[1];
+			while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+				long b = Bitboards.bit(Bitboards.square(row, col));
+				attacks |= b;
+				if ((occupied & b) != 0) {
+					break;
+				}
+				row += direction[0];
+				col += direction[1];
+			}
+		}
+		return attacks;
+	}
+
+	/**
+	 * Finds masks, magics and shifts for every square and fills one shared
+	 * attack table, each square owning a slice of it.
+	 */
+	private static long[] build(int[][] directions, long[] masks, long[] magics, int[] shifts, int[] offsets,
+			long[] random) {
+		int size = 0;
+		for (int square = 0; square < Bitboards.SQUARE_COUNT; square++) {
+			masks[square] = relevantSquares(square, directions);
+			int bits = Long.bitCount(masks[square]);
+			shifts[square] = 64 - bits;
+			offsets[square] = size;
+			size += 1 << bits;
+		}
+		boolean rook = directions == ROOK_DIRECTIONS;
+		long[] table = new long[size];
+		for (int square = 0; square < Bitboards.SQUARE_COUNT; square++) {
+			magics[square] = findMagic(square, masks[square], shifts[square], rook, table, offsets[square], random);
+		}
+		return table;
+	}
+
+	/**
+	 * Squares whose occupancy can change the attacks: each ray without its last
+	 * square, since a piece on the edge never blocks anything further.
+	 */
+	private static long relevantSquares(int square, int[][] directions) {
+		long mask = 0L;
+		for (int[] direction : directions) {
+			int row = Bitboards.row(square) + direction[0];
+			int col = Bitboards.col(square) + direction[1];
+			while (row + direction[0] >= 0 && row + direction[0] < 8 && col + direction[1] >= 0
+					&& col + direction[1] < 8) {
+				mask |= Bitboards.bit(Bitboards.square(row, col));
+				row += direction[0];
+				col += direction[1];
+			}
+		}
+		return mask;
+	}
+
+	private static long findMagic(int square, long mask, int shift, boolean rook, long[] table, int offset,
+			long[] random) {
+		int count = 1 << Long.bitCount(mask);
+		long[] occupancies = new long[count];
+		long[] attacks = new long[count];
+		// Enumerate every subset of the mask ("carry-rippler")
+		long subset = 0L;
+		for (int i = 0; i < count; i++) {
+			occupancies[i] = subset;
+			attacks[i] = slidingAttacks(square, subset, rook);
+			subset = (subset - mask) & mask;
+		}
+
+		int[] epochs = new int[count]; // Slot i was filled during attempt epochs[i]
+		for (int attempt = 1;; attempt++) {
+			long magic = nextRandom(random) & nextRandom(random) & nextRandom(random);
+			if (Long.bitCount((mask * magic) >>> 56) < 6) {
+				continue; // Too few high bits set to spread the index well
+			}
+			boolean ok = true;
+			for (int i = 0; i < count && ok; i++) {
+				int index = (int) ((occupancies[i] * magic) >>> shift);
+				if (epochs[index] != attempt) {
+					epochs[index] = attempt;
+					table[offset + index] = attacks[i];
+				} else if (table[offset + index] != attacks[i]) {
+					ok = false; // Two arrangements with different attacks collide
+				}
+			}
+			if (ok) {
+				return magic;
+			}
+		}
+	}
+
+	// xorshift64*, kept in a one-element array so the search is reproducible
+	private static long nextRandom(long[] state) {
+		long x = state[0];
+		x ^= x >>> 12;
+		x ^= x << 25;
+		x ^= x >>> 27;
+		state[0] = x;
+		return x * 0x2545F4914F6CDD1DL;
+	}
+}
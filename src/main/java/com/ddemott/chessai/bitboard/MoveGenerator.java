@@ -0,0 +1,384 @@
+package com.ddemott.chessai.bitboard;
+
+/**
+ * Generates {@link EncodedMove encoded moves} from a {@link Position}.
+ * {@link #generate} produces pseudo-legal moves: every move obeys the piece
+ * movement rules, but a move may leave the mover's own king in check.
+ * {@link #generateLegal} produces only legal moves, using check and pin masks
+ * computed once per position instead of trying each move, and
+ * {@link #generateLegalTactical} only the legal captures and promotions.
+ */
+public final class MoveGenerator {
+	private MoveGenerator() {
+	} // Prevent instantiation
+
+	private static final int[] PROMOTION_TYPES = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP,
+			PieceType.KNIGHT};
+
+	/**
+	 * Appends all pseudo-legal moves for {@code side} to {@code moves}. The list is
+	 * not cleared first.
+	 */
+	public static void generate(Position position, int side, MoveList moves) {
+		long own = position.getSidePieces(side);
+		long enemy = position.getSidePieces(side ^ 1);
+		long occupied = own | enemy;
+
+		generatePawnMoves(position, side, enemy, occupied, moves);
+
+		long knights = position.getPieces(side, PieceType.KNIGHT);
+		while (knights != 0) {
+			int from = Long.numberOfTrailingZeros(knights);
+			knights &= knights - 1;
+			addTargets(from, Bitboards.knightAttacks(from) & ~own, enemy, moves);
+		}
+		long bishops = position.getPieces(side, PieceType.BISHOP);
+		while (bishops != 0) {
+			int from = Long.numberOfTrailingZeros(bishops);
+			bishops &= bishops - 1;
+			addTargets(from, Bitboards.bishopAttacks(from, occupied) & ~own, enemy, moves);
+		}
+		long rooks = position.getPieces(side, PieceType.ROOK);
+		while (rooks != 0) {
+			int from = Long.numberOfTrailingZeros(rooks);
+			rooks &= rooks - 1;
+			addTargets(from, Bitboards.rookAttacks(from, occupied) & ~own, enemy, moves);
+		}
+		long queens = position.getPieces(side, PieceType.QUEEN);
+		while (queens != 0) {
+			int from = Long.numberOfTrailingZeros(queens);
+			queens &= queens - 1;
+			addTargets(from, Bitboards.queenAttacks(from, occupied) & ~own, enemy, moves);
+		}
+		long kings = position.getPieces(side, PieceType.KING);
+		while (kings != 0) {
+			int from = Long.numberOfTrailingZeros(kings);
+			kings &= kings - 1;
+			addTargets(from, Bitboards.kingAttacks(from) & ~own, enemy, moves);
+		}
+
+		generateCastling(position, side, occupied, moves);
+	}
+
+	/**
+	 * Appends only the legal moves for {@code side} to {@code moves}. The list is
+	 * not cleared first.
+	 * <p>
+	 * Pieces giving check and pieces pinned to the king are found once. In double
+	 * check only the king moves; in single check other pieces must capture the
+	 * checker or block its line; a pinned piece stays on its pin line; the king
+	 * never steps onto an attacked square (looking through its own square, so it
+	 * cannot retreat along a checking ray). En passant, which removes two pieces
+	 * from a rank, is verified separately. A position without a king of this side
+	 * (only seen in hand-built test positions) gets the pseudo-legal moves.
+	 */
+	public static void generateLegal(Position position, int side, MoveList moves) {
+		generateLegal(position, side, false, moves);
+	}
+
+	/**
+	 * Appends only the legal captures and promotions (under-promotions included)
+	 * for {@code side} to {@code moves}, without generating the quiet moves at
+	 * all: pieces only target enemy pieces and pawns only push onto the last
+	 * rank. The list is not cleared first.
+	 */
+	public static void generateLegalTactical(Position position, int side, MoveList moves) {
+		generateLegal(position, side, true, moves);
+	}
+
+	private static void generateLegal(Position position, int side, boolean tacticalOnly, MoveList moves) {
+		int kingSquare = position.getKingSquare(side);
+		if (kingSquare == Bitboards.NO_SQUARE) {
+			int start = moves.size();
+			generate(position, side, moves);
+			if (tacticalOnly) {
+				retainTactical(moves, start);
+			}
+			return;
+		}
+		int enemySide = side ^ 1;
+		long own = position.getSidePieces(side);
+		long enemy = position.getSidePieces(enemySide);
+		long occupied = own | enemy;
+		// Squares pieces other than pawns may move to
+		long targetMask = tacticalOnly ? enemy : ~own;
+
+		long checkers = position.attackersTo(kingSquare, occupied) & enemy;
+		// King moves, with the king lifted off the board so it cannot hide behind itself
+		long kingTargets = Bitboards.kingAttacks(kingSquare) & targetMask;
+		long withoutKing = occupied ^ Bitboards.bit(kingSquare);
+		while (kingTargets != 0) {
+			int to = Long.numberOfTrailingZeros(kingTargets);
+			kingTargets &= kingTargets - 1;
+			if ((position.attackersTo(to, withoutKing) & enemy) == 0) {
+				moves.add(EncodedMove.of(kingSquare, to, PieceType.NONE, (enemy & Bitboards.bit(to)) != 0
+						? EncodedMove.CAPTURE
+						: 0));
+			}
+		}
+		if (Long.bitCount(checkers) > 1) {
+			return; // Double check: only the king can move
+		}
+
+		// Squares that resolve a single check: capture the checker or block it
+		long checkMask = -1L;
+		if (checkers != 0) {
+			int checker = Long.numberOfTrailingZeros(checkers);
+			checkMask = checkers | Bitboards.between(kingSquare, checker);
+		}
+		long pinned = pinnedPieces(position, side, kingSquare, own, enemy);
+
+		generateLegalPawnMoves(position, side, kingSquare, checkMask, pinned, own, enemy, tacticalOnly, moves);
+		for (int type = PieceType.KNIGHT; type <= PieceType.QUEEN; type++) {
+			long pieces = position.getPieces(side, type);
+			while (pieces != 0) {
+				int from = Long.numberOfTrailingZeros(pieces);
+				pieces &= pieces - 1;
+				long targets = pieceAttacks(type, from, occupied) & targetMask & checkMask;
+				if ((pinned & Bitboards.bit(from)) != 0) {
+					targets &= Bitboards.line(kingSquare, from);
+				}
+				addTargets(from, targets, enemy, moves);
+			}
+		}
+		if (checkers == 0 && !tacticalOnly) {
+			generateCastling(position, side, occupied, moves);
+		}
+	}
+
+	/**
+	 * Removes the quiet moves from {@code moves} at and after {@code start}.
+	 */
+	private static void retainTactical(MoveList moves, int start) {
+		int kept = start;
+		for (int i = start; i < moves.size(); i++) {
+			int move = moves.get(i);
+			if (EncodedMove.isCapture(move) || EncodedMove.isPromotion(move)) {
+				moves.swap(i, kept++);
+			}
+		}
+		moves.truncate(kept);
+	}
+
+	/**
+	 * @return whether {@code side} has at least one legal move
+	 */
+	public static boolean hasLegalMove(Position position, int side, MoveList scratch) {
+		scratch.clear();
+		generateLegal(position, side, scratch);
+		return !scratch.isEmpty();
+	}
+
+	/**
+	 * @return the pieces of {@code side} pinned to its king (none if it has no
+	 *         king)
+	 */
+	public static long pinnedPieces(Position position, int side) {
+		int kingSquare = position.getKingSquare(side);
+		if (kingSquare == Bitboards.NO_SQUARE) {
+			return 0L;
+		}
+		return pinnedPieces(position, side, kingSquare, position.getSidePieces(side),
+				position.getSidePieces(side ^ 1));
+	}
+
+	/**
+	 * Own pieces standing alone between the king and an enemy slider on the
+	 * slider's line.
+	 */
+	private static long pinnedPieces(Position position, int side, int kingSquare, long own, long enemy) {
+		int enemySide = side ^ 1;
+		long queens = position.getPieces(enemySide, PieceType.QUEEN);
+		// Sliders that would attack the king if our own pieces were not there
+		long snipers = (Bitboards.rookAttacks(kingSquare, enemy)
+				& (position.getPieces(enemySide, PieceType.ROOK) | queens))
+				| (Bitboards.bishopAttacks(kingSquare, enemy)
+						& (position.getPieces(enemySide, PieceType.BISHOP) | queens));
+		long pinned = 0L;
+		long occupied = own | enemy;
+		while (snipers != 0) {
+			int sniper = Long.numberOfTrailingZeros(snipers);
+			snipers &= snipers - 1;
+			long blockers = Bitboards.between(kingSquare, sniper) & occupied;
+			if (Long.bitCount(blockers) == 1 && (blockers & own) != 0) {
+				pinned |= blockers;
+			}
+		}
+		return pinned;
+	}
+
+	private static long pieceAttacks(int type, int from, long occupied) {
+		switch (type) {
+			case PieceType.KNIGHT :
+				return Bitboards.knightAttacks(from);
+			case PieceType.BISHOP :
+				return Bitboards.bishopAttacks(from, occupied);
+			case PieceType.ROOK :
+				return Bitboards.rookAttacks(from, occupied);
+			default :
+				return Bitboards.queenAttacks(from, occupied);
+		}
+	}
+
+	private static void generateLegalPawnMoves(Position position, int side, int kingSquare, long checkMask,
+			long pinned, long own, long enemy, boolean tacticalOnly, MoveList moves) {
+		int forward = side == Position.WHITE ? 8 : -8;
+		long startRank = side == Position.WHITE ? Bitboards.RANK_2 : Bitboards.RANK_7;
+		long promotionRank = side == Position.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+		// Squares pushes may reach: only promotions are tactical
+		long pushMask = tacticalOnly ? promotionRank : -1L;
+		long occupied = own | enemy;
+		int enPassant = position.getEnPassantSquare();
+		int enPassantRow = side == Position.WHITE ? 5 : 2;
+		long enPassantBit = enPassant != Bitboards.NO_SQUARE && Bitboards.row(enPassant) == enPassantRow
+				? Bitboards.bit(enPassant)
+				: 0L;
+
+		long pawns = position.getPieces(side, PieceType.PAWN);
+		while (pawns != 0) {
+			int from = Long.numberOfTrailingZeros(pawns);
+			pawns &= pawns - 1;
+			long allowed = checkMask;
+			if ((pinned & Bitboards.bit(from)) != 0) {
+				allowed &= Bitboards.line(kingSquare, from);
+			}
+			int to = from + forward;
+			if (to < 0 || to >= Bitboards.SQUARE_COUNT) {
+				continue; // Pawn on its last rank (only in hand-built positions)
+			}
+			if ((occupied & Bitboards.bit(to)) == 0) {
+				if ((allowed & pushMask & Bitboards.bit(to)) != 0) {
+					addPawnMove(from, to, 0, promotionRank, moves);
+				}
+				int doubleTo = to + forward;
+				if ((startRank & Bitboards.bit(from)) != 0 && (occupied & Bitboards.bit(doubleTo)) == 0
+						&& (allowed & pushMask & Bitboards.bit(doubleTo)) != 0) {
+					moves.add(EncodedMove.of(from, doubleTo, PieceType.NONE, EncodedMove.DOUBLE_PUSH));
+				}
+			}
+			long attacks = Bitboards.pawnAttacks(side, from);
+			long captures = attacks & enemy & allowed;
+			while (captures != 0) {
+				int target = Long.numberOfTrailingZeros(captures);
+				captures &= captures - 1;
+				addPawnMove(from, target, EncodedMove.CAPTURE, promotionRank, moves);
+			}
+			if ((attacks & enPassantBit) != 0 && (occupied & enPassantBit) == 0
+					&& isLegalEnPassant(position, side, kingSquare, from, enPassant, occupied)) {
+				moves.add(EncodedMove.of(from, enPassant, PieceType.NONE, EncodedMove.CAPTURE | EncodedMove.EN_PASSANT));
+			}
+		}
+	}
+
+	/**
+	 * En passant empties two squares and fills a third, which can uncover a
+	 * slider on the king (even along the rank the pawns shared), so it is checked
+	 * against the resulting occupancy directly. This also covers evasions: the
+	 * capture is legal in check only if it removes the checker or blocks it.
+	 */
+	private static boolean isLegalEnPassant(Position position, int side, int kingSquare, int from, int to,
+			long occupied) {
+		int capturedSquare = to + (side == Position.WHITE ? -8 : 8);
+		long after = (occupied ^ Bitboards.bit(from) ^ Bitboards.bit(capturedSquare)) | Bitboards.bit(to);
+		long attackers = position.attackersTo(kingSquare, after) & position.getSidePieces(side ^ 1)
+				& ~Bitboards.bit(capturedSquare);
+		return attackers == 0;
+	}
+
+	private static void addTargets(int from, long targets, long enemy, MoveList moves) {
+		while (targets != 0) {
+			int to = Long.numberOfTrailingZeros(targets);
+			targets &= targets - 1;
+			moves.add(EncodedMove.of(from, to, PieceType.NONE, (enemy & Bitboards.bit(to)) != 0
+					? EncodedMove.CAPTURE
+					: 0));
+		}
+	}
+
+	private static void generatePawnMoves(Position position, int side, long enemy, long occupied, MoveList moves) {
+		int forward = side == Position.WHITE ? 8 : -8;
+		long startRank = side == Position.WHITE ? Bitboards.RANK_2 : Bitboards.RANK_7;
+		long promotionRank = side == Position.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+		// The en passant square only belongs to this side if the opponent just
+		// pushed past it
+		int enPassant = position.getEnPassantSquare();
+		int enPassantRow = side == Position.WHITE ? 5 : 2;
+		long enPassantBit = enPassant != Bitboards.NO_SQUARE && Bitboards.row(enPassant) == enPassantRow
+				? Bitboards.bit(enPassant)
+				: 0L;
+
+		long pawns = position.getPieces(side, PieceType.PAWN);
+		while (pawns != 0) {
+			int from = Long.numberOfTrailingZeros(pawns);
+			pawns &= pawns - 1;
+			int to = from + forward;
+			if (to < 0 || to >= Bitboards.SQUARE_COUNT) {
+				continue; // Pawn on its last rank (only in hand-built positions)
+			}
+			if ((occupied & Bitboards.bit(to)) == 0) {
+				addPawnMove(from, to, 0, promotionRank, moves);
+				int doubleTo = to + forward;
+				if ((startRank & Bitboards.bit(from)) != 0 && (occupied & Bitboards.bit(doubleTo)) == 0) {
+					moves.add(EncodedMove.of(from, doubleTo, PieceType.NONE, EncodedMove.DOUBLE_PUSH));
+				}
+			}
+			long attacks = Bitboards.pawnAttacks(side, from);
+			long captures = attacks & enemy;
+			while (captures != 0) {
+				int target = Long.numberOfTrailingZeros(captures);
+				captures &= captures - 1;
+				addPawnMove(from, target, EncodedMove.CAPTURE, promotionRank, moves);
+			}
+			if ((attacks & enPassantBit) != 0 && (occupied & enPassantBit) == 0) {
+				moves.add(EncodedMove.of(from, enPassant, PieceType.NONE, EncodedMove.CAPTURE | EncodedMove.EN_PASSANT));
+			}
+		}
+	}
+
+	private static void addPawnMove(int from, int to, int flags, long promotionRank, MoveList moves) {
+		if ((promotionRank & Bitboards.bit(to)) != 0) {
+			for (int promotion : PROMOTION_TYPES) {
+				moves.add(EncodedMove.of(from, to, promotion, flags));
+			}
+		} else {
+			moves.add(EncodedMove.of(from, to, PieceType.NONE, flags));
+		}
+	}
+
+	/**
+	 * Castling needs the right, an unmoved king and rook on their home squares,
+	 * empty squares between them, and a king that neither starts in, passes
+	 * through nor lands on an attacked square.
+	 */
+	private static void generateCastling(Position position, int side, long occupied, MoveList moves) {
+		int rights = position.getCastlingRights();
+		int rank = side == Position.WHITE ? 0 : 7;
+		int kingsideRight = side == Position.WHITE ? Position.WHITE_KINGSIDE : Position.BLACK_KINGSIDE;
+		int queensideRight = side == Position.WHITE ? Position.WHITE_QUEENSIDE : Position.BLACK_QUEENSIDE;
+		if ((rights & (kingsideRight | queensideRight)) == 0) {
+			return;
+		}
+		int kingSquare = Bitboards.square(rank, 4);
+		if (position.getPiece(kingSquare) != PieceType.make(side, PieceType.KING)) {
+			return;
+		}
+		int enemy = side ^ 1;
+		if (position.isSquareAttacked(kingSquare, enemy)) {
+			return;
+		}
+		int rook = PieceType.make(side, PieceType.ROOK);
+		if ((rights & kingsideRight) != 0 && position.getPiece(Bitboards.square(rank, 7)) == rook
+				&& (occupied & (Bitboards.bit(kingSquare + 1) | Bitboards.bit(kingSquare + 2))) == 0
+				&& !position.isSquareAttacked(kingSquare + 1, enemy)
+				&& !position.isSquareAttacked(kingSquare + 2, enemy)) {
+			moves.add(EncodedMove.of(kingSquare, kingSquare + 2, PieceType.NONE, EncodedMove.CASTLING));
+		}
+		if ((rights & queensideRight) != 0 && position.getPiece(Bitboards.square(rank, 0)) == rook
+				&& (occupied & (Bitboards.bit(kingSquare - 1) | Bitboards.bit(kingSquare - 2)
+						| Bitboards.bit(kingSquare - 3))) == 0
+				&& !position.isSquareAttacked(kingSquare - 1, enemy)
+				&& !position.isSquareAttacked(kingSquare - 2, enemy)) {
+			moves.add(EncodedMove.of(kingSquare, kingSquare - 2, PieceType.NONE, EncodedMove.CASTLING));
+		}
+	}
+}
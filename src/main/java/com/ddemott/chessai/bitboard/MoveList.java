@@ -0,0 +1,105 @@
+package com.ddemott.chessai.bitboard;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of {@link EncodedMove encoded moves} backed by an int array,
+ * with a parallel score array for move ordering. Search keeps one list per ply
+ * and {@link #clear() clears} it instead of allocating a new one per node.
+ */
+public final class MoveList {
+	private static final int DEFAULT_CAPACITY = 256;
+
+	private int[] moves;
+	private int[] scores;
+	private int size;
+
+	public MoveList() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public MoveList(int capacity) {
+		moves = new int[capacity];
+		scores = new int[capacity];
+	}
+
+	public void add(int move) {
+		if (size == moves.length) {
+			moves = Arrays.copyOf(moves, size * 2);
+			scores = Arrays.copyOf(scores, size * 2);
+		}
+		moves[size] = move;
+		scores[size] = 0;
+		size++;
+	}
+
+	public int get(int index) {
+		return moves[index];
+	}
+
+	public int getScore(int index) {
+		return scores[index];
+	}
+
+	public void setScore(int index, int score) {
+		scores[index] = score;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Drops every move from {@code newSize} on.
+	 */
+	public void truncate(int newSize) {
+		if (newSize < 0 || newSize > size) {
+			throw new IllegalArgumentException("Cannot truncate " + size + " moves to " + newSize);
+		}
+		size = newSize;
+	}
+
+	public void swap(int i, int j) {
+		int move = moves[i];
+		moves[i] = moves[j];
+		moves[j] = move;
+		int score = scores[i];
+		scores[i] = scores[j];
+		scores[j] = score;
+	}
+
+	/**
+	 * Finds a move with the same squares and promotion, returning the generated
+	 * version (with flags).
+	 *
+	 * @return the matching move, or {@link EncodedMove#NONE}
+	 */
+	public int find(int move) {
+		for (int i = 0; i < size; i++) {
+			if (EncodedMove.sameMove(moves[i], move)) {
+				return moves[i];
+			}
+		}
+		return EncodedMove.NONE;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(EncodedMove.toString(moves[i]));
+		}
+		return sb.append(']').toString();
+	}
+}
@@ -0,0 +1,133 @@
+package com.ddemott.chessai.bitboard;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * {@link Perft} spread over a fork/join pool. Every node deeper than
+ * {@link #SEQUENTIAL_DEPTH} forks one task per legal move, each on its own copy
+ * of the position; shallower subtrees are counted by a single-threaded
+ * {@link Perft}. The counts and divide output are identical to
+ * {@link Perft}'s, which makes a run a concurrency check of the position code
+ * as well.
+ * <p>
+ * An optional {@link PerftCache} is shared by all tasks. Close the instance to
+ * shut its pool down.
+ */
+public final class ParallelPerft implements AutoCloseable {
+	// Subtrees this shallow are not worth a task of their own
+	static final int SEQUENTIAL_DEPTH = 3;
+
+	private final ForkJoinPool pool;
+	private final PerftCache cache; // Null when not caching
+
+	public ParallelPerft(int threads) {
+		this(threads, null);
+	}
+
+	/**
+	 * @param cache
+	 *            shared leaf count cache, or null
+	 */
+	public ParallelPerft(int threads, PerftCache cache) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Perft needs at least one thread: " + threads);
+		}
+		this.pool = new ForkJoinPool(threads);
+		this.cache = cache;
+	}
+
+	public int getThreadCount() {
+		return pool.getParallelism();
+	}
+
+	/**
+	 * @return the number of leaf nodes {@code depth} plies below the position,
+	 *         which is not modified
+	 */
+	public long perft(Position position, int depth) {
+		if (depth < 0) {
+			throw new IllegalArgumentException("Perft depth must not be negative: " + depth);
+		}
+		return pool.invoke(new PerftTask(position.copy(), depth));
+	}
+
+	/**
+	 * @return leaf counts keyed by root move, as {@link Perft#divide}
+	 */
+	public Map<String, Long> divide(Position position, int depth) {
+		if (depth < 1) {
+			throw new IllegalArgumentException("Divide depth must be at least 1: " + depth);
+		}
+		MoveList moves = new MoveList();
+		MoveGenerator.generateLegal(position, position.getSideToMove(), moves);
+		List<PerftTask> tasks = children(position, moves, depth - 1);
+		for (PerftTask task : tasks) {
+			pool.execute(task);
+		}
+		Map<String, Long> counts = new LinkedHashMap<>();
+		for (int i = 0; i < moves.size(); i++) {
+			counts.put(EncodedMove.toString(moves.get(i)), tasks.get(i).join());
+		}
+		return counts;
+	}
+
+	@Override
+	public void close() {
+		pool.shutdown();
+	}
+
+	/**
+	 * @return one task per move, each on a copy of the position with the move
+	 *         played
+	 */
+	private List<PerftTask> children(Position position, MoveList moves, int depth) {
+		List<PerftTask> tasks = new ArrayList<>(moves.size());
+		for (int i = 0; i < moves.size(); i++) {
+			Position child = position.copy();
+			child.makeMove(moves.get(i));
+			tasks.add(new PerftTask(child, depth));
+		}
+		return tasks;
+	}
+
+	private final class PerftTask extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+
+		private final transient Position position; // Owned by this task
+		private final int depth;
+
+		PerftTask(Position position, int depth) {
+			this.position = position;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute() {
+			if (depth <= SEQUENTIAL_DEPTH) {
+				return new Perft(position, cache).perft(depth);
+			}
+			long key = position.getKey();
+			if (cache != null) {
+				long known = cache.probe(key, depth);
+				if (known >= 0) {
+					return known;
+				}
+			}
+			MoveList moves = new MoveList();
+			MoveGenerator.generateLegal(position, position.getSideToMove(), moves);
+			long nodes = 0;
+			for (PerftTask child : invokeAll(children(position, moves, depth - 1))) {
+				nodes += child.join();
+			}
+			if (cache != null) {
+				cache.store(key, depth, nodes);
+			}
+			return nodes;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.ddemott.chessai.bitboard;
+
+import java.util.Arrays;
+
+/**
+ * Cache of {@link PawnStructure} results keyed by {@link Position#getPawnKey()
+ * the pawn key}. Pawns move rarely compared with pieces, so a search sees the
+ * same few pawn structures over and over and nearly every probe is a hit.
+ * <p>
+ * One slot per index {@code key & (capacity - 1)}, always replaced on a miss.
+ * Entries are created on first use of a slot and then reused. Not
+ * thread-safe: each search thread uses its own table, as it uses its own
+ * evaluator.
+ */
+public final class PawnHashTable {
+	public static final int DEFAULT_KILOBYTES = 1024;
+
+	// Slot reference plus the entry object
+	static final int BYTES_PER_ENTRY = 64;
+
+	private final PawnStructure[] slots;
+	private final int mask;
+	private long probes;
+	private long hits;
+
+	/**
+	 * @param kilobytes
+	 *            memory budget; the capacity is the largest power of two that
+	 *            fits
+	 */
+	public PawnHashTable(int kilobytes) {
+		if (kilobytes < 1) {
+			throw new IllegalArgumentException("Pawn hash table needs at least 1 KB: " + kilobytes);
+		}
+		int capacity = Integer.highestOneBit(Math.max(1, kilobytes * 1024 / BYTES_PER_ENTRY));
+		slots = new PawnStructure[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Returns the pawn structure of a position, computing and storing it on a
+	 * miss. The entry belongs to the table and is only valid until the next
+	 * probe.
+	 */
+	public PawnStructure probe(Position position) {
+		probes++;
+		long key = position.getPawnKey();
+		int index = (int) key & mask;
+		PawnStructure entry = slots[index];
+		if (entry == null) {
+			entry = new PawnStructure();
+			slots[index] = entry;
+		} else if (entry.key == key) {
+			hits++;
+			return entry;
+		}
+		entry.compute(key, position.getPieces(Position.WHITE, PieceType.PAWN),
+				position.getPieces(Position.BLACK, PieceType.PAWN));
+		return entry;
+	}
+
+	public int getCapacity() {
+		return slots.length;
+	}
+
+	public long getProbes() {
+		return probes;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return hits per probe since the last clear, or 0 before any probe
+	 */
+	public double getHitRate() {
+		return probes == 0 ? 0.0 : (double) hits / probes;
+	}
+
+	public void clear() {
+		Arrays.fill(slots, null);
+		probes = 0;
+		hits = 0;
+	}
+}
@@ -0,0 +1,166 @@
+package com.ddemott.chessai.bitboard;
+
+/**
+ * Pawn structure of a position, worked out from the pawn bitboards alone:
+ * penalties for doubled, isolated and backward pawns, bonuses for passed pawns
+ * by how far they have advanced, and the passed pawns and open files
+ * themselves for other evaluation terms to use.
+ * <p>
+ * Scores come in middlegame and endgame versions (passed pawns matter much
+ * more in the endgame) and are positive when White's structure is better. An
+ * instance is a reusable {@link PawnHashTable} entry; {@link #of} analyses a
+ * position on its own.
+ */
+public final class PawnStructure {
+	private static final int DOUBLED_MIDDLEGAME = -10; // Per extra pawn on a file
+	private static final int DOUBLED_ENDGAME = -20;
+	private static final int ISOLATED_MIDDLEGAME = -15;
+	private static final int ISOLATED_ENDGAME = -10;
+	private static final int BACKWARD_MIDDLEGAME = -10;
+	private static final int BACKWARD_ENDGAME = -5;
+	// Indexed by rank counted from the pawn's own side (1 = starting rank)
+	private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+	private static final int[] PASSED_ENDGAME = {0, 10, 20, 35, 60, 90, 130, 0};
+
+	private static final long[] FILES = new long[8];
+	private static final long[] ADJACENT_FILES = new long[8];
+	// Squares ahead of a pawn on its own and the adjacent files: no enemy pawn
+	// there means it is passed
+	private static final long[][] PASSED_SPAN = new long[2][Bitboards.SQUARE_COUNT];
+	// Squares on the adjacent files level with or behind a pawn, where a
+	// friendly pawn could still support it
+	private static final long[][] SUPPORT_SPAN = new long[2][Bitboards.SQUARE_COUNT];
+
+	static {
+		for (int col = 0; col < 8; col++) {
+			FILES[col] = Bitboards.FILE_A << col;
+		}
+		for (int col = 0; col < 8; col++) {
+			ADJACENT_FILES[col] = (col > 0 ? FILES[col - 1] : 0L) | (col < 7 ? FILES[col + 1] : 0L);
+		}
+		for (int square = 0; square < Bitboards.SQUARE_COUNT; square++) {
+			int row = Bitboards.row(square);
+			int col = Bitboards.col(square);
+			long span = FILES[col] | ADJACENT_FILES[col];
+			long above = row == 7 ? 0L : -1L << (8 * (row + 1));
+			long below = row == 0 ? 0L : -1L >>> (8 * (8 - row));
+			long rank = Bitboards.RANK_1 << (8 * row);
+			PASSED_SPAN[Position.WHITE][square] = span & above;
+			PASSED_SPAN[Position.BLACK][square] = span & below;
+			SUPPORT_SPAN[Position.WHITE][square] = ADJACENT_FILES[col] & (below | rank);
+			SUPPORT_SPAN[Position.BLACK][square] = ADJACENT_FILES[col] & (above | rank);
+		}
+	}
+
+	long key;
+	private int middlegameScore;
+	private int endgameScore;
+	private final long[] passedPawns = new long[2];
+	private int openFiles;
+
+	/**
+	 * @return the pawn structure of a position, computed without a table
+	 */
+	public static PawnStructure of(Position position) {
+		PawnStructure structure = new PawnStructure();
+		structure.compute(position.getPawnKey(), position.getPieces(Position.WHITE, PieceType.PAWN),
+				position.getPieces(Position.BLACK, PieceType.PAWN));
+		return structure;
+	}
+
+	void compute(long key, long whitePawns, long blackPawns) {
+		this.key = key;
+		middlegameScore = 0;
+		endgameScore = 0;
+		evaluateSide(Position.WHITE, whitePawns, blackPawns);
+		evaluateSide(Position.BLACK, blackPawns, whitePawns);
+		long pawns = whitePawns | blackPawns;
+		openFiles = 0;
+		for (int col = 0; col < 8; col++) {
+			if ((pawns & FILES[col]) == 0) {
+				openFiles |= 1 << col;
+			}
+		}
+	}
+
+	private void evaluateSide(int side, long own, long enemy) {
+		int sign = side == Position.WHITE ? 1 : -1;
+		int middlegame = 0;
+		int endgame = 0;
+		for (int col = 0; col < 8; col++) {
+			int extra = Long.bitCount(own & FILES[col]) - 1;
+			if (extra > 0) {
+				middlegame += extra * DOUBLED_MIDDLEGAME;
+				endgame += extra * DOUBLED_ENDGAME;
+			}
+		}
+		long passed = 0L;
+		for (long b = own; b != 0; b &= b - 1) {
+			int square = Long.numberOfTrailingZeros(b);
+			int col = Bitboards.col(square);
+			if ((own & ADJACENT_FILES[col]) == 0) {
+				middlegame += ISOLATED_MIDDLEGAME;
+				endgame += ISOLATED_ENDGAME;
+			} else if ((own & SUPPORT_SPAN[side][square]) == 0 && isStopSquareGuarded(side, square, enemy)) {
+				middlegame += BACKWARD_MIDDLEGAME;
+				endgame += BACKWARD_ENDGAME;
+			}
+			if ((enemy & PASSED_SPAN[side][square]) == 0) {
+				passed |= Bitboards.bit(square);
+				int rank = side == Position.WHITE ? Bitboards.row(square) : 7 - Bitboards.row(square);
+				middlegame += PASSED_MIDDLEGAME[rank];
+				endgame += PASSED_ENDGAME[rank];
+			}
+		}
+		passedPawns[side] = passed;
+		middlegameScore += sign * middlegame;
+		endgameScore += sign * endgame;
+	}
+
+	/**
+	 * @return whether an enemy pawn attacks the square in front of the pawn, so
+	 *         it cannot advance to meet its neighbours
+	 */
+	private static boolean isStopSquareGuarded(int side, int square, long enemy) {
+		int stop = side == Position.WHITE ? square + 8 : square - 8;
+		return stop >= 0 && stop < Bitboards.SQUARE_COUNT && (Bitboards.pawnAttacks(side, stop) & enemy) != 0;
+	}
+
+	/**
+	 * @return the pawn structure score for the middlegame, positive when White's
+	 *         is better
+	 */
+	public int getMiddlegameScore() {
+		return middlegameScore;
+	}
+
+	/**
+	 * @return the pawn structure score for the endgame, positive when White's is
+	 *         better
+	 */
+	public int getEndgameScore() {
+		return endgameScore;
+	}
+
+	/**
+	 * @return the passed pawns of {@code side}
+	 */
+	public long getPassedPawns(int side) {
+		return passedPawns[side];
+	}
+
+	/**
+	 * @return the files without pawns of either side, bit {@code col} set for
+	 *         file {@code col}
+	 */
+	public int getOpenFiles() {
+		return openFiles;
+	}
+
+	/**
+	 * @return whether file {@code col} has no pawns
+	 */
+	public boolean isOpenFile(int col) {
+		return (openFiles & (1 << col)) != 0;
+	}
+}
@@ -0,0 +1,113 @@
+package com.ddemott.chessai.bitboard;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth ("perft"), the
+ * standard correctness check and speed benchmark for a move generator. Moves
+ * are played in place on a private copy of the position, so the position
+ * passed in is never modified.
+ * <p>
+ * The last ply is bulk-counted: the number of legal moves is the number of
+ * leaves, so those moves are never played. With a {@link PerftCache},
+ * subtrees two or more plies deep are looked up before being counted.
+ * {@link ParallelPerft} spreads the same count over several threads.
+ */
+public final class Perft {
+	// Shallower subtrees are cheaper to count than to look up
+	static final int MIN_CACHED_DEPTH = 2;
+
+	private final Position position;
+	private final PerftCache cache; // Null when not caching
+	private MoveList[] moveLists = new MoveList[0]; // One list per ply, reused between nodes
+
+	public Perft(Position position) {
+		this(position, null);
+	}
+
+	/**
+	 * @param cache
+	 *            shared leaf count cache, or null
+	 */
+	public Perft(Position position, PerftCache cache) {
+		this.position = position.copy();
+		this.cache = cache;
+	}
+
+	/**
+	 * @return the number of leaf nodes {@code depth} plies below the position
+	 */
+	public long perft(int depth) {
+		if (depth < 0) {
+			throw new IllegalArgumentException("Perft depth must not be negative: " + depth);
+		}
+		ensurePlies(depth);
+		return count(depth, 0);
+	}
+
+	/**
+	 * Splits {@link #perft} by root move, the usual way to find which move a
+	 * faulty generator miscounts.
+	 *
+	 * @return leaf counts keyed by root move in "e2 e4" form, in generation
+	 *         order
+	 */
+	public Map<String, Long> divide(int depth) {
+		if (depth < 1) {
+			throw new IllegalArgumentException("Divide depth must be at least 1: " + depth);
+		}
+		ensurePlies(depth);
+		MoveList moves = moveLists[0];
+		moves.clear();
+		MoveGenerator.generateLegal(position, position.getSideToMove(), moves);
+		Map<String, Long> counts = new LinkedHashMap<>();
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moves.get(i);
+			position.makeMove(move);
+			counts.put(EncodedMove.toString(move), count(depth - 1, 1));
+			position.unmakeMove();
+		}
+		return counts;
+	}
+
+	private long count(int depth, int ply) {
+		if (depth == 0) {
+			return 1;
+		}
+		boolean cached = cache != null && depth >= MIN_CACHED_DEPTH;
+		if (cached) {
+			long known = cache.probe(position.getKey(), depth);
+			if (known >= 0) {
+				return known;
+			}
+		}
+		MoveList moves = moveLists[ply];
+		moves.clear();
+		MoveGenerator.generateLegal(position, position.getSideToMove(), moves);
+		if (depth == 1) {
+			return moves.size();
+		}
+		long nodes = 0;
+		for (int i = 0; i < moves.size(); i++) {
+			position.makeMove(moves.get(i));
+			nodes += count(depth - 1, ply + 1);
+			position.unmakeMove();
+		}
+		if (cached) {
+			cache.store(position.getKey(), depth, nodes);
+		}
+		return nodes;
+	}
+
+	private void ensurePlies(int depth) {
+		if (moveLists.length < depth) {
+			int oldLength = moveLists.length;
+			moveLists = Arrays.copyOf(moveLists, depth);
+			for (int ply = oldLength; ply < depth; ply++) {
+				moveLists[ply] = new MoveList();
+			}
+		}
+	}
+}
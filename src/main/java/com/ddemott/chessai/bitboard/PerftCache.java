@@ -0,0 +1,96 @@
+package com.ddemott.chessai.bitboard;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hash table of (Zobrist key, depth) to perft leaf count, so transposed
+ * subtrees are counted once. Any number of threads can share it without
+ * locks.
+ * <p>
+ * Each slot is two longs, {@code check ^ data} followed by {@code data}, where
+ * data holds the count in the low 56 bits and the depth in the high 8 and the
+ * check mixes the depth into the key. A reader racing a writer may see the
+ * words of two different entries; they then fail to reproduce the check and
+ * count as a miss, as in the search's lock-free transposition table.
+ */
+public final class PerftCache {
+	private static final int BYTES_PER_ENTRY = 16;
+	private static final int DEPTH_SHIFT = 56;
+	private static final long COUNT_MASK = (1L << DEPTH_SHIFT) - 1;
+	private static final long DEPTH_MIX = 0x9E3779B97F4A7C15L;
+	// Keeps the two-long array within the maximum array length
+	private static final int MAX_CAPACITY = 1 << 29;
+
+	private final long[] table;
+	private final int mask;
+	private final LongAdder probes = new LongAdder();
+	private final LongAdder hits = new LongAdder();
+
+	/**
+	 * @param megabytes
+	 *            memory budget; the capacity is the largest power of two that
+	 *            fits
+	 */
+	public PerftCache(int megabytes) {
+		if (megabytes < 1) {
+			throw new IllegalArgumentException("Perft cache needs at least 1 MB: " + megabytes);
+		}
+		long entries = (long) megabytes * 1024 * 1024 / BYTES_PER_ENTRY;
+		int capacity = (int) Math.min(Long.highestOneBit(entries), MAX_CAPACITY);
+		table = new long[capacity * 2];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * @return the cached leaf count, or -1 if there is none
+	 */
+	public long probe(long key, int depth) {
+		probes.increment();
+		long check = checkOf(key, depth);
+		int index = ((int) check & mask) << 1;
+		long data = table[index + 1];
+		if (data == 0 || (table[index] ^ data) != check || (int) (data >>> DEPTH_SHIFT) != depth) {
+			return -1;
+		}
+		hits.increment();
+		return data & COUNT_MASK;
+	}
+
+	/**
+	 * Stores a leaf count, always replacing what was in the slot. Counts too
+	 * large to pack are not stored.
+	 */
+	public void store(long key, int depth, long count) {
+		if (count > COUNT_MASK || depth > 0xFF) {
+			return;
+		}
+		long check = checkOf(key, depth);
+		int index = ((int) check & mask) << 1;
+		long data = ((long) depth << DEPTH_SHIFT) | count;
+		table[index] = check ^ data;
+		table[index + 1] = data;
+	}
+
+	public void clear() {
+		Arrays.fill(table, 0L);
+		probes.reset();
+		hits.reset();
+	}
+
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	public long getProbes() {
+		return probes.sum();
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	private static long checkOf(long key, int depth) {
+		return key ^ (depth * DEPTH_MIX);
+	}
+}
@@ -0,0 +1,57 @@
+package com.ddemott.chessai.bitboard;
+
+/**
+ * Well-known perft reference positions with their published leaf counts, used
+ * as a move generator regression gate. Between them they cover castling
+ * through and out of check, en passant pins, promotions and under-promotions.
+ */
+public enum PerftSuite {
+	START("Start position", Fen.STARTING_POSITION, 20L, 400L, 8_902L, 197_281L, 4_865_609L, 119_060_324L),
+	KIWIPETE("Kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 48L, 2_039L,
+			97_862L, 4_085_603L, 193_690_690L),
+	POSITION_3("Position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 14L, 191L, 2_812L, 43_238L, 674_624L,
+			11_030_083L),
+	POSITION_4("Position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 6L, 264L, 9_467L,
+			422_333L, 15_833_292L),
+	POSITION_5("Position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 44L, 1_486L, 62_379L,
+			2_103_487L, 89_941_194L),
+	POSITION_6("Position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 46L,
+			2_079L, 89_890L, 3_894_594L, 164_075_551L);
+
+	private final String title;
+	private final String fen;
+	private final long[] expected; // expected[depth - 1]
+
+	PerftSuite(String title, String fen, long... expected) {
+		this.title = title;
+		this.fen = fen;
+		this.expected = expected;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public String getFen() {
+		return fen;
+	}
+
+	/**
+	 * @return the deepest depth with a known count
+	 */
+	public int getMaxDepth() {
+		return expected.length;
+	}
+
+	/**
+	 * @return the published leaf count at {@code depth}
+	 * @throws IllegalArgumentException
+	 *             if the depth has no known count
+	 */
+	public long getExpected(int depth) {
+		if (depth < 1 || depth > expected.length) {
+			throw new IllegalArgumentException(title + " has counts for depths 1-" + expected.length + ": " + depth);
+		}
+		return expected[depth - 1];
+	}
+}
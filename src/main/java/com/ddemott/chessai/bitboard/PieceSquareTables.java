@@ -0,0 +1,172 @@
+package com.ddemott.chessai.bitboard;
+
+import com.ddemott.chessai.GameConstants;
+
+/**
+ * Material plus piece-square values for every coloured piece on every square,
+ * one table for the middlegame and one for the endgame. {@link Position} sums
+ * them incrementally as pieces move, so a static evaluation starts from a
+ * ready-made score.
+ * <p>
+ * The piece-square values follow the widely used "simplified evaluation
+ * function" tables, which are tuned for the same piece values as
+ * {@link GameConstants}. Only kings and pawns differ by phase: the king
+ * shelters in the middlegame and centralises in the endgame, and pawns gain
+ * value as they advance in the endgame. Values are from White's point of view;
+ * Black's pieces are mirrored and negated, and kings carry no material since
+ * each side always has one.
+ * <p>
+ * The game phase blends the two: it counts the non-pawn material left on the
+ * board (minor pieces 1, rooks 2, queens 4), from {@link #MAX_PHASE} at the
+ * start down to 0 with only kings and pawns.
+ */
+public final class PieceSquareTables {
+	private PieceSquareTables() {
+	} // Prevent instantiation
+
+	public static final int MAX_PHASE = 24;
+
+	private static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};
+
+	// Tables are written as seen from White, rank 8 first, like a diagram
+	private static final int[] PAWN = {
+			0, 0, 0, 0, 0, 0, 0, 0,
+			50, 50, 50, 50, 50, 50, 50, 50,
+			10, 10, 20, 30, 30, 20, 10, 10,
+			5, 5, 10, 25, 25, 10, 5, 5,
+			0, 0, 0, 20, 20, 0, 0, 0,
+			5, -5, -10, 0, 0, -10, -5, 5,
+			5, 10, 10, -20, -20, 10, 10, 5,
+			0, 0, 0, 0, 0, 0, 0, 0};
+
+	private static final int[] PAWN_ENDGAME = {
+			0, 0, 0, 0, 0, 0, 0, 0,
+			80, 80, 80, 80, 80, 80, 80, 80,
+			50, 50, 50, 50, 50, 50, 50, 50,
+			30, 30, 30, 30, 30, 30, 30, 30,
+			20, 20, 20, 20, 20, 20, 20, 20,
+			10, 10, 10, 10, 10, 10, 10, 10,
+			10, 10, 10, 10, 10, 10, 10, 10,
+			0, 0, 0, 0, 0, 0, 0, 0};
+
+	private static final int[] KNIGHT = {
+			-50, -40, -30, -30, -30, -30, -40, -50,
+			-40, -20, 0, 0, 0, 0, -20, -40,
+			-30, 0, 10, 15, 15, 10, 0, -30,
+			-30, 5, 15, 20, 20, 15, 5, -30,
+			-30, 0, 15, 20, 20, 15, 0, -30,
+			-30, 5, 10, 15, 15, 10, 5, -30,
+			-40, -20, 0, 5, 5, 0, -20, -40,
+			-50, -40, -30, -30, -30, -30, -40, -50};
+
+	private static final int[] BISHOP = {
+			-20, -10, -10, -10, -10, -10, -10, -20,
+			-10, 0, 0, 0, 0, 0, 0, -10,
+			-10, 0, 5, 10, 10, 5, 0, -10,
+			-10, 5, 5, 10, 10, 5, 5, -10,
+			-10, 0, 10, 10, 10, 10, 0, -10,
+			-10, 10, 10, 10, 10, 10, 10, -10,
+			-10, 5, 0, 0, 0, 0, 5, -10,
+			-20, -10, -10, -10, -10, -10, -10, -20};
+
+	private static final int[] ROOK = {
+			0, 0, 0, 0, 0, 0, 0, 0,
+			5, 10, 10, 10, 10, 10, 10, 5,
+			-5, 0, 0, 0, 0, 0, 0, -5,
+			-5, 0, 0, 0, 0, 0, 0, -5,
+			-5, 0, 0, 0, 0, 0, 0, -5,
+			-5, 0, 0, 0, 0, 0, 0, -5,
+			-5, 0, 0, 0, 0, 0, 0, -5,
+			0, 0, 0, 5, 5, 0, 0, 0};
+
+	private static final int[] QUEEN = {
+			-20, -10, -10, -5, -5, -10, -10, -20,
+			-10, 0, 0, 0, 0, 0, 0, -10,
+			-10, 0, 5, 5, 5, 5, 0, -10,
+			-5, 0, 5, 5, 5, 5, 0, -5,
+			0, 0, 5, 5, 5, 5, 0, -5,
+			-10, 5, 5, 5, 5, 5, 0, -10,
+			-10, 0, 5, 0, 0, 0, 0, -10,
+			-20, -10, -10, -5, -5, -10, -10, -20};
+
+	private static final int[] KING = {
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-20, -30, -30, -40, -40, -30, -30, -20,
+			-10, -20, -20, -20, -20, -20, -20, -10,
+			20, 20, 0, 0, 0, 0, 20, 20,
+			20, 30, 10, 0, 0, 10, 30, 20};
+
+	private static final int[] KING_ENDGAME = {
+			-50, -40, -30, -20, -20, -30, -40, -50,
+			-30, -20, -10, 0, 0, -10, -20, -30,
+			-30, -10, 20, 30, 30, 20, -10, -30,
+			-30, -10, 30, 40, 40, 30, -10, -30,
+			-30, -10, 30, 40, 40, 30, -10, -30,
+			-30, -10, 20, 30, 30, 20, -10, -30,
+			-30, -30, 0, 0, 0, 0, -30, -30,
+			-50, -30, -30, -30, -30, -30, -30, -50};
+
+	private static final int[] MATERIAL = {GameConstants.PAWN_VALUE, GameConstants.KNIGHT_VALUE,
+			GameConstants.BISHOP_VALUE, GameConstants.ROOK_VALUE, GameConstants.QUEEN_VALUE, 0};
+
+	// Indexed by coloured piece code, then square; signed from White's view
+	private static final int[][] MIDDLEGAME = new int[PieceType.CODE_LIMIT][];
+	private static final int[][] ENDGAME = new int[PieceType.CODE_LIMIT][];
+
+	static {
+		int[][] middlegame = {PAWN, KNIGHT, BISHOP, ROOK, QUEEN, KING};
+		int[][] endgame = {PAWN_ENDGAME, KNIGHT, BISHOP, ROOK, QUEEN, KING_ENDGAME};
+		for (int type = PieceType.PAWN; type <= PieceType.KING; type++) {
+			fill(type, middlegame[type], MIDDLEGAME);
+			fill(type, endgame[type], ENDGAME);
+		}
+	}
+
+	private static void fill(int type, int[] diagram, int[][] tables) {
+		int[] white = new int[Bitboards.SQUARE_COUNT];
+		int[] black = new int[Bitboards.SQUARE_COUNT];
+		for (int square = 0; square < Bitboards.SQUARE_COUNT; square++) {
+			int row = Bitboards.row(square);
+			int col = Bitboards.col(square);
+			white[square] = MATERIAL[type] + diagram[(7 - row) * 8 + col];
+			black[square] = -(MATERIAL[type] + diagram[row * 8 + col]);
+		}
+		tables[PieceType.make(Position.WHITE, type)] = white;
+		tables[PieceType.make(Position.BLACK, type)] = black;
+	}
+
+	/**
+	 * @return how much a piece type counts towards the game phase
+	 */
+	public static int phaseWeight(int type) {
+		return PHASE_WEIGHTS[type];
+	}
+
+	/**
+	 * Blends a middlegame and an endgame score by the game phase. Phases above
+	 * {@link #MAX_PHASE} (possible after promotions) count as the middlegame.
+	 */
+	public static int taper(int middlegame, int endgame, int phase) {
+		int weight = Math.min(phase, MAX_PHASE);
+		return (middlegame * weight + endgame * (MAX_PHASE - weight)) / MAX_PHASE;
+	}
+
+	/**
+	 * @return the middlegame material and placement value of a coloured piece
+	 *         on a square, positive for White
+	 */
+	public static int middlegame(int piece, int square) {
+		return MIDDLEGAME[piece][square];
+	}
+
+	/**
+	 * @return the endgame material and placement value of a coloured piece on a
+	 *         square, positive for White
+	 */
+	public static int endgame(int piece, int square) {
+		return ENDGAME[piece][square];
+	}
+}
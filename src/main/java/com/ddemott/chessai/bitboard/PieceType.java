@@ -0,0 +1,68 @@
+package com.ddemott.chessai.bitboard;
+
+/**
+ * Integer piece codes used by the bitboard core. A coloured piece packs the
+ * side into bit 3 and the type into bits 0-2, so white pieces are 0-5 and black
+ * pieces are 8-13.
+ */
+public final class PieceType {
+	private PieceType() {
+	} // Prevent instantiation
+
+	public static final int PAWN = 0;
+	public static final int KNIGHT = 1;
+	public static final int BISHOP = 2;
+	public static final int ROOK = 3;
+	public static final int QUEEN = 4;
+	public static final int KING = 5;
+
+	public static final int COUNT = 6;
+
+	// Marks an empty square in the mailbox
+	public static final int NONE = -1;
+
+	// Size of arrays indexed by coloured piece code
+	public static final int CODE_LIMIT = 14;
+
+	private static final char[] SYMBOLS = {'P', 'N', 'B', 'R', 'Q', 'K'};
+
+	public static int make(int side, int type) {
+		return (side << 3) | type;
+	}
+
+	public static int typeOf(int piece) {
+		return piece & 7;
+	}
+
+	public static int sideOf(int piece) {
+		return piece >>> 3;
+	}
+
+	/**
+	 * Maps an upper-case piece symbol ('P', 'N', 'B', 'R', 'Q', 'K') to its type.
+	 *
+	 * @return the piece type, or {@link #NONE} for an unknown symbol
+	 */
+	public static int fromSymbol(char symbol) {
+		switch (Character.toUpperCase(symbol)) {
+			case 'P' :
+				return PAWN;
+			case 'N' :
+				return KNIGHT;
+			case 'B' :
+				return BISHOP;
+			case 'R' :
+				return ROOK;
+			case 'Q' :
+				return QUEEN;
+			case 'K' :
+				return KING;
+			default :
+				return NONE;
+		}
+	}
+
+	public static char symbolOf(int type) {
+		return SYMBOLS[type];
+	}
+}
@@ -0,0 +1,543 @@
+package com.ddemott.chessai.bitboard;
+
+import java.util.Arrays;
+
+/**
+ * Bitboard representation of a chess position: one occupancy bitboard per
+ * piece type, one per side, and a square-indexed mailbox for O(1) "what is on
+ * this square" lookups. All squares are integer indices (see
+ * {@link Bitboards}), so queries never allocate.
+ * <p>
+ * Moves are played in place with {@link #makeMove} and taken back with
+ * {@link #unmakeMove}. Each make pushes an undo record onto a preallocated
+ * stack, so walking a search tree allocates nothing per node.
+ * <p>
+ * A {@link Zobrist} key of the pieces, side to move, castling rights and en
+ * passant square is kept up to date by every change, so {@link #getKey()} is
+ * free, as is a second key of the pawns alone for the {@link PawnHashTable}.
+ * So is an {@link AttackMap} of the squares each side attacks and by how many
+ * pieces: placing or removing a piece updates that piece's attacks and those
+ * of the sliders whose rays pass through its square. Likewise the
+ * material and {@link PieceSquareTables piece-square} sums for the middlegame
+ * and endgame, and the game phase that blends them.
+ */
+public final class Position {
+	public static final int WHITE = 0;
+	public static final int BLACK = 1;
+
+	// Castling rights bits
+	public static final int WHITE_KINGSIDE = 1;
+	public static final int WHITE_QUEENSIDE = 2;
+	public static final int BLACK_KINGSIDE = 4;
+	public static final int BLACK_QUEENSIDE = 8;
+	public static final int ALL_CASTLING = 15;
+
+	// Rights that survive a move touching each square (king and rook home squares
+	// clear the matching rights)
+	private static final int[] CASTLING_MASK = new int[Bitboards.SQUARE_COUNT];
+
+	private static final int INITIAL_UNDO_CAPACITY = 128;
+
+	static {
+		Arrays.fill(CASTLING_MASK, ALL_CASTLING);
+		CASTLING_MASK[Bitboards.square(0, 4)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+		CASTLING_MASK[Bitboards.square(0, 7)] &= ~WHITE_KINGSIDE;
+		CASTLING_MASK[Bitboards.square(0, 0)] &= ~WHITE_QUEENSIDE;
+		CASTLING_MASK[Bitboards.square(7, 4)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+		CASTLING_MASK[Bitboards.square(7, 7)] &= ~BLACK_KINGSIDE;
+		CASTLING_MASK[Bitboards.square(7, 0)] &= ~BLACK_QUEENSIDE;
+	}
+
+	private final long[] typeBitboards = new long[PieceType.COUNT];
+	private final long[] sideBitboards = new long[2];
+	private final int[] squares = new int[Bitboards.SQUARE_COUNT];
+	private final AttackMap attacks = new AttackMap();
+
+	private int sideToMove = WHITE;
+	private int castlingRights;
+	private int enPassantSquare = Bitboards.NO_SQUARE;
+	private int halfmoveClock;
+	private long key;
+	private long pawnKey; // Zobrist key of the pawns only
+	private int middlegameScore; // Material and placement, positive for White
+	private int endgameScore;
+	private int phase; // Non-pawn material, see PieceSquareTables.MAX_PHASE
+
+	private UndoRecord[] undoStack = new UndoRecord[INITIAL_UNDO_CAPACITY];
+	private int undoCount;
+
+	/**
+	 * Everything {@link #unmakeMove} needs to restore the position. Records are
+	 * reused, never allocated per move.
+	 */
+	private static final class UndoRecord {
+		int from;
+		int to;
+		int promotion;
+		int movedPiece;
+		int capturedPiece;
+		int capturedSquare;
+		int castlingRights;
+		int enPassantSquare;
+		int halfmoveClock;
+		long key;
+	}
+
+	public Position() {
+		Arrays.fill(squares, PieceType.NONE);
+		for (int i = 0; i < undoStack.length; i++) {
+			undoStack[i] = new UndoRecord();
+		}
+	}
+
+	/**
+	 * Places a coloured piece (see {@link PieceType#make}) on a square, replacing
+	 * anything already there.
+	 */
+	public void putPiece(int square, int piece) {
+		if (squares[square] != PieceType.NONE) {
+			removePiece(square);
+		}
+		long b = Bitboards.bit(square);
+		long occupied = getOccupancy();
+		long sliders = slidersThrough(square, occupied);
+		typeBitboards[PieceType.typeOf(piece)] |= b;
+		sideBitboards[PieceType.sideOf(piece)] |= b;
+		squares[square] = piece;
+		key ^= Zobrist.piece(piece, square);
+		if (PieceType.typeOf(piece) == PieceType.PAWN) {
+			pawnKey ^= Zobrist.piece(piece, square);
+		}
+		middlegameScore += PieceSquareTables.middlegame(piece, square);
+		endgameScore += PieceSquareTables.endgame(piece, square);
+		phase += PieceSquareTables.phaseWeight(PieceType.typeOf(piece));
+		updateSliders(sliders, occupied, occupied | b);
+		attacks.add(PieceType.sideOf(piece), attacksFrom(piece, square, occupied | b));
+	}
+
+	/**
+	 * Removes whatever is on a square.
+	 *
+	 * @return the removed coloured piece, or {@link PieceType#NONE} if the square
+	 *         was empty
+	 */
+	public int removePiece(int square) {
+		int piece = squares[square];
+		if (piece == PieceType.NONE) {
+			return PieceType.NONE;
+		}
+		long occupied = getOccupancy();
+		attacks.remove(PieceType.sideOf(piece), attacksFrom(piece, square, occupied));
+		long b = ~Bitboards.bit(square);
+		typeBitboards[PieceType.typeOf(piece)] &= b;
+		sideBitboards[PieceType.sideOf(piece)] &= b;
+		squares[square] = PieceType.NONE;
+		key ^= Zobrist.piece(piece, square);
+		if (PieceType.typeOf(piece) == PieceType.PAWN) {
+			pawnKey ^= Zobrist.piece(piece, square);
+		}
+		middlegameScore -= PieceSquareTables.middlegame(piece, square);
+		endgameScore -= PieceSquareTables.endgame(piece, square);
+		phase -= PieceSquareTables.phaseWeight(PieceType.typeOf(piece));
+		updateSliders(slidersThrough(square, occupied), occupied, occupied & b);
+		return piece;
+	}
+
+	/**
+	 * @return the rooks, bishops and queens of either side whose rays reach
+	 *         {@code square}, and so change when its occupancy does
+	 */
+	private long slidersThrough(int square, long occupied) {
+		long rooksQueens = typeBitboards[PieceType.ROOK] | typeBitboards[PieceType.QUEEN];
+		long bishopsQueens = typeBitboards[PieceType.BISHOP] | typeBitboards[PieceType.QUEEN];
+		return (Bitboards.rookAttacks(square, occupied) & rooksQueens)
+				| (Bitboards.bishopAttacks(square, occupied) & bishopsQueens);
+	}
+
+	private void updateSliders(long sliders, long before, long after) {
+		for (long b = sliders; b != 0; b &= b - 1) {
+			int square = Long.numberOfTrailingZeros(b);
+			int piece = squares[square];
+			attacks.change(PieceType.sideOf(piece), attacksFrom(piece, square, before),
+					attacksFrom(piece, square, after));
+		}
+	}
+
+	/**
+	 * @return the squares a coloured piece on {@code square} attacks
+	 */
+	private static long attacksFrom(int piece, int square, long occupied) {
+		switch (PieceType.typeOf(piece)) {
+			case PieceType.PAWN :
+				return Bitboards.pawnAttacks(PieceType.sideOf(piece), square);
+			case PieceType.KNIGHT :
+				return Bitboards.knightAttacks(square);
+			case PieceType.BISHOP :
+				return Bitboards.bishopAttacks(square, occupied);
+			case PieceType.ROOK :
+				return Bitboards.rookAttacks(square, occupied);
+			case PieceType.QUEEN :
+				return Bitboards.queenAttacks(square, occupied);
+			default :
+				return Bitboards.kingAttacks(square);
+		}
+	}
+
+	public int getPiece(int square) {
+		return squares[square];
+	}
+
+	public long getPieces(int type) {
+		return typeBitboards[type];
+	}
+
+	public long getPieces(int side, int type) {
+		return typeBitboards[type] & sideBitboards[side];
+	}
+
+	public long getSidePieces(int side) {
+		return sideBitboards[side];
+	}
+
+	public long getOccupancy() {
+		return sideBitboards[WHITE] | sideBitboards[BLACK];
+	}
+
+	/**
+	 * @return the square of the given side's king (the lowest one if there are
+	 *         several), or {@link Bitboards#NO_SQUARE} if it has none
+	 */
+	public int getKingSquare(int side) {
+		return Bitboards.lowestSquare(getPieces(side, PieceType.KING));
+	}
+
+	/**
+	 * Returns all pieces of either side that attack a square, given an occupancy
+	 * (passing a modified occupancy lets callers look through pieces).
+	 */
+	public long attackersTo(int square, long occupied) {
+		long rooksQueens = typeBitboards[PieceType.ROOK] | typeBitboards[PieceType.QUEEN];
+		long bishopsQueens = typeBitboards[PieceType.BISHOP] | typeBitboards[PieceType.QUEEN];
+		return (Bitboards.pawnAttacks(BLACK, square) & getPieces(WHITE, PieceType.PAWN))
+				| (Bitboards.pawnAttacks(WHITE, square) & getPieces(BLACK, PieceType.PAWN))
+				| (Bitboards.knightAttacks(square) & typeBitboards[PieceType.KNIGHT])
+				| (Bitboards.kingAttacks(square) & typeBitboards[PieceType.KING])
+				| (Bitboards.rookAttacks(square, occupied) & rooksQueens)
+				| (Bitboards.bishopAttacks(square, occupied) & bishopsQueens);
+	}
+
+	/**
+	 * Checks whether any piece of {@code bySide} attacks the square. Pawns attack
+	 * diagonally whether or not the square is occupied.
+	 */
+	public boolean isSquareAttacked(int square, int bySide) {
+		return (attacks.getAttacked(bySide) & Bitboards.bit(square)) != 0;
+	}
+
+	/**
+	 * @return every square attacked by at least one piece of {@code side}
+	 */
+	public long getAttackedSquares(int side) {
+		return attacks.getAttacked(side);
+	}
+
+	/**
+	 * @return how many pieces of {@code side} attack the square; the same as
+	 *         counting {@link #attackersTo} that side's pieces, without the
+	 *         lookups
+	 */
+	public int getAttackerCount(int square, int side) {
+		return attacks.getCount(side, square);
+	}
+
+	/**
+	 * @return the attacker count of every square for {@code side}, indexed by
+	 *         square; the map's own array, not to be modified
+	 */
+	int[] getAttackerCounts(int side) {
+		return attacks.getCounts(side);
+	}
+
+	public boolean isInCheck(int side) {
+		int kingSquare = getKingSquare(side);
+		return kingSquare != Bitboards.NO_SQUARE && isSquareAttacked(kingSquare, side ^ 1);
+	}
+
+	public int getSideToMove() {
+		return sideToMove;
+	}
+
+	public void setSideToMove(int side) {
+		if (side != sideToMove) {
+			key ^= Zobrist.blackToMove();
+		}
+		this.sideToMove = side;
+	}
+
+	public int getCastlingRights() {
+		return castlingRights;
+	}
+
+	public void setCastlingRights(int rights) {
+		key ^= Zobrist.castling(castlingRights) ^ Zobrist.castling(rights);
+		this.castlingRights = rights;
+	}
+
+	/**
+	 * @return the square a pawn skipped over on the last move, or
+	 *         {@link Bitboards#NO_SQUARE}
+	 */
+	public int getEnPassantSquare() {
+		return enPassantSquare;
+	}
+
+	public void setEnPassantSquare(int square) {
+		key ^= Zobrist.enPassant(enPassantSquare) ^ Zobrist.enPassant(square);
+		this.enPassantSquare = square;
+	}
+
+	/**
+	 * @return the Zobrist key of this position
+	 */
+	public long getKey() {
+		return key;
+	}
+
+	/**
+	 * @return the Zobrist key of the pawns alone, which identifies the pawn
+	 *         structure
+	 */
+	public long getPawnKey() {
+		return pawnKey;
+	}
+
+	/**
+	 * Recomputes the Zobrist key from scratch. The incremental key must always
+	 * equal this; it exists for tests and debugging.
+	 */
+	public long computeKey() {
+		long k = 0L;
+		for (int square = 0; square < Bitboards.SQUARE_COUNT; square++) {
+			if (squares[square] != PieceType.NONE) {
+				k ^= Zobrist.piece(squares[square], square);
+			}
+		}
+		if (sideToMove == BLACK) {
+			k ^= Zobrist.blackToMove();
+		}
+		return k ^ Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare);
+	}
+
+	/**
+	 * @return the middlegame material and piece-square sum, positive when White
+	 *         is better
+	 */
+	public int getMiddlegameScore() {
+		return middlegameScore;
+	}
+
+	/**
+	 * @return the endgame material and piece-square sum, positive when White is
+	 *         better
+	 */
+	public int getEndgameScore() {
+		return endgameScore;
+	}
+
+	/**
+	 * @return the game phase, {@link PieceSquareTables#MAX_PHASE} with all the
+	 *         starting pieces on the board and 0 with only kings and pawns
+	 *         (more after promotions)
+	 */
+	public int getPhase() {
+		return phase;
+	}
+
+	/**
+	 * @return the material and piece-square score blended by the game phase,
+	 *         positive when White is better
+	 */
+	public int getTaperedScore() {
+		return PieceSquareTables.taper(middlegameScore, endgameScore, phase);
+	}
+
+	public int getHalfmoveClock() {
+		return halfmoveClock;
+	}
+
+	public void setHalfmoveClock(int halfmoveClock) {
+		this.halfmoveClock = halfmoveClock;
+	}
+
+	/**
+	 * Plays a move in place without checking that it is legal. Castling is
+	 * recognised as a king moving two files, en passant as a pawn moving
+	 * diagonally onto the en passant square.
+	 *
+	 * @param from
+	 *            origin square
+	 * @param to
+	 *            destination square
+	 * @param promotion
+	 *            piece type to promote to, or {@link PieceType#NONE}
+	 */
+	public void makeMove(int from, int to, int promotion) {
+		int moved = squares[from];
+		int side = PieceType.sideOf(moved);
+		int type = PieceType.typeOf(moved);
+
+		if (undoCount == undoStack.length) {
+			growUndoStack();
+		}
+		UndoRecord undo = undoStack[undoCount++];
+		undo.from = from;
+		undo.to = to;
+		undo.promotion = promotion;
+		undo.movedPiece = moved;
+		undo.castlingRights = castlingRights;
+		undo.enPassantSquare = enPassantSquare;
+		undo.halfmoveClock = halfmoveClock;
+		undo.key = key;
+
+		int capturedSquare = to;
+		if (type == PieceType.PAWN && to == enPassantSquare && squares[to] == PieceType.NONE
+				&& Bitboards.col(from) != Bitboards.col(to)) {
+			capturedSquare = side == WHITE ? to - 8 : to + 8;
+		}
+		int captured = removePiece(capturedSquare);
+		undo.capturedPiece = captured;
+		undo.capturedSquare = capturedSquare;
+
+		removePiece(from);
+		putPiece(to, promotion == PieceType.NONE ? moved : PieceType.make(side, promotion));
+
+		if (type == PieceType.KING && Math.abs(Bitboards.col(to) - Bitboards.col(from)) == 2) {
+			int rank = Bitboards.row(from);
+			boolean kingside = to > from;
+			int rookFrom = Bitboards.square(rank, kingside ? 7 : 0);
+			int rookTo = Bitboards.square(rank, kingside ? 5 : 3);
+			putPiece(rookTo, removePiece(rookFrom));
+		}
+
+		setCastlingRights(castlingRights & CASTLING_MASK[from] & CASTLING_MASK[to]);
+		setEnPassantSquare(
+				type == PieceType.PAWN && Math.abs(to - from) == 16 ? (from + to) >>> 1 : Bitboards.NO_SQUARE);
+		halfmoveClock = type == PieceType.PAWN || captured != PieceType.NONE ? 0 : halfmoveClock + 1;
+		sideToMove ^= 1;
+		key ^= Zobrist.blackToMove();
+	}
+
+	/**
+	 * Plays an {@link EncodedMove encoded move} in place; see
+	 * {@link #makeMove(int, int, int)}.
+	 */
+	public void makeMove(int move) {
+		makeMove(EncodedMove.from(move), EncodedMove.to(move), EncodedMove.promotion(move));
+	}
+
+	/**
+	 * Takes back the last move played with {@link #makeMove}.
+	 *
+	 * @throws IllegalStateException
+	 *             if there is no move to take back
+	 */
+	public void unmakeMove() {
+		if (undoCount == 0) {
+			throw new IllegalStateException("No move to unmake");
+		}
+		UndoRecord undo = undoStack[--undoCount];
+		int from = undo.from;
+		int to = undo.to;
+
+		if (PieceType.typeOf(undo.movedPiece) == PieceType.KING
+				&& Math.abs(Bitboards.col(to) - Bitboards.col(from)) == 2) {
+			int rank = Bitboards.row(from);
+			boolean kingside = to > from;
+			int rookFrom = Bitboards.square(rank, kingside ? 7 : 0);
+			int rookTo = Bitboards.square(rank, kingside ? 5 : 3);
+			putPiece(rookFrom, removePiece(rookTo));
+		}
+
+		removePiece(to);
+		putPiece(from, undo.movedPiece);
+		if (undo.capturedPiece != PieceType.NONE) {
+			putPiece(undo.capturedSquare, undo.capturedPiece);
+		}
+
+		castlingRights = undo.castlingRights;
+		enPassantSquare = undo.enPassantSquare;
+		halfmoveClock = undo.halfmoveClock;
+		sideToMove ^= 1;
+		key = undo.key; // Restore rather than undo the XORs one by one
+	}
+
+	/**
+	 * @return the coloured piece captured by the last move (including en
+	 *         passant), or {@link PieceType#NONE}
+	 */
+	public int getLastCapturedPiece() {
+		return undoCount == 0 ? PieceType.NONE : undoStack[undoCount - 1].capturedPiece;
+	}
+
+	/**
+	 * @return the number of moves that can currently be taken back
+	 */
+	public int getUndoDepth() {
+		return undoCount;
+	}
+
+	private void growUndoStack() {
+		int oldLength = undoStack.length;
+		undoStack = Arrays.copyOf(undoStack, oldLength * 2);
+		for (int i = oldLength; i < undoStack.length; i++) {
+			undoStack[i] = new UndoRecord();
+		}
+	}
+
+	/**
+	 * Empties the board and resets the game state. The undo history is discarded.
+	 */
+	public void clear() {
+		Arrays.fill(typeBitboards, 0L);
+		Arrays.fill(sideBitboards, 0L);
+		Arrays.fill(squares, PieceType.NONE);
+		attacks.clear();
+		sideToMove = WHITE;
+		castlingRights = 0;
+		enPassantSquare = Bitboards.NO_SQUARE;
+		halfmoveClock = 0;
+		key = 0L;
+		pawnKey = 0L;
+		middlegameScore = 0;
+		endgameScore = 0;
+		phase = 0;
+		undoCount = 0;
+	}
+
+	/**
+	 * Copies the board and game state of another position. The undo history is
+	 * not copied, so the copy starts with nothing to take back.
+	 */
+	public void copyFrom(Position other) {
+		System.arraycopy(other.typeBitboards, 0, typeBitboards, 0, typeBitboards.length);
+		System.arraycopy(other.sideBitboards, 0, sideBitboards, 0, sideBitboards.length);
+		System.arraycopy(other.squares, 0, squares, 0, squares.length);
+		attacks.copyFrom(other.attacks);
+		sideToMove = other.sideToMove;
+		castlingRights = other.castlingRights;
+		enPassantSquare = other.enPassantSquare;
+		halfmoveClock = other.halfmoveClock;
+		key = other.key;
+		pawnKey = other.pawnKey;
+		middlegameScore = other.middlegameScore;
+		endgameScore = other.endgameScore;
+		phase = other.phase;
+		undoCount = 0;
+	}
+
+	public Position copy() {
+		Position position = new Position();
+		position.copyFrom(this);
+		return position;
+	}
+}
@@ -0,0 +1,27 @@
+package com.ddemott.chessai.bitboard;
+
+/**
+ * {@link EvaluationKernel} in plain Java: visits the set bits of each bitboard
+ * one square at a time.
+ */
+final class ScalarEvaluationKernel implements EvaluationKernel {
+	static final ScalarEvaluationKernel INSTANCE = new ScalarEvaluationKernel();
+
+	private ScalarEvaluationKernel() {
+	}
+
+	@Override
+	public String getName() {
+		return "scalar";
+	}
+
+	@Override
+	public int mobility(Position position, int side) {
+		int[] counts = position.getAttackerCounts(side);
+		int sum = 0;
+		for (long b = position.getAttackedSquares(side) & ~position.getSidePieces(side); b != 0; b &= b - 1) {
+			sum += counts[Long.numberOfTrailingZeros(b)];
+		}
+		return sum;
+	}
+}
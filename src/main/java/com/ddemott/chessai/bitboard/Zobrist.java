@@ -0,0 +1,62 @@
+package com.ddemott.chessai.bitboard;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys for Zobrist hashing. A position's key is the XOR of one key
+ * per (piece, square), the side key when black is to move, the key for the
+ * current castling rights and the key for the en passant file, so a move
+ * updates it with a handful of XORs. The seed is fixed, so keys are the same on
+ * every run.
+ */
+public final class Zobrist {
+	private Zobrist() {
+	} // Prevent instantiation
+
+	private static final long SEED = 0x5EEDC0FFEE15BADL;
+
+	private static final long[][] PIECE_SQUARE = new long[PieceType.CODE_LIMIT][Bitboards.SQUARE_COUNT];
+	private static final long[] CASTLING = new long[Position.ALL_CASTLING + 1];
+	private static final long[] EN_PASSANT_FILE = new long[8];
+	private static final long BLACK_TO_MOVE;
+
+	static {
+		SplittableRandom random = new SplittableRandom(SEED);
+		for (int side = Position.WHITE; side <= Position.BLACK; side++) {
+			for (int type = 0; type < PieceType.COUNT; type++) {
+				long[] keys = PIECE_SQUARE[PieceType.make(side, type)];
+				for (int square = 0; square < Bitboards.SQUARE_COUNT; square++) {
+					keys[square] = random.nextLong();
+				}
+			}
+		}
+		// No rights hashes to zero so an empty position has key 0
+		for (int rights = 1; rights < CASTLING.length; rights++) {
+			CASTLING[rights] = random.nextLong();
+		}
+		for (int file = 0; file < EN_PASSANT_FILE.length; file++) {
+			EN_PASSANT_FILE[file] = random.nextLong();
+		}
+		BLACK_TO_MOVE = random.nextLong();
+	}
+
+	public static long piece(int piece, int square) {
+		return PIECE_SQUARE[piece][square];
+	}
+
+	public static long castling(int rights) {
+		return CASTLING[rights];
+	}
+
+	/**
+	 * @return the key for an en passant square, or 0 for
+	 *         {@link Bitboards#NO_SQUARE}
+	 */
+	public static long enPassant(int square) {
+		return square == Bitboards.NO_SQUARE ? 0L : EN_PASSANT_FILE[Bitboards.col(square)];
+	}
+
+	public static long blackToMove() {
+		return BLACK_TO_MOVE;
+	}
+}
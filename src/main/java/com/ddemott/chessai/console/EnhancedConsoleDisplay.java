@@ -1,7 +1,10 @@
 package com.ddemott.chessai.console;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.ddemott.chessai.Board;
@@ -254,13 +257,24 @@ public class EnhancedConsoleDisplay {
 	}
 
 	/**
-	 * Generate move suggestions for beginners
+	 * Generate move suggestions for beginners, ranked by static exchange
+	 * evaluation
 	 */
 	public List<String> generateMoveSuggestions(String playerColor) {
 		List<String> suggestions = new ArrayList<>();
-		List<String> possibleMoves = gameState.getAllPossibleMoves(playerColor);
+		List<String> possibleMoves = new ArrayList<>(gameState.getAllPossibleMoves(playerColor));
 
-		// Take up to 3 random suggestions
+		// Best exchanges first: winning captures lead, moves that hang material
+		// come last (the sort is stable, so ties keep their generated order)
+		Board board = gameState.getBoard();
+		Map<String, Integer> exchanges = new HashMap<>();
+		for (String move : possibleMoves) {
+			String[] squares = move.split(" ");
+			exchanges.put(move, board.evaluateExchange(squares[0], squares[1]));
+		}
+		possibleMoves.sort(Comparator.comparingInt((String move) -> exchanges.get(move)).reversed());
+
+		// Take up to 3 suggestions
 		int count = Math.min(3, possibleMoves.size());
 		for (int i = 0; i < count; i++) {
 			suggestions.add(possibleMoves.get(i));
@@ -0,0 +1,167 @@
+package com.ddemott.chessai.console;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.ddemott.chessai.bitboard.Fen;
+import com.ddemott.chessai.bitboard.ParallelPerft;
+import com.ddemott.chessai.bitboard.Perft;
+import com.ddemott.chessai.bitboard.PerftCache;
+import com.ddemott.chessai.bitboard.PerftSuite;
+import com.ddemott.chessai.bitboard.Position;
+
+/**
+ * Command line perft runner.
+ * <ul>
+ * <li>{@code PerftConsole [options] <depth> [fen]} prints the leaf count of
+ * every root move (divide), the total and the speed, for the start position or
+ * any FEN.</li>
+ * <li>{@code PerftConsole [options] --suite [depth]} checks every
+ * {@link PerftSuite} position against its published counts up to
+ * {@code depth} (default 4) and exits with status 1 on a mismatch.</li>
+ * </ul>
+ * Options: {@code --threads <n>} counts on a fork/join pool of n threads
+ * ({@link ParallelPerft}), {@code --hash <mb>} caches subtree counts in a
+ * {@link PerftCache} of that size.
+ */
+public class PerftConsole {
+	private static final int DEFAULT_SUITE_DEPTH = 4;
+
+	private final ParallelPerft parallel; // Null when single-threaded
+	private final PerftCache cache; // Null when not caching
+
+	private PerftConsole(int threads, int hashMegabytes) {
+		this.cache = hashMegabytes > 0 ? new PerftCache(hashMegabytes) : null;
+		this.parallel = threads > 1 ? new ParallelPerft(threads, cache) : null;
+	}
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			printUsage();
+			return;
+		}
+		boolean passed = true;
+		try {
+			int threads = 1;
+			int hashMegabytes = 0;
+			boolean suite = false;
+			List<String> positional = new ArrayList<>();
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+					case "--threads" :
+						threads = Integer.parseInt(optionValue(args, ++i));
+						break;
+					case "--hash" :
+						hashMegabytes = Integer.parseInt(optionValue(args, ++i));
+						break;
+					case "--suite" :
+						suite = true;
+						break;
+					default :
+						positional.add(args[i]);
+				}
+			}
+			PerftConsole console = new PerftConsole(threads, hashMegabytes);
+			try {
+				if (suite) {
+					int depth = positional.isEmpty() ? DEFAULT_SUITE_DEPTH : Integer.parseInt(positional.get(0));
+					passed = console.runSuite(depth);
+				} else {
+					if (positional.isEmpty()) {
+						throw new IllegalArgumentException("No depth given");
+					}
+					int depth = Integer.parseInt(positional.get(0));
+					String fen = positional.size() > 1
+							? String.join(" ", positional.subList(1, positional.size()))
+							: Fen.STARTING_POSITION;
+					console.runDivide(fen, depth);
+				}
+			} finally {
+				console.close();
+			}
+		} catch (IllegalArgumentException e) { // Includes NumberFormatException
+			System.out.println("Error: " + e.getMessage());
+			printUsage();
+			System.exit(2);
+		}
+		if (!passed) {
+			System.exit(1);
+		}
+	}
+
+	private void runDivide(String fen, int depth) {
+		Position position = Fen.parse(fen);
+		System.out.println("Perft " + depth + " of " + fen + describeOptions());
+		long start = System.nanoTime();
+		Map<String, Long> counts = parallel != null
+				? parallel.divide(position, depth)
+				: new Perft(position, cache).divide(depth);
+		long nanos = System.nanoTime() - start;
+		long total = 0;
+		for (Map.Entry<String, Long> entry : counts.entrySet()) {
+			System.out.printf("  %-8s %,15d%n", entry.getKey(), entry.getValue());
+			total += entry.getValue();
+		}
+		System.out.printf("Moves: %d%n", counts.size());
+		printTotal(total, nanos);
+	}
+
+	/**
+	 * @return whether every count matched
+	 */
+	private boolean runSuite(int maxDepth) {
+		System.out.println("Perft suite to depth " + maxDepth + describeOptions());
+		boolean allPassed = true;
+		long totalNodes = 0;
+		long totalNanos = 0;
+		for (PerftSuite entry : PerftSuite.values()) {
+			Position position = Fen.parse(entry.getFen());
+			int depthLimit = Math.min(maxDepth, entry.getMaxDepth());
+			for (int depth = 1; depth <= depthLimit; depth++) {
+				long start = System.nanoTime();
+				long nodes = parallel != null ? parallel.perft(position, depth) : new Perft(position, cache).perft(depth);
+				long nanos = System.nanoTime() - start;
+				long expected = entry.getExpected(depth);
+				boolean passed = nodes == expected;
+				allPassed &= passed;
+				totalNodes += nodes;
+				totalNanos += nanos;
+				System.out.printf("%-4s %-15s depth %d %,15d%s%n", passed ? "OK" : "FAIL", entry.getTitle(), depth,
+						nodes, passed ? "" : String.format(" (expected %,d)", expected));
+			}
+		}
+		printTotal(totalNodes, totalNanos);
+		System.out.println(allPassed ? "All counts match." : "Some counts do not match.");
+		return allPassed;
+	}
+
+	private String describeOptions() {
+		String threads = " (" + (parallel != null ? parallel.getThreadCount() : 1) + " thread(s)";
+		return cache != null ? threads + ", hash " + cache.getCapacity() + " entries)" : threads + ")";
+	}
+
+	private void close() {
+		if (parallel != null) {
+			parallel.close();
+		}
+	}
+
+	private static String optionValue(String[] args, int index) {
+		if (index >= args.length) {
+			throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+		}
+		return args[index];
+	}
+
+	private static void printTotal(long nodes, long nanos) {
+		double seconds = nanos / 1e9;
+		System.out.printf("Nodes: %,d in %.3f s (%,.0f nodes/s)%n", nodes, seconds,
+				seconds > 0 ? nodes / seconds : 0.0);
+	}
+
+	private static void printUsage() {
+		System.out.println("Usage: PerftConsole [--threads <n>] [--hash <mb>] <depth> [fen]");
+		System.out.println("       PerftConsole [--threads <n>] [--hash <mb>] --suite [depth]");
+	}
+}
@@ -7,6 +7,10 @@ import com.ddemott.chessai.Side;
 import com.ddemott.chessai.ai.AIStrategy;
 import com.ddemott.chessai.ai.MinMaxStrategy;
 import com.ddemott.chessai.ai.AIDifficulty;
+import com.ddemott.chessai.ai.SearchHandle;
+import com.ddemott.chessai.ai.SearchLimits;
+import com.ddemott.chessai.bitboard.Bitboards;
+import com.ddemott.chessai.bitboard.EncodedMove;
 
 /**
  * Manages the state and logic of the chess game.
@@ -15,20 +19,28 @@ public class GameEngine {
 	private State state;
 	private AIStrategy aiStrategy;
 	private AIDifficulty aiDifficulty;
+	private int searchThreads = 1;
+	private SearchLimits searchLimits; // null searches to the difficulty's depth
 
 	// Original constructor for backward compatibility
 	public GameEngine(int aiDepth) {
 		this.aiDifficulty = AIDifficulty.fromDepth(aiDepth);
 		this.state = new State();
-		this.aiStrategy = new MinMaxStrategy(aiDepth);
+		this.aiStrategy = createStrategy(aiDepth, searchThreads);
 		state.setAIStrategy(aiStrategy);
 	}
 
 	// New constructor with difficulty enum
 	public GameEngine(AIDifficulty difficulty) {
+		this(difficulty, 1);
+	}
+
+	// Constructor with a search thread count (more than one searches in parallel)
+	public GameEngine(AIDifficulty difficulty, int searchThreads) {
 		this.aiDifficulty = difficulty;
+		this.searchThreads = searchThreads;
 		this.state = new State();
-		this.aiStrategy = new MinMaxStrategy(difficulty.getDepth());
+		this.aiStrategy = createStrategy(difficulty.getDepth(), searchThreads);
 		state.setAIStrategy(aiStrategy);
 	}
 
@@ -37,7 +49,7 @@ public class GameEngine {
 		// Start with white difficulty, will be switched during gameplay
 		this.aiDifficulty = whiteDifficulty;
 		this.state = new State();
-		this.aiStrategy = new MinMaxStrategy(whiteDifficulty.getDepth());
+		this.aiStrategy = createStrategy(whiteDifficulty.getDepth(), searchThreads);
 		state.setAIStrategy(aiStrategy);
 	}
 
@@ -69,16 +81,31 @@ public class GameEngine {
 		return new com.ddemott.chessai.ai.MoveResult(0, move);
 	}
 
+	/**
+	 * Starts the AI searching for the side to move in the background. The
+	 * returned handle can stop the search early (e.g. when a player resigns or
+	 * disconnects) and reports the best move found so far. Strategies without a
+	 * background search run synchronously and return a finished handle.
+	 */
+	public SearchHandle startAISearch() {
+		return startAISearch(0);
+	}
+
+	/**
+	 * Like {@link #startAISearch()}, but the search stops with its best move so
+	 * far after at most the given number of milliseconds.
+	 */
+	public SearchHandle startAISearch(long hardDeadlineMillis) {
+		return state.getAIStrategy().startSearch(state, state.getCurrentTurnSide(), hardDeadlineMillis);
+	}
+
 	public void makeAIMove() {
-		String aiMove = getBestMove();
-		if (aiMove != null) {
-			String[] aiPositions = aiMove.split(" ");
-			if (aiPositions.length == 2 || aiPositions.length == 3) {
-				String promotion = aiPositions.length == 3 ? aiPositions[2] : null;
-				boolean moveSuccess = movePiece(aiPositions[0], aiPositions[1], promotion);
-				if (!moveSuccess) {
-					// Log error internally or throw exception. For now, silence.
-				}
+		int aiMove = state.getAIStrategy().calculateBestEncodedMove(state, state.getCurrentTurnSide());
+		if (aiMove != EncodedMove.NONE) {
+			boolean moveSuccess = movePiece(Bitboards.squareName(EncodedMove.from(aiMove)),
+					Bitboards.squareName(EncodedMove.to(aiMove)), EncodedMove.promotionSymbol(aiMove));
+			if (!moveSuccess) {
+				// Log error internally or throw exception. For now, silence.
 			}
 		}
 	}
@@ -128,6 +155,32 @@ public class GameEngine {
 		return state.getMoveHistory().saveToPGNFile(filename, whitePlayer, blackPlayer, result);
 	}
 
+	/**
+	 * Start the game from a FEN position, keeping the AI settings
+	 * 
+	 * @param fen
+	 *            The position in Forsyth–Edwards Notation
+	 * @return true if loaded, false if the FEN is invalid (the current game is
+	 *         then kept)
+	 */
+	public boolean loadGameFromFEN(String fen) {
+		try {
+			State loaded = State.fromFEN(fen);
+			loaded.setAIStrategy(aiStrategy);
+			this.state = loaded;
+			return true;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return the current position in Forsyth–Edwards Notation
+	 */
+	public String getFEN() {
+		return state.toFEN();
+	}
+
 	/**
 	 * Load a game from a PGN file
 	 * 
@@ -258,8 +311,64 @@ public class GameEngine {
 	 * Change AI difficulty during gameplay
 	 */
 	public void setAIDifficulty(AIDifficulty difficulty) {
+		AIStrategy strategy = createStrategy(difficulty.getDepth(), searchThreads);
 		this.aiDifficulty = difficulty;
-		this.aiStrategy = new MinMaxStrategy(difficulty.getDepth());
-		state.setAIStrategy(aiStrategy);
+		replaceStrategy(strategy);
+	}
+
+	/**
+	 * Get the number of threads the AI searches with
+	 */
+	public int getSearchThreads() {
+		return searchThreads;
+	}
+
+	/**
+	 * Change the number of AI search threads; more than one enables parallel
+	 * (Lazy SMP) search
+	 */
+	public void setSearchThreads(int searchThreads) {
+		if (searchThreads < 1) {
+			throw new IllegalArgumentException("Search needs at least one thread: " + searchThreads);
+		}
+		AIStrategy strategy = createStrategy(aiDifficulty.getDepth(), searchThreads);
+		this.searchThreads = searchThreads;
+		replaceStrategy(strategy);
+	}
+
+	/**
+	 * Get the AI time control, or null when it searches to the difficulty's depth
+	 */
+	public SearchLimits getSearchLimits() {
+		return searchLimits;
+	}
+
+	/**
+	 * Give the AI a time budget per move (e.g. {@link SearchLimits#moveTime} or
+	 * {@link SearchLimits#clock}); null goes back to searching to the
+	 * difficulty's depth
+	 */
+	public void setSearchLimits(SearchLimits searchLimits) {
+		this.searchLimits = searchLimits;
+		if (aiStrategy instanceof MinMaxStrategy) {
+			// Keep the existing strategy (and its transposition table) between moves
+			((MinMaxStrategy) aiStrategy).setSearchLimits(
+					searchLimits != null ? searchLimits : SearchLimits.depth(aiDifficulty.getDepth()));
+		}
+	}
+
+	// Closes the old strategy so its search threads do not outlive it
+	private void replaceStrategy(AIStrategy strategy) {
+		aiStrategy.close();
+		this.aiStrategy = strategy;
+		state.setAIStrategy(strategy);
+	}
+
+	private AIStrategy createStrategy(int depth, int threads) {
+		MinMaxStrategy strategy = new MinMaxStrategy(depth, threads);
+		if (searchLimits != null) {
+			strategy.setSearchLimits(searchLimits);
+		}
+		return strategy;
 	}
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import java.util.List;
 import com.ddemott.chessai.Board;
 import com.ddemott.chessai.GameConstants;
 import com.ddemott.chessai.Side;
+import com.ddemott.chessai.bitboard.Bitboards;
 
 public class Bishop extends Piece {
 
@@ -80,32 +81,10 @@ public class Bishop extends Piece {
 
 	@Override
 	public List<String> getAllPossibleMoves(Board board) {
-		List<String> possibleMoves = new ArrayList<>();
-		String currentPosition = getPosition();
-		int[] currentCoords = board.convertPositionToCoordinates(currentPosition);
-
-		int[][] directions = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
-
-		for (int[] direction : directions) {
-			int row = currentCoords[0];
-			int col = currentCoords[1];
-			while (true) {
-				row += direction[0];
-				col += direction[1];
-				if (row >= 0 && row < 8 && col >= 0 && col < 8) {
-					String newPosition = board.convertCoordinatesToPosition(row, col);
-					if (isValidMove(newPosition, board)) {
-						possibleMoves.add(currentPosition + " " + newPosition);
-						if (board.getPieceAt(newPosition) != null)
-							break;
-					} else {
-						break;
-					}
-				} else {
-					break;
-				}
-			}
+		int square = Bitboards.squareOf(getPosition());
+		if (square == Bitboards.NO_SQUARE) {
+			return new ArrayList<>();
 		}
-		return possibleMoves;
+		return movesTo(targets(board, Bitboards.bishopAttacks(square, board.getPosition().getOccupancy())));
 	}
 }
\ No newline at end of file
@@ -6,6 +6,8 @@ import java.util.List;
 import com.ddemott.chessai.Board;
 import com.ddemott.chessai.GameConstants;
 import com.ddemott.chessai.Side;
+import com.ddemott.chessai.bitboard.Bitboards;
+import com.ddemott.chessai.bitboard.Position;
 
 public class King extends Piece {
 
@@ -40,26 +42,14 @@ public class King extends Piece {
 			if (dest != null && dest.getSide() == side) {
 				return false;
 			}
-			// Prevent moving into check - simulate the move on a cloned board (to handle
-			// captures correctly)
-			String destSquare = newPosition;
-			try {
-				Board clonedBoard = board.clone();
-				IPiece clonedKing = clonedBoard.getPieceAt(currentPosition);
-				if (clonedKing != null) {
-					clonedKing.setPosition(destSquare);
-					clonedBoard.setPieceAt(destSquare, clonedKing);
-					clonedBoard.setPieceAt(currentPosition, null);
-					if (clonedBoard.isSquareUnderAttack(destSquare, side.toString())) {
-						return false;
-					}
-				} else {
-					// Fallback - if we can't simulate, be conservative and disallow
-					if (board.isSquareUnderAttack(destSquare, side.toString())) {
-						return false;
-					}
-				}
-			} catch (NullPointerException e) {
+			// Prevent moving into check, looking through the king's current square so
+			// it cannot retreat along a checking line
+			Position bitboards = board.getPosition();
+			int from = Bitboards.squareOf(currentPosition);
+			int to = Bitboards.squareOf(newPosition);
+			long occupied = bitboards.getOccupancy() & ~Bitboards.bit(from);
+			long attackers = bitboards.attackersTo(to, occupied) & bitboards.getSidePieces(side.flip().ordinal());
+			if (attackers != 0) {
 				return false;
 			}
 			return true;
@@ -1,7 +1,11 @@
 package com.ddemott.chessai.pieces;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.ddemott.chessai.Board;
 import com.ddemott.chessai.Side;
+import com.ddemott.chessai.bitboard.Bitboards;
 
 public abstract class Piece implements IPiece {
 	protected Side side;
@@ -69,4 +73,24 @@ public abstract class Piece implements IPiece {
 
 	@Override
 	public abstract char getSymbol();
-}
\ No newline at end of file
+
+	/**
+	 * @return "from to" strings from this piece's square to every square in
+	 *         {@code targets}, in square order
+	 */
+	protected List<String> movesTo(long targets) {
+		List<String> moves = new ArrayList<>(Long.bitCount(targets));
+		for (long b = targets; b != 0; b &= b - 1) {
+			moves.add(position + " " + Bitboards.squareName(Long.numberOfTrailingZeros(b)));
+		}
+		return moves;
+	}
+
+	/**
+	 * @return the squares this piece may move to given its attack set: the
+	 *         attacked squares not holding a piece of its own side
+	 */
+	protected long targets(Board board, long attacks) {
+		return attacks & ~board.getPosition().getSidePieces(side.ordinal());
+	}
+}
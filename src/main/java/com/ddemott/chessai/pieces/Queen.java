@@ -3,6 +3,7 @@ package com.ddemott.chessai.pieces;
 import com.ddemott.chessai.Board;
 import com.ddemott.chessai.GameConstants;
 import com.ddemott.chessai.Side;
+import com.ddemott.chessai.bitboard.Bitboards;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -56,32 +57,11 @@ public class Queen extends Piece {
 
 	@Override
 	public List<String> getAllPossibleMoves(Board board) {
-		List<String> possibleMoves = new ArrayList<>();
-		String currentPosition = getPosition();
-		int[] currentCoords = board.convertPositionToCoordinates(currentPosition);
-
-		int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
-
-		for (int[] direction : directions) {
-			int row = currentCoords[0];
-			int col = currentCoords[1];
-			while (true) {
-				row += direction[0];
-				col += direction[1];
-				if (row >= 0 && row < 8 && col >= 0 && col < 8) {
-					String newPosition = board.convertCoordinatesToPosition(row, col);
-					if (isValidMove(newPosition, board)) {
-						possibleMoves.add(currentPosition + " " + newPosition);
-					} else {
-						break;
-					}
-				} else {
-					break;
-				}
-			}
+		int square = Bitboards.squareOf(getPosition());
+		if (square == Bitboards.NO_SQUARE) {
+			return new ArrayList<>();
 		}
-
-		return possibleMoves;
+		return movesTo(targets(board, Bitboards.queenAttacks(square, board.getPosition().getOccupancy())));
 	}
 
 	@Override
@@ -0,0 +1,92 @@
+package com.ddemott.chessai;
+
+import com.ddemott.chessai.bitboard.Bitboards;
+import com.ddemott.chessai.bitboard.PieceType;
+import com.ddemott.chessai.bitboard.Position;
+import com.ddemott.chessai.pieces.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the bitboard mirror inside Board always matches the IPiece
+ * array, whichever API was used to change the board.
+ */
+class BoardBitboardSyncTest {
+
+	private static void assertInSync(Board board) {
+		Position position = board.getPosition();
+		IPiece[][] arr = board.getBoardArray();
+		for (int row = 0; row < 8; row++) {
+			for (int col = 0; col < 8; col++) {
+				IPiece piece = arr[row][col];
+				int code = position.getPiece(Bitboards.square(row, col));
+				String square = board.convertCoordinatesToPosition(row, col);
+				if (piece == null) {
+					assertEquals(PieceType.NONE, code, "Expected empty bitboard square at " + square);
+				} else {
+					int expected = PieceType.make(piece.getSide().ordinal(), PieceType.fromSymbol(piece.getSymbol()));
+					assertEquals(expected, code, "Bitboard mismatch at " + square);
+				}
+			}
+		}
+	}
+
+	@Test
+	void testInitialPositionInSync() {
+		Board board = new Board();
+		assertInSync(board);
+		assertEquals(32, Bitboards.count(board.getPosition().getOccupancy()));
+		assertEquals(8, Bitboards.count(board.getPosition().getPieces(Position.WHITE, PieceType.PAWN)));
+	}
+
+	@Test
+	void testMovesKeepMirrorInSync() {
+		State state = new State();
+		String[][] moves = {{"e2", "e4"}, {"d7", "d5"}, {"e4", "d5"}, {"g8", "f6"}, {"g1", "f3"}, {"e7", "e5"},
+				{"d5", "e6"}, {"f8", "c5"}, {"f1", "c4"}, {"e8", "g8"}};
+		for (String[] move : moves) {
+			assertTrue(state.movePiece(move[0], move[1]), "Move should succeed: " + move[0] + "-" + move[1]);
+			assertInSync(state.getBoard());
+		}
+		// En passant removed the d5 pawn's victim on e5, castling moved the rook
+		assertNull(state.getBoard().getPieceAt("e5"));
+		assertTrue(state.getBoard().getPieceAt("f8") instanceof Rook);
+	}
+
+	@Test
+	void testPromotionCloneAndClearInSync() {
+		Board board = new Board();
+		board.clearBoard();
+		assertEquals(0L, board.getPosition().getOccupancy());
+		board.setPieceAt("e1", new King(Side.WHITE, "e1"));
+		board.setPieceAt("h8", new King(Side.BLACK, "h8"));
+		board.setPieceAt("a7", new Pawn(Side.WHITE, "a7"));
+		assertTrue(board.movePiece("a7", "a8", "Q"));
+		assertInSync(board);
+
+		Board copy = board.clone();
+		assertInSync(copy);
+		copy.setPieceAt("a8", null);
+		assertInSync(copy);
+		assertTrue(board.getPieceAt("a8") instanceof Queen);
+		assertEquals(PieceType.make(Position.WHITE, PieceType.QUEEN),
+				board.getPosition().getPiece(Bitboards.squareOf("a8")));
+	}
+
+	@Test
+	void testAttackQueriesUseMirror() {
+		Board board = new Board();
+		board.clearBoard();
+		board.setPieceAt("e1", new King(Side.WHITE, "e1"));
+		board.setPieceAt("e8", new King(Side.BLACK, "e8"));
+		board.setPieceAt("b4", new Bishop(Side.BLACK, "b4"));
+		assertTrue(board.isKingInCheck(Side.WHITE));
+		board.setPieceAt("d2", new Pawn(Side.WHITE, "d2"));
+		assertFalse(board.isKingInCheck(Side.WHITE));
+		// The pawn attacks both diagonals even when they are empty
+		assertTrue(board.isSquareUnderAttack("c3", Side.BLACK));
+		assertTrue(board.isSquareUnderAttack("e3", Side.BLACK));
+		assertFalse(board.isSquareUnderAttack("d3", Side.BLACK));
+		assertEquals("e1", board.findKingPosition(Side.WHITE));
+	}
+}
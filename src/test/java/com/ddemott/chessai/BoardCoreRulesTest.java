@@ -153,10 +153,8 @@ public class BoardCoreRulesTest {
 		for (int i = 0; i < sequence.length; i += 2) {
 			String from = sequence[i];
 			String to = sequence[i + 1];
+			// Each move records the position's Zobrist key for repetition checking
 			engine.movePiece(from, to);
-
-			// Record position in move history for repetition checking
-			engine.getGameState().getMoveHistory().addPosition(engine.getGameState().getBoard().toFEN());
 		}
 
 		assertTrue(engine.getGameState().isThreefoldRepetition(), "Position should be repeated three times");
@@ -0,0 +1,136 @@
+package com.ddemott.chessai;
+
+import java.util.List;
+
+import com.ddemott.chessai.bitboard.Bitboards;
+import com.ddemott.chessai.bitboard.Position;
+import com.ddemott.chessai.pieces.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the in-place make/unmake API used by search.
+ */
+class BoardMakeUnmakeTest {
+
+	@Test
+	void testMakeUnmakeRestoresEveryGeneratedMove() {
+		State state = new State();
+		String[][] opening = {{"e2", "e4"}, {"d7", "d5"}, {"e4", "e5"}, {"f7", "f5"}, {"g1", "f3"}, {"g8", "f6"},
+				{"f1", "e2"}, {"b8", "c6"}};
+		for (String[] move : opening) {
+			assertTrue(state.movePiece(move[0], move[1]));
+		}
+		Board board = state.getBoard();
+		String fen = board.toFEN();
+		String enPassant = board.getEnPassantTarget();
+		int castling = board.getPosition().getCastlingRights();
+
+		List<String> moves = board.getAllPossibleMoves(Side.WHITE);
+		assertFalse(moves.isEmpty());
+		for (String move : moves) {
+			String[] parts = move.split(" ");
+			state.makeMove(parts[0], parts[1], parts.length == 3 ? parts[2] : null);
+			state.unmakeMove();
+			assertEquals(fen, board.toFEN(), "Board changed after make/unmake of " + move);
+			assertEquals(enPassant, board.getEnPassantTarget());
+			assertEquals(castling, board.getPosition().getCastlingRights());
+			assertEquals(Side.WHITE, state.getCurrentTurnSide());
+		}
+	}
+
+	@Test
+	void testEnPassantMakeUnmake() {
+		State state = new State();
+		String[][] moves = {{"e2", "e4"}, {"a7", "a6"}, {"e4", "e5"}, {"d7", "d5"}};
+		for (String[] move : moves) {
+			assertTrue(state.movePiece(move[0], move[1]));
+		}
+		Board board = state.getBoard();
+		assertEquals("d6", board.getEnPassantTarget());
+		IPiece victim = board.getPieceAt("d5");
+
+		state.makeMove("e5", "d6", null);
+		assertNull(board.getPieceAt("d5"));
+		assertTrue(board.getPieceAt("d6") instanceof Pawn);
+		assertTrue(board.getCapturedPieces("Black").contains(victim));
+
+		state.unmakeMove();
+		assertSame(victim, board.getPieceAt("d5"));
+		assertEquals("d5", victim.getPosition());
+		assertNull(board.getPieceAt("d6"));
+		assertEquals("d6", board.getEnPassantTarget());
+		assertTrue(board.getCapturedPieces("Black").isEmpty());
+	}
+
+	@Test
+	void testCastlingMakeUnmakeRestoresHasMoved() {
+		Board board = new Board();
+		board.clearBoard();
+		King king = new King(Side.WHITE, "e1");
+		Rook rook = new Rook(Side.WHITE, "h1");
+		board.setPieceAt("e1", king);
+		board.setPieceAt("h1", rook);
+		board.setPieceAt("e8", new King(Side.BLACK, "e8"));
+		assertEquals(Position.WHITE_KINGSIDE, board.getPosition().getCastlingRights());
+
+		board.makeMove("e1", "g1", null);
+		assertSame(rook, board.getPieceAt("f1"));
+		assertTrue(king.hasMoved());
+		assertTrue(rook.hasMoved());
+		assertEquals(0, board.getPosition().getCastlingRights());
+
+		board.unmakeMove();
+		assertSame(king, board.getPieceAt("e1"));
+		assertSame(rook, board.getPieceAt("h1"));
+		assertFalse(king.hasMoved());
+		assertFalse(rook.hasMoved());
+		assertEquals(Position.WHITE_KINGSIDE, board.getPosition().getCastlingRights());
+	}
+
+	@Test
+	void testPromotionMakeUnmakeKeepsHistoryAndClock() {
+		State state = new State();
+		Board board = state.getBoard();
+		board.clearBoard();
+		board.setPieceAt("e1", new King(Side.WHITE, "e1"));
+		board.setPieceAt("h8", new King(Side.BLACK, "h8"));
+		Pawn pawn = new Pawn(Side.WHITE, "a7");
+		board.setPieceAt("a7", pawn);
+		board.getPosition().setHalfmoveClock(5);
+		int positions = state.getMoveHistory().getPositionKeyCount();
+
+		state.makeMove("a7", "a8", "Q");
+		assertTrue(board.getPieceAt("a8") instanceof Queen);
+		assertEquals(0, state.getMoveHistory().getHalfmoveClock());
+		assertEquals(positions + 1, state.getMoveHistory().getPositionKeyCount());
+		assertEquals(Position.BLACK, board.getPosition().getSideToMove());
+
+		state.unmakeMove();
+		assertSame(pawn, board.getPieceAt("a7"));
+		assertNull(board.getPieceAt("a8"));
+		assertEquals(5, state.getMoveHistory().getHalfmoveClock());
+		assertEquals(positions, state.getMoveHistory().getPositionKeyCount());
+		assertEquals(Bitboards.NO_SQUARE, board.getPosition().getEnPassantSquare());
+	}
+
+	@Test
+	void testZobristKeyTracksTranspositions() {
+		State state = new State();
+		long start = state.getZobristKey();
+		assertEquals(state.getBoard().getPosition().computeKey(), start);
+
+		String[][] knightDance = {{"g1", "f3"}, {"g8", "f6"}, {"f3", "g1"}, {"f6", "g8"}};
+		for (String[] move : knightDance) {
+			assertTrue(state.movePiece(move[0], move[1]));
+			assertEquals(state.getBoard().getPosition().computeKey(), state.getZobristKey());
+		}
+		// Same pieces and side to move, and knight moves do not touch castling rights
+		assertEquals(start, state.getZobristKey());
+		assertFalse(state.isThreefoldRepetition());
+
+		// The same placement with the other side to move is a different position
+		state.setCurrentTurn(Side.BLACK);
+		assertNotEquals(start, state.getZobristKey());
+	}
+}
@@ -0,0 +1,97 @@
+package com.ddemott.chessai;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ddemott.chessai.ai.MinMaxStrategy;
+
+class EvaluationCacheTest {
+
+	@Test
+	void testProbeAndStore() {
+		EvaluationCache cache = new EvaluationCache(1);
+		assertEquals(1, Integer.bitCount(cache.getCapacity()));
+		long key = 0x1234_5678_9ABCL;
+		assertEquals(EvaluationCache.MISS, cache.probe(key, Side.WHITE));
+
+		cache.store(key, Side.WHITE, -4321);
+		cache.store(key, Side.BLACK, 17);
+		assertEquals(-4321, cache.probe(key, Side.WHITE));
+		assertEquals(17, cache.probe(key, Side.BLACK));
+		assertEquals(EvaluationCache.MISS, cache.probe(key + cache.getCapacity(), Side.WHITE));
+		assertEquals(2, cache.getHits());
+		assertEquals(2, cache.getMisses());
+		assertEquals(0.5, cache.getHitRate(), 1e-9);
+
+		cache.clear();
+		assertEquals(EvaluationCache.MISS, cache.probe(key, Side.WHITE));
+		assertEquals(0, cache.getHits());
+	}
+
+	@Test
+	void testEvaluationConsultsCache() {
+		EvaluationCache cache = new EvaluationCache(1);
+		Evaluation evaluation = new Evaluation(cache);
+		State state = new State();
+		assertTrue(state.movePiece("e2", "e4"));
+		Board board = state.getBoard();
+		int score = evaluation.evaluateBoard(board, Side.BLACK);
+		assertEquals(0, cache.getHits());
+		assertEquals(score, evaluation.evaluateBoard(board, Side.BLACK));
+		assertEquals(1, cache.getHits());
+		assertEquals(score, new Evaluation(new EvaluationCache(1)).evaluateBoard(board, Side.BLACK));
+	}
+
+	@Test
+	void testConcurrentWritersNeverProduceTornEntries() throws InterruptedException {
+		// A small table so threads constantly overwrite each other's slots
+		EvaluationCache cache = new EvaluationCache(1);
+		long[] keys = new long[cache.getCapacity() * 4];
+		SplittableRandom random = new SplittableRandom(42);
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = random.nextLong();
+		}
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicLong corrupt = new AtomicLong();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			int seed = t;
+			threads[t] = new Thread(() -> {
+				SplittableRandom local = new SplittableRandom(seed);
+				while (running.get()) {
+					long key = keys[local.nextInt(keys.length)];
+					// The score is derived from the key, so a mixed entry is detectable
+					if (local.nextBoolean()) {
+						cache.store(key, Side.WHITE, (int) (key >>> 32));
+					} else {
+						long score = cache.probe(key, Side.WHITE);
+						if (score != EvaluationCache.MISS && score != (int) (key >>> 32)) {
+							corrupt.incrementAndGet();
+						}
+					}
+				}
+			});
+			threads[t].start();
+		}
+		Thread.sleep(300);
+		running.set(false);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(0, corrupt.get());
+		assertTrue(cache.getHits() > 0);
+	}
+
+	@Test
+	void testSearchThreadsShareCache() {
+		MinMaxStrategy strategy = new MinMaxStrategy(3, 2);
+		strategy.calculateBestMove(new State(), "White");
+		EvaluationCache cache = strategy.getEvaluationCache();
+		assertTrue(cache.getHits() > 0);
+		assertTrue(cache.getMisses() > 0);
+	}
+}
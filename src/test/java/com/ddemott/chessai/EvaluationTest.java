@@ -219,4 +219,91 @@ class EvaluationTest {
 		int score = eval.evaluateBoard(board, Side.WHITE);
 		assertTrue(score >= 0);
 	}
+
+	@Test
+	void testKingCentralisesInPawnEnding() {
+		Evaluation eval = new Evaluation();
+		int[] scores = new int[2];
+		String[] kingSquares = {"h1", "e4"};
+		for (int i = 0; i < 2; i++) {
+			Board board = new Board();
+			board.clearBoard();
+			board.setPieceAt(kingSquares[i], new King("White", kingSquares[i]));
+			board.setPieceAt("e8", new King("Black", "e8"));
+			board.setPieceAt("a2", new com.ddemott.chessai.pieces.Pawn("White", "a2"));
+			board.setPieceAt("h7", new com.ddemott.chessai.pieces.Pawn("Black", "h7"));
+			scores[i] = eval.evaluateBoard(board, Side.WHITE);
+		}
+		// Without pieces the centre penalty no longer applies and the king belongs in the middle
+		assertTrue(scores[1] > scores[0], "e4 " + scores[1] + " vs h1 " + scores[0]);
+	}
+
+	@Test
+	void testEvaluationIsAntisymmetric() {
+		// Negamax relies on the score for one side being minus the other's, also
+		// when only one king is castled behind its pawns
+		String[] fens = {"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+				"r1bq1rk1/pppp1ppp/2n2n2/2b1p3/2B1P3/2N2N2/PPPP1PPP/R1BQK2R w KQ - 6 5",
+				"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+				"6k1/5ppp/8/8/8/8/3q1PPP/6K1 w - - 0 1"};
+		for (String fen : fens) {
+			Board board = State.fromFEN(fen).getBoard();
+			assertEquals(-new Evaluation().evaluateBoard(board, Side.WHITE),
+					new Evaluation().evaluateBoard(board, Side.BLACK), fen);
+		}
+	}
+
+	@Test
+	void testLazyEvaluationStaysOnTheRightSideOfTheWindow() {
+		String[] fens = {"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+				"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+				"4k3/8/8/8/8/8/4P3/R3K2R b KQ - 0 1", "6k1/5ppp/8/8/8/8/3q1PPP/6K1 w - - 0 1"};
+		int[][] windows = {{-2000, -1500}, {-400, -350}, {-50, 50}, {350, 400}, {1500, 2000}};
+		for (String fen : fens) {
+			Board board = State.fromFEN(fen).getBoard();
+			for (Side side : Side.values()) {
+				int exact = new Evaluation().evaluateBoard(board, side);
+				for (int[] window : windows) {
+					int alpha = window[0];
+					int beta = window[1];
+					// A fresh evaluator, so the exact score is not simply read from its cache
+					int lazy = new Evaluation().evaluateBoard(board, side, alpha, beta);
+					String context = fen + " " + side + " (" + alpha + ", " + beta + ")";
+					if (lazy <= alpha) {
+						assertTrue(exact <= lazy, context);
+					} else if (lazy >= beta) {
+						assertTrue(exact >= lazy, context);
+					} else {
+						assertEquals(exact, lazy, context);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void testLazyEvaluationSkipsFarOutsideWindow() {
+		Board board = State.fromFEN("6k1/5ppp/8/8/8/8/3Q1PPP/6K1 w - - 0 1").getBoard();
+		Evaluation eval = new Evaluation();
+		int exact = new Evaluation().evaluateBoard(board, Side.WHITE);
+		int lazy = eval.evaluateBoard(board, Side.WHITE, -100, 100);
+		assertTrue(lazy >= 100 && lazy <= exact + Evaluation.LAZY_MARGIN, lazy + " vs " + exact);
+		// A skipped evaluation returns a bound rather than the exact score, and
+		// does not cache it
+		assertNotEquals(exact, lazy);
+		assertEquals(EvaluationCache.MISS, eval.getCache().probe(board.getZobristKey(), Side.WHITE));
+		// Bounds are not cached, so a full evaluation afterwards is still exact
+		assertEquals(exact, eval.evaluateBoard(board, Side.WHITE));
+		assertEquals(exact, eval.evaluateBoard(board, Side.WHITE, -100, 100));
+	}
+
+	@Test
+	void testEvaluationDoesNotScoreCheckmate() {
+		// Black is mated, but the static evaluation only counts the extra rook;
+		// mates are for the search to find
+		Board board = State.fromFEN("4R1k1/5ppp/8/8/8/8/5PPP/6K1 b - - 1 1").getBoard();
+		int score = new Evaluation().evaluateBoard(board, Side.WHITE);
+		assertTrue(score > 0 && score < 2 * GameConstants.ROOK_VALUE, "score " + score);
+		assertEquals(-score, new Evaluation().evaluateBoard(board, Side.BLACK));
+	}
 }
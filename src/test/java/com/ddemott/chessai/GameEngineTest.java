@@ -24,6 +24,20 @@ public class GameEngineTest {
 		assertEquals("Black", engine.getCurrentTurn(), "Turn should switch to Black after White moves");
 	}
 
+	@Test
+	void testLoadGameFromFEN() {
+		GameEngine engine = new GameEngine(2);
+		// Scholar's mate is on the board: Qxf7#
+		String fen = "r1bqkbnr/pppp1ppp/2n5/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 4 4";
+		assertTrue(engine.loadGameFromFEN(fen));
+		assertEquals(fen, engine.getFEN());
+		assertEquals("White", engine.getCurrentTurn());
+		assertEquals("h5 f7", engine.getBestMove(), "The search should start from the loaded position");
+
+		assertFalse(engine.loadGameFromFEN("invalid"));
+		assertEquals(fen, engine.getFEN(), "An invalid FEN keeps the current game");
+	}
+
 	@Test
 	void testAIMoveGenerationAndExecution() {
 		GameEngine engine = new GameEngine(3);
@@ -0,0 +1,85 @@
+package com.ddemott.chessai;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.ddemott.chessai.bitboard.Fen;
+import com.ddemott.chessai.bitboard.PerftSuite;
+
+class StateFENTest {
+
+	@Test
+	void testStartingPosition() {
+		assertEquals(Fen.STARTING_POSITION, new State().toFEN());
+		assertEquals(Fen.STARTING_POSITION, State.fromFEN(Fen.STARTING_POSITION).toFEN());
+	}
+
+	@Test
+	void testFieldsFollowTheGame() {
+		State state = new State();
+		assertTrue(state.movePiece("e2", "e4"));
+		assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", state.toFEN());
+		assertTrue(state.movePiece("e7", "e5"));
+		assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 2", state.toFEN());
+		assertTrue(state.movePiece("g1", "f3"));
+		assertTrue(state.movePiece("b8", "c6"));
+		assertTrue(state.movePiece("h1", "g1"));
+		assertEquals("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKBR1 b Qkq - 3 3", state.toFEN());
+	}
+
+	@Test
+	void testReferencePositionsRoundTrip() {
+		for (PerftSuite entry : PerftSuite.values()) {
+			State state = State.fromFEN(entry.getFen());
+			assertEquals(entry.getFen(), state.toFEN(), entry.getTitle());
+			assertEquals(state.getBoard().getPosition().computeKey(), state.getZobristKey());
+		}
+	}
+
+	@Test
+	void testCastlingRightsSetHasMovedFlags() {
+		State state = State.fromFEN("r3k2r/8/8/8/8/8/8/R3K2R w Kq - 0 1");
+		Board board = state.getBoard();
+		assertFalse(board.getPieceAt("e1").hasMoved());
+		assertFalse(board.getPieceAt("h1").hasMoved());
+		assertTrue(board.getPieceAt("a1").hasMoved());
+		assertFalse(board.getPieceAt("a8").hasMoved());
+		assertTrue(board.getPieceAt("h8").hasMoved());
+
+		assertFalse(state.movePiece("e1", "c1"), "Queenside castling right was not given");
+		assertTrue(state.movePiece("e1", "g1"));
+		assertEquals("r3k2r/8/8/8/8/8/8/R4RK1 b q - 1 1", state.toFEN());
+	}
+
+	@Test
+	void testEnPassantSquareAndSideToMove() {
+		State state = State.fromFEN("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3");
+		assertEquals(Side.WHITE, state.getCurrentTurnSide());
+		assertEquals("f6", state.getBoard().getEnPassantTarget());
+		assertTrue(state.movePiece("e5", "f6"));
+		assertNull(state.getBoard().getPieceAt("f5"));
+		assertEquals("rnbqkbnr/ppp1p1pp/5P2/3p4/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 3", state.toFEN());
+	}
+
+	@Test
+	void testClocks() {
+		State state = State.fromFEN("4k3/8/8/8/8/8/8/4K2R b K - 99 60");
+		assertEquals(Side.BLACK, state.getCurrentTurnSide());
+		assertEquals(99, state.getMoveHistory().getHalfmoveClock());
+		assertFalse(state.isFiftyMoveRule());
+		assertTrue(state.movePiece("e8", "d8"));
+		assertTrue(state.isFiftyMoveRule());
+		assertEquals("3k4/8/8/8/8/8/8/4K2R w K - 100 61", state.toFEN());
+
+		// Clocks may be left out
+		assertEquals("4k3/8/8/8/8/8/8/4K3 w - - 0 1", State.fromFEN("4k3/8/8/8/8/8/8/4K3 w - -").toFEN());
+	}
+
+	@Test
+	void testInvalidFen() {
+		assertThrows(IllegalArgumentException.class, () -> State.fromFEN("not a fen"));
+		assertThrows(IllegalArgumentException.class,
+				() -> State.fromFEN("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBN w KQkq - 0 1"));
+	}
+}
@@ -0,0 +1,33 @@
+package com.ddemott.chessai.ai;
+
+import com.ddemott.chessai.State;
+
+/**
+ * The positions the search benchmarks run on, reached by playing a few openings
+ * from the start position.
+ */
+final class BenchmarkPositions {
+	private BenchmarkPositions() {
+	} // Prevent instantiation
+
+	private static final String[][][] OPENINGS = {
+			{},
+			{{"e2", "e4"}, {"e7", "e5"}, {"g1", "f3"}, {"b8", "c6"}, {"f1", "b5"}},
+			{{"d2", "d4"}, {"d7", "d5"}, {"c2", "c4"}, {"e7", "e6"}, {"b1", "c3"}, {"g8", "f6"}},
+			{{"e2", "e4"}, {"c7", "c5"}, {"g1", "f3"}, {"d7", "d6"}, {"d2", "d4"}, {"c5", "d4"}, {"f3", "d4"}}};
+
+	static int count() {
+		return OPENINGS.length;
+	}
+
+	/**
+	 * @return a new state with the opening of that index played
+	 */
+	static State get(int index) {
+		State state = new State();
+		for (String[] move : OPENINGS[index]) {
+			state.movePiece(move[0], move[1]);
+		}
+		return state;
+	}
+}
@@ -0,0 +1,77 @@
+package com.ddemott.chessai.ai;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ddemott.chessai.Side;
+import com.ddemott.chessai.State;
+import com.ddemott.chessai.bitboard.EncodedMove;
+import com.ddemott.chessai.engine.GameEngine;
+
+class IterativeDeepeningTest {
+
+	@Test
+	void testTimeBudgets() {
+		assertFalse(SearchLimits.depth(4).isTimed());
+		assertEquals(0, SearchLimits.depth(4).getTimeBudgetMillis());
+		assertEquals(250, SearchLimits.moveTime(250).getTimeBudgetMillis());
+		assertEquals(SearchLimits.MAX_DEPTH, SearchLimits.moveTime(250).getDepth());
+
+		// A thirtieth of the clock plus three quarters of the increment
+		assertEquals(60_000 / 30 + 1500, SearchLimits.clock(60_000, 2000).getTimeBudgetMillis());
+		// Never more than the clock minus the safety margin
+		assertEquals(1, SearchLimits.clock(40, 0).getTimeBudgetMillis());
+		assertEquals(950, SearchLimits.clock(1000, 5000).getTimeBudgetMillis());
+
+		assertEquals(3, SearchLimits.moveTime(100).withDepth(3).getDepth());
+		assertThrows(IllegalArgumentException.class, () -> SearchLimits.depth(0));
+		assertThrows(IllegalArgumentException.class, () -> SearchLimits.moveTime(0));
+		assertThrows(IllegalArgumentException.class, () -> SearchLimits.clock(-1, 0));
+	}
+
+	@Test
+	void testDepthLimitedSearchCompletesEveryIteration() {
+		MinMaxStrategy strategy = new MinMaxStrategy(3);
+		int move = strategy.calculateBestEncodedMove(new State(), Side.WHITE);
+		assertNotEquals(EncodedMove.NONE, move);
+		assertEquals(3, strategy.getCompletedDepth());
+	}
+
+	@Test
+	void testTimedSearchReturnsWithinBudget() {
+		MinMaxStrategy strategy = new MinMaxStrategy(3);
+		strategy.setSearchLimits(SearchLimits.moveTime(200));
+		long start = System.nanoTime();
+		int move = strategy.calculateBestEncodedMove(new State(), Side.WHITE);
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		assertNotEquals(EncodedMove.NONE, move);
+		assertTrue(strategy.getCompletedDepth() >= 1);
+		assertTrue(strategy.getCompletedDepth() < SearchLimits.MAX_DEPTH);
+		// Generous slack for slow or loaded machines; an unbounded search takes far longer
+		assertTrue(elapsedMillis < 2000, "Search took " + elapsedMillis + " ms");
+	}
+
+	@Test
+	void testTimedSearchFindsMate() {
+		State state = new State();
+		String[][] moves = {{"e2", "e4"}, {"e7", "e5"}, {"f1", "c4"}, {"b8", "c6"}, {"d1", "h5"}, {"g8", "f6"}};
+		for (String[] move : moves) {
+			assertTrue(state.movePiece(move[0], move[1]));
+		}
+		MinMaxStrategy strategy = new MinMaxStrategy(1);
+		strategy.setSearchLimits(SearchLimits.clock(10_000, 100));
+		assertEquals("h5 f7", strategy.calculateBestMove(state, "White"));
+	}
+
+	@Test
+	void testGameEngineSearchLimits() {
+		GameEngine engine = new GameEngine(AIDifficulty.MASTER);
+		assertNull(engine.getSearchLimits());
+		engine.setSearchLimits(SearchLimits.moveTime(100));
+		engine.makeAIMove();
+		assertEquals("Black", engine.getCurrentTurn());
+		engine.setSearchLimits(null);
+		assertNull(engine.getSearchLimits());
+	}
+}
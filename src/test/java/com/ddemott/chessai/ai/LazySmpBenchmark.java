@@ -0,0 +1,45 @@
+package com.ddemott.chessai.ai;
+
+import com.ddemott.chessai.Side;
+import com.ddemott.chessai.State;
+
+/**
+ * Measures Lazy SMP time-to-depth: the wall time for {@link MinMaxStrategy} to
+ * finish a fixed-depth search with 1, 2, 4 and 8 threads, averaged over the
+ * {@link BenchmarkPositions}. Run manually (it is not a JUnit test), e.g. from
+ * the IDE or with {@code java -cp target/classes:target/test-classes
+ * com.ddemott.chessai.ai.LazySmpBenchmark [depth]}.
+ */
+public class LazySmpBenchmark {
+
+	private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+		System.out.println("Lazy SMP time-to-depth " + depth + " (" + Runtime.getRuntime().availableProcessors()
+				+ " processors available)");
+
+		double baseline = 0;
+		for (int threads : THREAD_COUNTS) {
+			double millis = averageTimeToDepth(depth, threads);
+			if (threads == 1) {
+				baseline = millis;
+			}
+			System.out.printf("  %d thread(s): %8.1f ms  speedup %.2fx%n", threads, millis, baseline / millis);
+		}
+	}
+
+	private static double averageTimeToDepth(int depth, int threads) {
+		long total = 0;
+		for (int i = 0; i < BenchmarkPositions.count(); i++) {
+			State state = BenchmarkPositions.get(i);
+			// A fresh strategy per position so every run starts with an empty table
+			try (MinMaxStrategy strategy = new MinMaxStrategy(depth, threads)) {
+				long start = System.nanoTime();
+				strategy.calculateBestEncodedMove(state, state.getCurrentTurnSide());
+				total += System.nanoTime() - start;
+			}
+		}
+		return total / 1e6 / BenchmarkPositions.count();
+	}
+}
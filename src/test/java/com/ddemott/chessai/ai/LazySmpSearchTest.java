@@ -0,0 +1,98 @@
+package com.ddemott.chessai.ai;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ddemott.chessai.Side;
+import com.ddemott.chessai.State;
+import com.ddemott.chessai.bitboard.EncodedMove;
+import com.ddemott.chessai.engine.GameEngine;
+
+class LazySmpSearchTest {
+
+	@Test
+	void testParallelSearchFindsMateInOne() {
+		// Scholar's mate set-up: Qxf7# is available
+		State state = new State();
+		String[][] moves = {{"e2", "e4"}, {"e7", "e5"}, {"f1", "c4"}, {"b8", "c6"}, {"d1", "h5"}, {"g8", "f6"}};
+		for (String[] move : moves) {
+			assertTrue(state.movePiece(move[0], move[1]));
+		}
+		MinMaxStrategy strategy = new MinMaxStrategy(2, 4);
+		assertEquals(4, strategy.getThreadCount());
+		assertTrue(strategy.getTranspositionTable() instanceof LocklessTranspositionTable);
+
+		MoveResult result = strategy.calculateBestMoveWithScore(state, "White");
+		assertEquals("h5 f7", result.move());
+		assertTrue(result.value() > 90_000, "Mate should score as mate: " + result.value());
+	}
+
+	@Test
+	void testParallelSearchIsRepeatable() {
+		MinMaxStrategy strategy = new MinMaxStrategy(2, 3);
+		State state = new State();
+		for (int i = 0; i < 3; i++) {
+			int move = strategy.calculateBestEncodedMove(state, Side.WHITE);
+			assertNotEquals(EncodedMove.NONE, move);
+			assertTrue(strategy.getNodeCount() > 0);
+		}
+		assertThrows(IllegalArgumentException.class, () -> new MinMaxStrategy(3, 0));
+	}
+
+	@Test
+	void testGameEngineSearchThreads() {
+		GameEngine engine = new GameEngine(AIDifficulty.EASY, 2);
+		assertEquals(2, engine.getSearchThreads());
+		engine.makeAIMove();
+		assertEquals("Black", engine.getCurrentTurn());
+
+		engine.setSearchThreads(1);
+		assertEquals(1, engine.getSearchThreads());
+		engine.makeAIMove();
+		assertEquals("White", engine.getCurrentTurn());
+
+		// A rejected count leaves the engine as it was
+		assertThrows(IllegalArgumentException.class, () -> engine.setSearchThreads(0));
+		assertEquals(1, engine.getSearchThreads());
+		engine.setAIDifficulty(AIDifficulty.BEGINNER);
+		engine.makeAIMove();
+		assertEquals("Black", engine.getCurrentTurn());
+	}
+
+	@Test
+	void testReplacedStrategiesReleaseTheirThreads() throws InterruptedException {
+		int before = liveHelperThreads();
+		GameEngine engine = new GameEngine(AIDifficulty.BEGINNER, 4);
+		for (int i = 0; i < 5; i++) {
+			assertNotNull(engine.getBestMove());
+			engine.setSearchThreads(4);
+		}
+		// Shut-down pools let their threads go, but not instantly
+		for (int wait = 0; wait < 50 && liveHelperThreads() > before; wait++) {
+			Thread.sleep(20);
+		}
+		assertTrue(liveHelperThreads() <= before, "Helper threads leaked: " + (liveHelperThreads() - before));
+	}
+
+	@Test
+	void testClosedStrategyStopsItsHelpers() throws InterruptedException {
+		MinMaxStrategy strategy = new MinMaxStrategy(2, 3);
+		int before = liveHelperThreads();
+		strategy.calculateBestEncodedMove(new State(), Side.WHITE);
+		strategy.close();
+		for (int wait = 0; wait < 50 && liveHelperThreads() > before; wait++) {
+			Thread.sleep(20);
+		}
+		assertTrue(liveHelperThreads() <= before);
+	}
+
+	private static int liveHelperThreads() {
+		int count = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.isAlive() && thread.getName().equals("search-helper")) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,115 @@
+package com.ddemott.chessai.ai;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ddemott.chessai.Side;
+import com.ddemott.chessai.State;
+import com.ddemott.chessai.bitboard.EncodedMove;
+
+class LocklessTranspositionTableTest {
+
+	@Test
+	void testProbeAndStore() {
+		LocklessTranspositionTable table = new LocklessTranspositionTable(1);
+		assertEquals(1, Integer.bitCount(table.getCapacity()));
+		long key = 0xDEADBEEF0005L; // Slot 5, inside the occupancy sample
+		int move = EncodedMove.of(12, 28, 0, EncodedMove.DOUBLE_PUSH);
+		assertEquals(TranspositionTable.MISS, table.probe(key));
+
+		table.store(key, 7, TranspositionTable.BOUND_UPPER, -35, move);
+		long entry = table.probe(key);
+		assertEquals(7, TranspositionTable.depth(entry));
+		assertEquals(TranspositionTable.BOUND_UPPER, TranspositionTable.bound(entry));
+		assertEquals(-35, TranspositionTable.score(entry));
+		assertEquals(move, TranspositionTable.move(entry));
+		assertEquals(TranspositionTable.MISS, table.probe(key + table.getCapacity()));
+		assertEquals(1.0 / 3, table.getHitRate(), 1e-9);
+		assertTrue(table.getOccupancy() > 0);
+
+		table.clear();
+		assertEquals(TranspositionTable.MISS, table.probe(key));
+		assertEquals(0.0, table.getOccupancy());
+	}
+
+	@Test
+	void testGenerationDoesNotLeakIntoEntries() {
+		LocklessTranspositionTable table = new LocklessTranspositionTable(1);
+		int move = EncodedMove.of(52, 60, 4, EncodedMove.CAPTURE | EncodedMove.DOUBLE_PUSH);
+		for (int i = 0; i < 10; i++) {
+			table.newSearch();
+			table.store(i, 3, TranspositionTable.BOUND_EXACT, i, move);
+			assertEquals(TranspositionTable.pack(3, TranspositionTable.BOUND_EXACT, i, move), table.probe(i));
+		}
+	}
+
+	@Test
+	void testReplacementPrefersDeepAndCurrentEntries() {
+		LocklessTranspositionTable table = new LocklessTranspositionTable(1);
+		long key = 11L;
+		long collision = key + table.getCapacity();
+		table.store(key, 6, TranspositionTable.BOUND_EXACT, 10, 0);
+		table.store(collision, 2, TranspositionTable.BOUND_EXACT, 20, 0);
+		assertEquals(10, TranspositionTable.score(table.probe(key)));
+
+		table.newSearch();
+		table.store(collision, 2, TranspositionTable.BOUND_EXACT, 20, 0);
+		assertEquals(TranspositionTable.MISS, table.probe(key));
+		assertEquals(20, TranspositionTable.score(table.probe(collision)));
+	}
+
+	@Test
+	void testConcurrentWritersNeverProduceTornEntries() throws InterruptedException {
+		// A small table so threads constantly overwrite each other's slots
+		LocklessTranspositionTable table = new LocklessTranspositionTable(1);
+		long[] keys = new long[table.getCapacity() * 4];
+		SplittableRandom random = new SplittableRandom(42);
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = random.nextLong();
+		}
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicLong corrupt = new AtomicLong();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			int seed = t;
+			threads[t] = new Thread(() -> {
+				SplittableRandom local = new SplittableRandom(seed);
+				while (running.get()) {
+					long key = keys[local.nextInt(keys.length)];
+					if (local.nextBoolean()) {
+						// Every field is derived from the key, so a mixed entry is detectable
+						table.store(key, (int) (key & 0x3F), TranspositionTable.BOUND_EXACT, (int) (key >>> 32), 0);
+					} else {
+						long entry = table.probe(key);
+						if (entry != TranspositionTable.MISS && (TranspositionTable.score(entry) != (int) (key >>> 32)
+								|| TranspositionTable.depth(entry) != (int) (key & 0x3F))) {
+							corrupt.incrementAndGet();
+						}
+					}
+				}
+			});
+			threads[t].start();
+		}
+		Thread.sleep(300);
+		running.set(false);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(0, corrupt.get());
+		assertTrue(table.getHits() > 0);
+	}
+
+	@Test
+	void testMinMaxStrategyWithLocklessTable() {
+		TranspositionTable table = new LocklessTranspositionTable(1);
+		MinMaxStrategy strategy = new MinMaxStrategy(3, table);
+		int move = strategy.calculateBestEncodedMove(new State(), Side.WHITE);
+		assertNotEquals(EncodedMove.NONE, move);
+		assertSame(table, strategy.getTranspositionTable());
+		assertTrue(table.getProbes() > 0);
+	}
+}
@@ -0,0 +1,151 @@
+package com.ddemott.chessai.ai;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ddemott.chessai.bitboard.Bitboards;
+import com.ddemott.chessai.bitboard.EncodedMove;
+import com.ddemott.chessai.bitboard.MoveGenerator;
+import com.ddemott.chessai.bitboard.MoveList;
+import com.ddemott.chessai.bitboard.PieceType;
+import com.ddemott.chessai.bitboard.Position;
+
+class MovePickerTest {
+
+	private static final int[] NO_KILLERS = {EncodedMove.NONE, EncodedMove.NONE};
+
+	private static int sq(String name) {
+		return Bitboards.squareOf(name);
+	}
+
+	private static int move(String from, String to) {
+		return EncodedMove.of(sq(from), sq(to));
+	}
+
+	/**
+	 * White: Ke1, Qd1, Nc3, Pe4. Black: Ke8, Qd5, Rb5, Pf5. The knight and
+	 * pawn can both take the queen; the queen can take the queen or the rook.
+	 */
+	private static Position tacticalPosition() {
+		Position position = new Position();
+		position.putPiece(sq("e1"), PieceType.make(Position.WHITE, PieceType.KING));
+		position.putPiece(sq("d1"), PieceType.make(Position.WHITE, PieceType.QUEEN));
+		position.putPiece(sq("c3"), PieceType.make(Position.WHITE, PieceType.KNIGHT));
+		position.putPiece(sq("e4"), PieceType.make(Position.WHITE, PieceType.PAWN));
+		position.putPiece(sq("e8"), PieceType.make(Position.BLACK, PieceType.KING));
+		position.putPiece(sq("d5"), PieceType.make(Position.BLACK, PieceType.QUEEN));
+		position.putPiece(sq("b5"), PieceType.make(Position.BLACK, PieceType.ROOK));
+		position.putPiece(sq("f5"), PieceType.make(Position.BLACK, PieceType.PAWN));
+		return position;
+	}
+
+	private static List<Integer> drain(MovePicker picker) {
+		List<Integer> picked = new ArrayList<>();
+		for (int move = picker.next(); move != EncodedMove.NONE; move = picker.next()) {
+			picked.add(move);
+		}
+		return picked;
+	}
+
+	@Test
+	void testEveryMoveIsPickedOnce() {
+		Position position = tacticalPosition();
+		MoveList generated = new MoveList();
+		MoveGenerator.generateLegal(position, Position.WHITE, generated);
+
+		MovePicker picker = new MovePicker();
+		picker.reset(position, Position.WHITE, move("e1", "f2"), new int[]{move("d1", "d4"), move("a2", "a4")},
+				new HistoryTable());
+		List<Integer> picked = drain(picker);
+		assertEquals(generated.size(), picked.size());
+		for (int i = 0; i < generated.size(); i++) {
+			assertTrue(picked.contains(generated.get(i)), EncodedMove.toString(generated.get(i)));
+		}
+	}
+
+	@Test
+	void testCapturesByMostValuableVictimThenLeastValuableAttacker() {
+		Position position = tacticalPosition();
+		MovePicker picker = new MovePicker();
+		picker.reset(position, Position.WHITE, EncodedMove.NONE, NO_KILLERS, new HistoryTable());
+		List<Integer> picked = drain(picker);
+
+		// Pawn, knight and queen take the queen, then queen takes rook, then pawn takes pawn
+		assertTrue(EncodedMove.sameMove(move("e4", "d5"), picked.get(0)));
+		assertTrue(EncodedMove.sameMove(move("c3", "d5"), picked.get(1)));
+		assertTrue(EncodedMove.sameMove(move("d1", "d5"), picked.get(2)));
+		assertTrue(EncodedMove.sameMove(move("c3", "b5"), picked.get(3)));
+		assertTrue(EncodedMove.sameMove(move("e4", "f5"), picked.get(4)));
+		assertFalse(EncodedMove.isCapture(picked.get(5)));
+	}
+
+	@Test
+	void testLosingCapturesComeLastAndAreNotTactical() {
+		// Qxd5 wins a pawn but exd5 wins the queen back
+		Position position = new Position();
+		position.putPiece(sq("g1"), PieceType.make(Position.WHITE, PieceType.KING));
+		position.putPiece(sq("d1"), PieceType.make(Position.WHITE, PieceType.QUEEN));
+		position.putPiece(sq("g8"), PieceType.make(Position.BLACK, PieceType.KING));
+		position.putPiece(sq("d5"), PieceType.make(Position.BLACK, PieceType.PAWN));
+		position.putPiece(sq("e6"), PieceType.make(Position.BLACK, PieceType.PAWN));
+
+		MovePicker picker = new MovePicker();
+		picker.reset(position, Position.WHITE, EncodedMove.NONE, NO_KILLERS, new HistoryTable());
+		List<Integer> picked = drain(picker);
+		assertTrue(EncodedMove.sameMove(move("d1", "d5"), picked.get(picked.size() - 1)));
+
+		picker.resetTactical(position, Position.WHITE);
+		assertTrue(drain(picker).isEmpty());
+	}
+
+	@Test
+	void testTableMoveThenKillersThenHistory() {
+		Position position = tacticalPosition();
+		HistoryTable history = new HistoryTable();
+		int quiet = move("d1", "h5");
+		int tableMove = move("e1", "f2");
+		int killer = move("c3", "a4");
+		history.reward(Position.WHITE, quiet, 6);
+
+		MovePicker picker = new MovePicker();
+		picker.reset(position, Position.WHITE, tableMove, new int[]{killer, EncodedMove.NONE}, history);
+		List<Integer> picked = drain(picker);
+
+		assertTrue(EncodedMove.sameMove(tableMove, picked.get(0)));
+		int firstQuiet = 1;
+		while (EncodedMove.isCapture(picked.get(firstQuiet))) {
+			firstQuiet++;
+		}
+		assertTrue(EncodedMove.sameMove(killer, picked.get(firstQuiet)));
+		assertTrue(EncodedMove.sameMove(quiet, picked.get(firstQuiet + 1)));
+	}
+
+	@Test
+	void testUnplayableTableMoveAndKillersAreIgnored() {
+		Position position = tacticalPosition();
+		MoveList generated = new MoveList();
+		MoveGenerator.generateLegal(position, Position.WHITE, generated);
+
+		MovePicker picker = new MovePicker();
+		// A move that is not legal here, and a killer that is a capture in this position
+		picker.reset(position, Position.WHITE, move("a1", "a8"), new int[]{move("c3", "d5"), EncodedMove.NONE},
+				new HistoryTable());
+		assertEquals(generated.size(), drain(picker).size());
+	}
+
+	@Test
+	void testHistoryAging() {
+		HistoryTable history = new HistoryTable();
+		int quiet = move("g1", "f3");
+		history.reward(Position.WHITE, quiet, 4);
+		assertEquals(16, history.get(Position.WHITE, quiet));
+		assertEquals(0, history.get(Position.BLACK, quiet));
+		history.age();
+		assertEquals(8, history.get(Position.WHITE, quiet));
+		history.clear();
+		assertEquals(0, history.get(Position.WHITE, quiet));
+	}
+}
@@ -0,0 +1,75 @@
+package com.ddemott.chessai.ai;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ddemott.chessai.Board;
+import com.ddemott.chessai.State;
+import com.ddemott.chessai.pieces.*;
+
+class QuiescenceSearchTest {
+
+	private static State emptyState() {
+		State state = new State();
+		state.getBoard().clearBoard();
+		return state;
+	}
+
+	@Test
+	void testDoesNotGrabDefendedPawnWithQueen() {
+		// Qxd5 wins a pawn at depth 1, but exd5 wins the queen back
+		State state = emptyState();
+		Board board = state.getBoard();
+		board.setPieceAt("g1", new King("White", "g1"));
+		board.setPieceAt("d1", new Queen("White", "d1"));
+		board.setPieceAt("h2", new Pawn("White", "h2"));
+		board.setPieceAt("g8", new King("Black", "g8"));
+		board.setPieceAt("d5", new Pawn("Black", "d5"));
+		board.setPieceAt("e6", new Pawn("Black", "e6"));
+
+		MinMaxStrategy strategy = new MinMaxStrategy(1);
+		MoveResult result = strategy.calculateBestMoveWithScore(state, "White");
+		assertNotEquals("d1 d5", result.move());
+		assertTrue(result.value() > 0, "White is still a queen up: " + result.value());
+	}
+
+	@Test
+	void testTakesHangingPiece() {
+		State state = emptyState();
+		Board board = state.getBoard();
+		board.setPieceAt("g1", new King("White", "g1"));
+		board.setPieceAt("d1", new Rook("White", "d1"));
+		board.setPieceAt("g8", new King("Black", "g8"));
+		board.setPieceAt("d6", new Knight("Black", "d6"));
+		board.setPieceAt("a7", new Pawn("Black", "a7"));
+
+		MinMaxStrategy strategy = new MinMaxStrategy(1);
+		assertEquals("d1 d6", strategy.calculateBestMove(state, "White"));
+	}
+
+	@Test
+	void testSeesExchangeBeyondHorizon() {
+		// Rxd6 looks like it wins a knight, but cxd6 recaptures and the rook is lost
+		State state = emptyState();
+		Board board = state.getBoard();
+		board.setPieceAt("g1", new King("White", "g1"));
+		board.setPieceAt("d1", new Rook("White", "d1"));
+		board.setPieceAt("a2", new Pawn("White", "a2"));
+		board.setPieceAt("g8", new King("Black", "g8"));
+		board.setPieceAt("d6", new Knight("Black", "d6"));
+		board.setPieceAt("c7", new Pawn("Black", "c7"));
+
+		MinMaxStrategy strategy = new MinMaxStrategy(1);
+		assertNotEquals("d1 d6", strategy.calculateBestMove(state, "White"));
+	}
+
+	@Test
+	void testMateIsScoredBySearchNotEvaluation() {
+		// Back-rank mate: after Re8# Black has no legal moves, which only the
+		// search can tell; the static evaluation sees a rook up
+		State state = State.fromFEN("6k1/5ppp/8/8/8/8/5PPP/4R1K1 w - - 0 1");
+		MoveResult result = new MinMaxStrategy(1).calculateBestMoveWithScore(state, "White");
+		assertEquals("e1 e8", result.move());
+		assertTrue(result.value() > 90_000, "Mate should score as mate: " + result.value());
+	}
+}
@@ -0,0 +1,115 @@
+package com.ddemott.chessai.ai;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.ddemott.chessai.Side;
+import com.ddemott.chessai.State;
+import com.ddemott.chessai.engine.GameEngine;
+
+class SearchHandleTest {
+
+	@Test
+	void testBackgroundSearchCompletes() throws Exception {
+		MinMaxStrategy strategy = new MinMaxStrategy(2);
+		SearchHandle handle = strategy.startSearch(new State(), Side.WHITE);
+		MoveResult result = handle.getResult().get(30, TimeUnit.SECONDS);
+		assertTrue(handle.isDone());
+		assertNotNull(result.move());
+		assertEquals(result.move(), handle.getBestMove());
+		assertEquals(2, handle.getCompletedDepth());
+	}
+
+	@Test
+	void testStopReturnsBestMoveSoFar() {
+		// Far deeper than can finish; only stop() ends this search
+		MinMaxStrategy strategy = new MinMaxStrategy(SearchLimits.MAX_DEPTH);
+		SearchHandle handle = strategy.startSearch(new State(), Side.WHITE);
+		long start = System.nanoTime();
+		while (handle.getCompletedDepth() < 2 && System.nanoTime() - start < 30_000_000_000L) {
+			Thread.onSpinWait();
+		}
+		handle.stop();
+		MoveResult result = handle.join();
+		assertNotNull(result.move());
+		assertTrue(handle.getCompletedDepth() >= 2);
+		assertTrue(handle.getCompletedDepth() < SearchLimits.MAX_DEPTH);
+
+		// The strategy is free for the next search
+		strategy.setSearchLimits(SearchLimits.depth(1));
+		assertNotNull(strategy.calculateBestMove(new State(), "White"));
+	}
+
+	@Test
+	void testHardDeadline() {
+		MinMaxStrategy strategy = new MinMaxStrategy(SearchLimits.MAX_DEPTH);
+		long start = System.nanoTime();
+		MoveResult result = strategy.startSearch(new State(), Side.WHITE, 200).join();
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+		assertNotNull(result.move());
+		assertTrue(elapsedMillis < 3000, "Search took " + elapsedMillis + " ms");
+		assertThrows(IllegalArgumentException.class, () -> strategy.startSearch(new State(), Side.WHITE, -1));
+	}
+
+	@Test
+	void testOneSearchAtATime() {
+		MinMaxStrategy strategy = new MinMaxStrategy(SearchLimits.MAX_DEPTH);
+		SearchHandle handle = strategy.startSearch(new State(), Side.WHITE);
+		try {
+			// Wait until the background search has claimed the strategy
+			while (handle.getCompletedDepth() < 1) {
+				Thread.onSpinWait();
+			}
+			assertThrows(IllegalStateException.class, () -> strategy.calculateBestMove(new State(), "White"));
+		} finally {
+			handle.stop();
+			handle.join();
+		}
+	}
+
+	@Test
+	void testCloseStopsBackgroundSearch() throws InterruptedException {
+		int before = liveSearchThreads();
+		MinMaxStrategy strategy = new MinMaxStrategy(SearchLimits.MAX_DEPTH);
+		SearchHandle handle = strategy.startSearch(new State(), Side.WHITE);
+		strategy.close();
+		assertNotNull(handle.join().move());
+		for (int wait = 0; wait < 50 && liveSearchThreads() > before; wait++) {
+			Thread.sleep(20);
+		}
+		assertTrue(liveSearchThreads() <= before, "The background search thread is still running");
+		assertThrows(RejectedExecutionException.class, () -> strategy.startSearch(new State(), Side.WHITE));
+	}
+
+	@Test
+	void testGameEngineBackgroundSearch() {
+		GameEngine engine = new GameEngine(AIDifficulty.MASTER);
+		SearchHandle handle = engine.startAISearch(150);
+		// The engine's own state is untouched while the search runs
+		assertTrue(engine.movePiece("e2", "e4"));
+		assertNotNull(handle.join().move());
+	}
+
+	@Test
+	void testDefaultStartSearchRunsSynchronously() {
+		AIStrategy strategy = (state, color) -> "e2 e4";
+		SearchHandle handle = strategy.startSearch(new State(), Side.WHITE, 0);
+		assertTrue(handle.isDone());
+		assertEquals("e2 e4", handle.join().move());
+		assertEquals("e2 e4", handle.getBestMove());
+		assertThrows(IllegalArgumentException.class, () -> strategy.startSearch(new State(), Side.WHITE, -1));
+	}
+
+	private static int liveSearchThreads() {
+		int count = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.isAlive() && thread.getName().equals("search-main")) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,33 @@
+package com.ddemott.chessai.ai;
+
+import com.ddemott.chessai.State;
+
+/**
+ * Reports the nodes {@link MinMaxStrategy} visits for a fixed-depth search of
+ * the {@link BenchmarkPositions}, so changes to pruning and move ordering can
+ * be compared. Run manually (it is not a JUnit test), e.g. with {@code java -cp
+ * target/classes:target/test-classes com.ddemott.chessai.ai.SearchNodeBenchmark
+ * [depth]}.
+ */
+public class SearchNodeBenchmark {
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		System.out.println("Nodes searched at depth " + depth);
+
+		long totalNodes = 0;
+		long totalNanos = 0;
+		for (int i = 0; i < BenchmarkPositions.count(); i++) {
+			State state = BenchmarkPositions.get(i);
+			MinMaxStrategy strategy = new MinMaxStrategy(depth);
+			long start = System.nanoTime();
+			String move = strategy.calculateBestMove(state, state.getCurrentTurn());
+			long nanos = System.nanoTime() - start;
+			long nodes = strategy.getNodeCount();
+			System.out.printf("  position %d: %10d nodes  %8.1f ms  best %s%n", i + 1, nodes, nanos / 1e6, move);
+			totalNodes += nodes;
+			totalNanos += nanos;
+		}
+		System.out.printf("  total:      %10d nodes  %8.1f ms%n", totalNodes, totalNanos / 1e6);
+	}
+}
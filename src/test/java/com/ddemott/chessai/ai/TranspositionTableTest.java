@@ -0,0 +1,98 @@
+package com.ddemott.chessai.ai;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ddemott.chessai.Side;
+import com.ddemott.chessai.State;
+import com.ddemott.chessai.bitboard.EncodedMove;
+
+class TranspositionTableTest {
+
+	@Test
+	void testPackRoundTrip() {
+		int move = EncodedMove.of(52, 60, 4, EncodedMove.CAPTURE);
+		long entry = TranspositionTable.pack(12, TranspositionTable.BOUND_LOWER, -99_950, move);
+		assertNotEquals(TranspositionTable.MISS, entry);
+		assertEquals(12, TranspositionTable.depth(entry));
+		assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.bound(entry));
+		assertEquals(-99_950, TranspositionTable.score(entry));
+		assertEquals(move, TranspositionTable.move(entry));
+
+		long empty = TranspositionTable.pack(0, TranspositionTable.BOUND_EXACT, 0, 0);
+		assertNotEquals(TranspositionTable.MISS, empty, "A stored entry must never look like a miss");
+	}
+
+	@Test
+	void testCapacityIsPowerOfTwoWithinBudget() {
+		ArrayTranspositionTable table = new ArrayTranspositionTable(1);
+		int capacity = table.getCapacity();
+		assertEquals(1, Integer.bitCount(capacity));
+		assertTrue((long) capacity * ArrayTranspositionTable.BYTES_PER_ENTRY <= 1 << 20);
+		assertTrue((long) capacity * 2 * ArrayTranspositionTable.BYTES_PER_ENTRY > 1 << 20);
+		assertThrows(IllegalArgumentException.class, () -> new ArrayTranspositionTable(0));
+	}
+
+	@Test
+	void testProbeStoreAndStatistics() {
+		ArrayTranspositionTable table = new ArrayTranspositionTable(1);
+		long key = 0x123456789ABCDEFL;
+		assertEquals(TranspositionTable.MISS, table.probe(key));
+		table.store(key, 5, TranspositionTable.BOUND_EXACT, 42, EncodedMove.of(12, 28));
+
+		long entry = table.probe(key);
+		assertEquals(5, TranspositionTable.depth(entry));
+		assertEquals(42, TranspositionTable.score(entry));
+		assertEquals(2, table.getProbes());
+		assertEquals(1, table.getHits());
+		assertEquals(0.5, table.getHitRate(), 1e-9);
+		assertEquals(1.0 / table.getCapacity(), table.getOccupancy(), 1e-12);
+
+		// Same slot, different position
+		assertEquals(TranspositionTable.MISS, table.probe(key + table.getCapacity()));
+
+		table.clear();
+		assertEquals(0.0, table.getOccupancy());
+		assertEquals(0, table.getProbes());
+		assertEquals(TranspositionTable.MISS, table.probe(key));
+	}
+
+	@Test
+	void testReplacementPrefersDeepAndCurrentEntries() {
+		ArrayTranspositionTable table = new ArrayTranspositionTable(1);
+		long key = 7L;
+		long collision = key + table.getCapacity();
+		table.store(key, 6, TranspositionTable.BOUND_EXACT, 10, 0);
+
+		// A shallower result for another position does not evict a deeper one
+		table.store(collision, 2, TranspositionTable.BOUND_EXACT, 20, 0);
+		assertEquals(10, TranspositionTable.score(table.probe(key)));
+
+		// Once the deep entry is from an earlier search, it can be replaced
+		table.newSearch();
+		table.store(collision, 2, TranspositionTable.BOUND_EXACT, 20, 0);
+		assertEquals(TranspositionTable.MISS, table.probe(key));
+		assertEquals(20, TranspositionTable.score(table.probe(collision)));
+
+		// Re-storing the same position without a move keeps the known best move
+		int move = EncodedMove.of(1, 18);
+		table.store(collision, 3, TranspositionTable.BOUND_LOWER, 30, move);
+		table.store(collision, 4, TranspositionTable.BOUND_UPPER, 25, 0);
+		assertEquals(move, TranspositionTable.move(table.probe(collision)));
+	}
+
+	@Test
+	void testSearchUsesTable() {
+		TranspositionTable table = new ArrayTranspositionTable(1);
+		MinMaxStrategy strategy = new MinMaxStrategy(3, table);
+		State state = new State();
+		int first = strategy.calculateBestEncodedMove(state, Side.WHITE);
+		assertNotEquals(EncodedMove.NONE, first);
+		assertTrue(table.getOccupancy() > 0);
+
+		// A repeated search reuses the stored results and finds the same move
+		table.resetStatistics();
+		assertTrue(EncodedMove.sameMove(first, strategy.calculateBestEncodedMove(state, Side.WHITE)));
+		assertTrue(table.getHits() > 0);
+	}
+}
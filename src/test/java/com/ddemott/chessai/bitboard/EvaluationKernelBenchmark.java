@@ -0,0 +1,67 @@
+package com.ddemott.chessai.bitboard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the scalar and Vector API {@link EvaluationKernel evaluation
+ * kernels} on positions from random playouts of the perft suite. Run manually
+ * (it is not a JUnit test) after {@code mvn -Pvector test-compile}, e.g. with
+ * {@code java --add-modules jdk.incubator.vector -cp
+ * target/classes:target/test-classes
+ * com.ddemott.chessai.bitboard.EvaluationKernelBenchmark [rounds]}.
+ */
+public class EvaluationKernelBenchmark {
+
+	public static void main(String[] args) {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		List<Position> positions = positions();
+		List<EvaluationKernel> kernels = new ArrayList<>();
+		kernels.add(EvaluationKernel.named("scalar"));
+		if (EvaluationKernel.isVectorAvailable()) {
+			kernels.add(EvaluationKernel.named("vector"));
+		} else {
+			System.out.println("Vector API not available; build with mvn -Pvector and run with --add-modules jdk.incubator.vector");
+		}
+		System.out.println("Evaluation kernels over " + positions.size() + " positions, " + rounds + " rounds");
+
+		for (int pass = 0; pass < 2; pass++) { // The first pass warms up the JIT
+			for (EvaluationKernel kernel : kernels) {
+				long checksum = 0;
+				long start = System.nanoTime();
+				for (int round = 0; round < rounds; round++) {
+					for (Position position : positions) {
+						checksum += kernel.mobility(position, Position.WHITE)
+								- kernel.mobility(position, Position.BLACK);
+					}
+				}
+				long mobility = System.nanoTime() - start;
+				if (pass == 1) {
+					long calls = (long) rounds * positions.size();
+					System.out.printf("  %-16s mobility %6.1f ns  (checksum %d)%n", kernel.getName(),
+							(double) mobility / calls, checksum);
+				}
+			}
+		}
+	}
+
+	private static List<Position> positions() {
+		Random random = new Random(1);
+		MoveList moves = new MoveList();
+		List<Position> positions = new ArrayList<>();
+		for (PerftSuite entry : PerftSuite.values()) {
+			Position position = Fen.parse(entry.getFen());
+			for (int played = 0; played < 30; played++) {
+				positions.add(position.copy());
+				moves.clear();
+				MoveGenerator.generateLegal(position, position.getSideToMove(), moves);
+				if (moves.size() == 0) {
+					break;
+				}
+				position.makeMove(moves.get(random.nextInt(moves.size())));
+			}
+		}
+		return positions;
+	}
+}
@@ -0,0 +1,79 @@
+package com.ddemott.chessai.bitboard;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class EvaluationKernelTest {
+
+	@Test
+	void testScalarKernelMobility() {
+		assertKernelMatches(EvaluationKernel.named("scalar"));
+	}
+
+	@Test
+	void testVectorKernelMobility() {
+		assumeTrue(EvaluationKernel.isVectorAvailable(), "Needs mvn -Pvector");
+		EvaluationKernel kernel = EvaluationKernel.named("vector");
+		assertEquals("vector", kernel.getName());
+		assertKernelMatches(kernel);
+	}
+
+	@Test
+	void testSelection() {
+		assertEquals("scalar", EvaluationKernel.named("scalar").getName());
+		assertNotNull(EvaluationKernel.SELECTED);
+		assertThrows(IllegalArgumentException.class, () -> EvaluationKernel.named("gpu"));
+	}
+
+	@Test
+	void testUnknownPropertySelectsScalar() throws Exception {
+		String previous = System.getProperty(EvaluationKernel.PROPERTY);
+		System.setProperty(EvaluationKernel.PROPERTY, "gpu");
+		// A fresh loader initializes SELECTED again with the property set
+		URL classes = EvaluationKernel.class.getProtectionDomain().getCodeSource().getLocation();
+		try (URLClassLoader loader = new URLClassLoader(new URL[]{classes}, null)) {
+			Class<?> fresh = Class.forName(EvaluationKernel.class.getName(), true, loader);
+			Object selected = fresh.getField("SELECTED").get(null);
+			assertEquals("scalar", fresh.getMethod("getName").invoke(selected));
+		} finally {
+			if (previous == null) {
+				System.clearProperty(EvaluationKernel.PROPERTY);
+			} else {
+				System.setProperty(EvaluationKernel.PROPERTY, previous);
+			}
+		}
+	}
+
+	private static void assertKernelMatches(EvaluationKernel kernel) {
+		java.util.Random random = new java.util.Random(11);
+		MoveList moves = new MoveList();
+		for (PerftSuite entry : PerftSuite.values()) {
+			Position position = Fen.parse(entry.getFen());
+			for (int played = 0; played < 40; played++) {
+				for (int side = Position.WHITE; side <= Position.BLACK; side++) {
+					assertEquals(mobility(position, side), kernel.mobility(position, side));
+				}
+				moves.clear();
+				MoveGenerator.generateLegal(position, position.getSideToMove(), moves);
+				if (moves.size() == 0) {
+					break;
+				}
+				position.makeMove(moves.get(random.nextInt(moves.size())));
+			}
+		}
+	}
+
+	private static int mobility(Position position, int side) {
+		int mobility = 0;
+		for (int square = 0; square < Bitboards.SQUARE_COUNT; square++) {
+			if ((position.getSidePieces(side) & Bitboards.bit(square)) == 0) {
+				mobility += position.getAttackerCount(square, side);
+			}
+		}
+		return mobility;
+	}
+}
@@ -0,0 +1,44 @@
+package com.ddemott.chessai.bitboard;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FenTest {
+
+	@Test
+	void testRoundTrip() {
+		for (PerftSuite entry : PerftSuite.values()) {
+			Position position = Fen.parse(entry.getFen());
+			String[] fields = entry.getFen().split(" ");
+			assertEquals(entry.getFen(), Fen.toFen(position, Integer.parseInt(fields[5])));
+			assertEquals(position.computeKey(), position.getKey());
+		}
+	}
+
+	@Test
+	void testFieldsAreParsed() {
+		Position position = Fen.parse("rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR w Kq d6 0 3");
+		assertEquals(Position.WHITE, position.getSideToMove());
+		assertEquals(Position.WHITE_KINGSIDE | Position.BLACK_QUEENSIDE, position.getCastlingRights());
+		assertEquals(Bitboards.squareOf("d6"), position.getEnPassantSquare());
+		assertEquals(PieceType.make(Position.BLACK, PieceType.PAWN), position.getPiece(Bitboards.squareOf("d5")));
+
+		// The clocks are optional
+		Position noClocks = Fen.parse("8/8/8/8/8/8/8/K6k b - -");
+		assertEquals(Position.BLACK, noClocks.getSideToMove());
+		assertEquals(0, noClocks.getHalfmoveClock());
+		assertEquals(3, Fen.parseInto("8/8/8/8/8/8/8/K6k b - - 7 3", noClocks));
+		assertEquals(7, noClocks.getHalfmoveClock());
+	}
+
+	@Test
+	void testInvalidFenIsRejected() {
+		String[] invalid = {null, "", "8/8/8/8/8/8/8 w - - 0 1", "9/8/8/8/8/8/8/8 w - - 0 1",
+				"8/8/8/8/8/8/8/K6x w - - 0 1", "8/8/8/8/8/8/8/K6k x - - 0 1", "8/8/8/8/8/8/8/K6k w X - 0 1",
+				"8/8/8/8/8/8/8/K6k w - e4 0 1", "8/8/8/8/8/8/8/K6k w - - -1 1", "8/8/8/8/8/8/8/K6k w - - 0 0",
+				"8/8/8/8/8/8/8/K6k w - - 0"};
+		for (String fen : invalid) {
+			assertThrows(IllegalArgumentException.class, () -> Fen.parse(fen), String.valueOf(fen));
+		}
+	}
+}
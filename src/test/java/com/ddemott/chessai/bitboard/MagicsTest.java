@@ -0,0 +1,57 @@
+package com.ddemott.chessai.bitboard;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MagicsTest {
+
+	@Test
+	void testMagicLookupsMatchRayWalk() {
+		Random random = new Random(42);
+		for (int square = 0; square < Bitboards.SQUARE_COUNT; square++) {
+			for (int i = 0; i < 200; i++) {
+				// Sparse and dense occupancies, the square itself included or not
+				long occupied = i % 2 == 0 ? random.nextLong() & random.nextLong() : random.nextLong();
+				assertEquals(Magics.slidingAttacks(square, occupied, true), Bitboards.rookAttacks(square, occupied),
+						"Rook on " + Bitboards.squareName(square));
+				assertEquals(Magics.slidingAttacks(square, occupied, false), Bitboards.bishopAttacks(square, occupied),
+						"Bishop on " + Bitboards.squareName(square));
+			}
+			assertEquals(Bitboards.rookAttacks(square, 0L) | Bitboards.bishopAttacks(square, 0L),
+					Bitboards.queenAttacks(square, 0L));
+		}
+	}
+
+	@Test
+	void testLeaperTables() {
+		for (int square = 0; square < Bitboards.SQUARE_COUNT; square++) {
+			long knight = 0L;
+			long king = 0L;
+			long whitePawn = 0L;
+			long blackPawn = 0L;
+			for (int target = 0; target < Bitboards.SQUARE_COUNT; target++) {
+				int rows = Bitboards.row(target) - Bitboards.row(square);
+				int cols = Math.abs(Bitboards.col(target) - Bitboards.col(square));
+				long b = Bitboards.bit(target);
+				if (Math.abs(rows) * cols == 2) {
+					knight |= b;
+				}
+				if (Math.max(Math.abs(rows), cols) == 1) {
+					king |= b;
+				}
+				if (cols == 1 && rows == 1) {
+					whitePawn |= b;
+				}
+				if (cols == 1 && rows == -1) {
+					blackPawn |= b;
+				}
+			}
+			assertEquals(knight, Bitboards.knightAttacks(square));
+			assertEquals(king, Bitboards.kingAttacks(square));
+			assertEquals(whitePawn, Bitboards.pawnAttacks(Position.WHITE, square));
+			assertEquals(blackPawn, Bitboards.pawnAttacks(Position.BLACK, square));
+		}
+	}
+}
@@ -0,0 +1,296 @@
+package com.ddemott.chessai.bitboard;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import com.ddemott.chessai.Board;
+import com.ddemott.chessai.Side;
+import com.ddemott.chessai.State;
+import com.ddemott.chessai.pieces.Bishop;
+import com.ddemott.chessai.pieces.King;
+import com.ddemott.chessai.pieces.Pawn;
+import com.ddemott.chessai.pieces.Queen;
+import com.ddemott.chessai.pieces.Rook;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveGeneratorTest {
+
+	private static int sq(String name) {
+		return Bitboards.squareOf(name);
+	}
+
+	private static Set<String> generate(Board board, Side side) {
+		MoveList moves = new MoveList();
+		MoveGenerator.generate(board.getPosition(), side.ordinal(), moves);
+		Set<String> result = new HashSet<>();
+		for (int i = 0; i < moves.size(); i++) {
+			result.add(EncodedMove.toString(moves.get(i)));
+		}
+		assertEquals(moves.size(), result.size(), "Duplicate moves generated: " + moves);
+		return result;
+	}
+
+	private static Set<String> generateLegal(Board board, Side side) {
+		MoveList moves = new MoveList();
+		MoveGenerator.generateLegal(board.getPosition(), side.ordinal(), moves);
+		Set<String> result = new HashSet<>();
+		for (int i = 0; i < moves.size(); i++) {
+			result.add(EncodedMove.toString(moves.get(i)));
+		}
+		assertEquals(moves.size(), result.size(), "Duplicate moves generated: " + moves);
+		return result;
+	}
+
+	// Pseudo-legal king moves into check are filtered by the piece classes but not
+	// by the generator, so compare legal moves only
+	private static Set<String> legalOnly(Board board, Side side, Set<String> moves) {
+		Set<String> legal = new HashSet<>();
+		for (String move : moves) {
+			String[] parts = move.split(" ");
+			board.makeMove(parts[0], parts[1], parts.length == 3 ? parts[2] : null);
+			if (!board.getPosition().isInCheck(side.ordinal())) {
+				legal.add(move);
+			}
+			board.unmakeMove();
+		}
+		return legal;
+	}
+
+	@Test
+	void testEncodingRoundTrip() {
+		int move = EncodedMove.of(sq("e7"), sq("d8"), PieceType.KNIGHT, EncodedMove.CAPTURE);
+		assertEquals(sq("e7"), EncodedMove.from(move));
+		assertEquals(sq("d8"), EncodedMove.to(move));
+		assertEquals(PieceType.KNIGHT, EncodedMove.promotion(move));
+		assertTrue(EncodedMove.isCapture(move));
+		assertFalse(EncodedMove.isEnPassant(move));
+		assertEquals("e7 d8 N", EncodedMove.toString(move));
+		assertTrue(EncodedMove.sameMove(move, EncodedMove.parse("e7 d8 N")));
+
+		int quiet = EncodedMove.parse("g1 f3");
+		assertEquals(PieceType.NONE, EncodedMove.promotion(quiet));
+		assertEquals("g1 f3", EncodedMove.toString(quiet));
+		assertEquals(EncodedMove.NONE, EncodedMove.parse("e2"));
+		assertEquals(EncodedMove.NONE, EncodedMove.parse("e7 e8 K"));
+		assertEquals(EncodedMove.NONE, EncodedMove.parse(null));
+	}
+
+	@Test
+	void testMatchesPieceGenerationAfterOpening() {
+		State state = new State();
+		String[][] opening = {{"e2", "e4"}, {"d7", "d5"}, {"e4", "d5"}, {"g8", "f6"}, {"f1", "b5"}, {"c7", "c6"},
+				{"d5", "c6"}, {"d8", "d4"}};
+		for (String[] move : opening) {
+			assertTrue(state.movePiece(move[0], move[1]));
+		}
+		Board board = state.getBoard();
+		for (Side side : Side.values()) {
+			assertEquals(legalOnly(board, side, new HashSet<>(board.getAllPossibleMoves(side))),
+					legalOnly(board, side, generate(board, side)), "Generated moves differ for " + side);
+		}
+	}
+
+	@Test
+	void testStartingPositionHasTwentyMoves() {
+		assertEquals(20, generate(new Board(), Side.WHITE).size());
+		assertEquals(20, generate(new Board(), Side.BLACK).size());
+	}
+
+	@Test
+	void testPromotionsAndEnPassant() {
+		Board board = new Board();
+		board.clearBoard();
+		board.setPieceAt("e1", new King(Side.WHITE, "e1"));
+		board.setPieceAt("h8", new King(Side.BLACK, "h8"));
+		board.setPieceAt("b7", new Pawn(Side.WHITE, "b7"));
+		board.setPieceAt("a8", new Rook(Side.BLACK, "a8"));
+		board.setPieceAt("e5", new Pawn(Side.WHITE, "e5"));
+		board.setPieceAt("d5", new Pawn(Side.BLACK, "d5"));
+		board.setEnPassantTarget("d6");
+
+		Set<String> moves = generate(board, Side.WHITE);
+		for (String promotion : new String[]{"Q", "R", "B", "N"}) {
+			assertTrue(moves.contains("b7 b8 " + promotion));
+			assertTrue(moves.contains("b7 a8 " + promotion));
+		}
+		assertTrue(moves.contains("e5 d6"));
+		assertTrue(moves.contains("e5 e6"));
+	}
+
+	@Test
+	void testCastlingRequiresSafePath() {
+		Board board = new Board();
+		board.clearBoard();
+		board.setPieceAt("e1", new King(Side.WHITE, "e1"));
+		board.setPieceAt("h1", new Rook(Side.WHITE, "h1"));
+		board.setPieceAt("a1", new Rook(Side.WHITE, "a1"));
+		board.setPieceAt("e8", new King(Side.BLACK, "e8"));
+		Set<String> moves = generate(board, Side.WHITE);
+		assertTrue(moves.contains("e1 g1"));
+		assertTrue(moves.contains("e1 c1"));
+
+		// A rook on f8 covers f1, so only queenside castling remains
+		board.setPieceAt("f8", new Rook(Side.BLACK, "f8"));
+		moves = generate(board, Side.WHITE);
+		assertFalse(moves.contains("e1 g1"));
+		assertTrue(moves.contains("e1 c1"));
+	}
+
+	@Test
+	void testLegalMovesMatchFilteredPseudoLegalMoves() {
+		Random random = new Random(42);
+		for (int game = 0; game < 20; game++) {
+			Board board = new Board();
+			Side side = Side.WHITE;
+			for (int ply = 0; ply < 80; ply++) {
+				Set<String> legal = generateLegal(board, side);
+				assertEquals(legalOnly(board, side, generate(board, side)), legal,
+						"Legal moves differ in game " + game + " at ply " + ply);
+				if (legal.isEmpty()) {
+					break;
+				}
+				MoveList moves = new MoveList();
+				MoveGenerator.generateLegal(board.getPosition(), side.ordinal(), moves);
+				board.makeMove(moves.get(random.nextInt(moves.size())));
+				side = side.flip();
+			}
+		}
+	}
+
+	@Test
+	void testPinnedPieceStaysOnPinLine() {
+		Board board = new Board();
+		board.clearBoard();
+		board.setPieceAt("e1", new King(Side.WHITE, "e1"));
+		board.setPieceAt("e4", new Rook(Side.WHITE, "e4"));
+		board.setPieceAt("b4", new Bishop(Side.WHITE, "b4"));
+		board.setPieceAt("e8", new Rook(Side.BLACK, "e8"));
+		board.setPieceAt("a5", new Bishop(Side.BLACK, "a5"));
+		board.setPieceAt("h8", new King(Side.BLACK, "h8"));
+
+		assertEquals(Bitboards.bit(sq("e4")) | Bitboards.bit(sq("b4")),
+				MoveGenerator.pinnedPieces(board.getPosition(), Side.WHITE.ordinal()));
+		Set<String> moves = generateLegal(board, Side.WHITE);
+		assertTrue(moves.contains("e4 e8"));
+		assertTrue(moves.contains("e4 e2"));
+		assertFalse(moves.contains("e4 d4"));
+		assertTrue(moves.contains("b4 a5"));
+		assertTrue(moves.contains("b4 c3"));
+		assertFalse(moves.contains("b4 c5"));
+	}
+
+	@Test
+	void testDoubleCheckAllowsOnlyKingMoves() {
+		Board board = new Board();
+		board.clearBoard();
+		board.setPieceAt("e1", new King(Side.WHITE, "e1"));
+		board.setPieceAt("d1", new Queen(Side.WHITE, "d1"));
+		board.setPieceAt("e8", new Rook(Side.BLACK, "e8"));
+		board.setPieceAt("b4", new Bishop(Side.BLACK, "b4"));
+		board.setPieceAt("h8", new King(Side.BLACK, "h8"));
+
+		Set<String> moves = generateLegal(board, Side.WHITE);
+		assertFalse(moves.isEmpty());
+		for (String move : moves) {
+			assertTrue(move.startsWith("e1 "), "Only the king may move in double check: " + move);
+		}
+		// The king may not retreat along the rook's line
+		assertFalse(moves.contains("e1 e2"));
+		assertTrue(moves.contains("e1 f2"));
+	}
+
+	@Test
+	void testSingleCheckMustBeBlockedOrCaptured() {
+		Board board = new Board();
+		board.clearBoard();
+		board.setPieceAt("e1", new King(Side.WHITE, "e1"));
+		board.setPieceAt("a4", new Rook(Side.WHITE, "a4"));
+		board.setPieceAt("c6", new Bishop(Side.WHITE, "c6"));
+		board.setPieceAt("e8", new Rook(Side.BLACK, "e8"));
+		board.setPieceAt("h8", new King(Side.BLACK, "h8"));
+
+		Set<String> moves = generateLegal(board, Side.WHITE);
+		assertTrue(moves.contains("a4 e4"));
+		assertTrue(moves.contains("c6 e8"));
+		assertFalse(moves.contains("a4 a5"));
+		assertFalse(moves.contains("c6 d5"));
+	}
+
+	@Test
+	void testEnPassantCannotExposeKingAlongRank() {
+		Board board = new Board();
+		board.clearBoard();
+		board.setPieceAt("a5", new King(Side.WHITE, "a5"));
+		board.setPieceAt("b5", new Pawn(Side.WHITE, "b5"));
+		board.setPieceAt("c5", new Pawn(Side.BLACK, "c5"));
+		board.setPieceAt("h5", new Rook(Side.BLACK, "h5"));
+		board.setPieceAt("h8", new King(Side.BLACK, "h8"));
+		board.setEnPassantTarget("c6");
+
+		assertTrue(generate(board, Side.WHITE).contains("b5 c6"));
+		assertFalse(generateLegal(board, Side.WHITE).contains("b5 c6"));
+		assertTrue(generateLegal(board, Side.WHITE).contains("b5 b6"));
+	}
+
+	@Test
+	void testEnPassantCanCaptureCheckingPawn() {
+		Board board = new Board();
+		board.clearBoard();
+		board.setPieceAt("e4", new King(Side.WHITE, "e4"));
+		board.setPieceAt("e5", new Pawn(Side.WHITE, "e5"));
+		board.setPieceAt("d5", new Pawn(Side.BLACK, "d5"));
+		board.setPieceAt("h8", new King(Side.BLACK, "h8"));
+		board.setEnPassantTarget("d6");
+
+		// The pawn that just moved to d5 checks the king; taking it en passant is legal
+		Set<String> moves = generateLegal(board, Side.WHITE);
+		assertTrue(moves.contains("e5 d6"));
+		assertFalse(moves.contains("e5 e6"));
+	}
+
+	@Test
+	void testTacticalGenerationMatchesFilteredLegalMoves() {
+		Random random = new Random(5);
+		MoveList legal = new MoveList();
+		MoveList tactical = new MoveList();
+		for (PerftSuite entry : PerftSuite.values()) {
+			Position position = Fen.parse(entry.getFen());
+			for (int played = 0; played < 40; played++) {
+				int side = position.getSideToMove();
+				legal.clear();
+				tactical.clear();
+				MoveGenerator.generateLegal(position, side, legal);
+				MoveGenerator.generateLegalTactical(position, side, tactical);
+				Set<Integer> expected = new HashSet<>();
+				for (int i = 0; i < legal.size(); i++) {
+					int move = legal.get(i);
+					if (EncodedMove.isCapture(move) || EncodedMove.isPromotion(move)) {
+						expected.add(move);
+					}
+				}
+				Set<Integer> actual = new HashSet<>();
+				for (int i = 0; i < tactical.size(); i++) {
+					actual.add(tactical.get(i));
+				}
+				assertEquals(tactical.size(), actual.size(), "Duplicate moves generated: " + tactical);
+				assertEquals(expected, actual, entry.getFen() + " after " + played + " moves");
+				if (legal.isEmpty()) {
+					break;
+				}
+				position.makeMove(legal.get(random.nextInt(legal.size())));
+			}
+		}
+	}
+
+	@Test
+	void testTacticalGenerationWithoutKingKeepsOnlyTacticalMoves() {
+		Position position = Fen.parse("8/1P6/8/3p4/8/4N3/8/8 w - - 0 1");
+		MoveList moves = new MoveList();
+		moves.add(EncodedMove.NONE); // Existing entries are left alone
+		MoveGenerator.generateLegalTactical(position, Position.WHITE, moves);
+		assertEquals(6, moves.size()); // Nxd5 and four promotions
+		assertEquals(EncodedMove.NONE, moves.get(0));
+	}
+}
@@ -0,0 +1,60 @@
+package com.ddemott.chessai.bitboard;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelPerftTest {
+
+	// Deep enough to fork below the root (SEQUENTIAL_DEPTH is 3)
+	private static final int DEPTH = 4;
+	private static final long NODE_BUDGET = 500_000L;
+
+	@Test
+	void testMatchesSingleThreadedPerft() {
+		try (ParallelPerft parallel = new ParallelPerft(4)) {
+			for (PerftSuite entry : PerftSuite.values()) {
+				Position position = Fen.parse(entry.getFen());
+				int depth = entry.getExpected(DEPTH) <= NODE_BUDGET ? DEPTH : DEPTH - 1;
+				assertEquals(entry.getExpected(depth), parallel.perft(position, depth), entry.getTitle());
+			}
+		}
+	}
+
+	@Test
+	void testDivideMatchesSingleThreadedDivide() {
+		Position position = Fen.parse(PerftSuite.POSITION_3.getFen());
+		try (ParallelPerft parallel = new ParallelPerft(3, new PerftCache(1))) {
+			assertEquals(new Perft(position).divide(DEPTH), parallel.divide(position, DEPTH));
+		}
+		assertEquals(0, position.getUndoDepth());
+	}
+
+	@Test
+	void testCacheGivesSameCounts() {
+		// Transpositions need four plies (two moves each) to reach a cached depth
+		int depth = 5;
+		long expected = PerftSuite.POSITION_3.getExpected(depth);
+		PerftCache cache = new PerftCache(1);
+		Position position = Fen.parse(PerftSuite.POSITION_3.getFen());
+		assertEquals(expected, new Perft(position, cache).perft(depth));
+		assertTrue(cache.getHits() > 0, "Transpositions should be found");
+
+		// A second run reads the root count straight from the cache
+		try (ParallelPerft parallel = new ParallelPerft(2, cache)) {
+			long hits = cache.getHits();
+			assertEquals(expected, parallel.perft(position, depth));
+			assertEquals(hits + 1, cache.getHits());
+		}
+	}
+
+	@Test
+	void testCacheKeysOnDepth() {
+		PerftCache cache = new PerftCache(1);
+		cache.store(42L, 3, 1000L);
+		assertEquals(1000L, cache.probe(42L, 3));
+		assertEquals(-1L, cache.probe(42L, 4));
+		assertEquals(-1L, cache.probe(43L, 3));
+		cache.clear();
+		assertEquals(-1L, cache.probe(42L, 3));
+	}
+}
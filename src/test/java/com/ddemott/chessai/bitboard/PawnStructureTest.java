@@ -0,0 +1,73 @@
+package com.ddemott.chessai.bitboard;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PawnStructureTest {
+
+	private static long squares(String... names) {
+		long bitboard = 0L;
+		for (String name : names) {
+			bitboard |= Bitboards.bit(Bitboards.squareOf(name));
+		}
+		return bitboard;
+	}
+
+	@Test
+	void testSymmetricStructureScoresZero() {
+		PawnStructure structure = PawnStructure.of(Fen.parse(Fen.STARTING_POSITION));
+		assertEquals(0, structure.getMiddlegameScore());
+		assertEquals(0, structure.getEndgameScore());
+		assertEquals(0, structure.getPassedPawns(Position.WHITE));
+		assertEquals(0, structure.getOpenFiles());
+	}
+
+	@Test
+	void testPassedPawnsAndOpenFiles() {
+		// d5 is passed; a7 and b2 each have an enemy pawn ahead on an adjacent file
+		PawnStructure structure = PawnStructure.of(Fen.parse("4k3/p7/8/3P4/8/8/1P6/4K3 w - - 0 1"));
+		assertEquals(squares("d5"), structure.getPassedPawns(Position.WHITE));
+		assertEquals(0L, structure.getPassedPawns(Position.BLACK));
+		assertTrue(structure.getEndgameScore() > structure.getMiddlegameScore());
+		assertFalse(structure.isOpenFile(0));
+		assertFalse(structure.isOpenFile(3));
+		assertTrue(structure.isOpenFile(4));
+		assertEquals(0xFF & ~0b1011, structure.getOpenFiles());
+	}
+
+	@Test
+	void testDoubledIsolatedAndBackwardPawnsArePenalised() {
+		// Black's c7-e7 keep every white pawn from being passed
+		PawnStructure healthy = PawnStructure.of(Fen.parse("4k3/2ppp3/8/8/8/8/2PPP3/4K3 w - - 0 1"));
+		PawnStructure doubled = PawnStructure.of(Fen.parse("4k3/2ppp3/8/8/8/3P4/2PP4/4K3 w - - 0 1"));
+		PawnStructure isolated = PawnStructure.of(Fen.parse("4k3/2ppp3/8/8/8/8/2P1P3/4K3 w - - 0 1"));
+		assertEquals(-10, doubled.getMiddlegameScore() - healthy.getMiddlegameScore());
+		assertEquals(-30, isolated.getMiddlegameScore() - healthy.getMiddlegameScore());
+
+		// d2 has no neighbour level with or behind it, and e4 guards d3; with the
+		// black pawn on e5 instead it could still advance to c4's side
+		PawnStructure backward = PawnStructure.of(Fen.parse("4k3/8/8/8/2P1p3/8/3P4/4K3 w - - 0 1"));
+		PawnStructure free = PawnStructure.of(Fen.parse("4k3/8/8/4p3/2P5/8/3P4/4K3 w - - 0 1"));
+		assertEquals(-10, backward.getMiddlegameScore() - free.getMiddlegameScore());
+	}
+
+	@Test
+	void testHashTableCachesByPawnKey() {
+		PawnHashTable table = new PawnHashTable(64);
+		Position position = Fen.parse("4k3/pp6/8/8/8/8/PP6/4K3 w - - 0 1");
+		PawnStructure first = table.probe(position);
+		int score = first.getEndgameScore();
+		assertEquals(0, table.getHits());
+
+		// A king move leaves the pawn key, and the cached entry, unchanged
+		position.makeMove(Bitboards.squareOf("e1"), Bitboards.squareOf("d1"), PieceType.NONE);
+		assertSame(first, table.probe(position));
+		assertEquals(1, table.getHits());
+		assertEquals(score, table.probe(position).getEndgameScore());
+
+		position.makeMove(Bitboards.squareOf("a7"), Bitboards.squareOf("a5"), PieceType.NONE);
+		assertEquals(PawnStructure.of(position).getEndgameScore(), table.probe(position).getEndgameScore());
+		assertEquals(2, table.getHits());
+		assertEquals(4, table.getProbes());
+	}
+}
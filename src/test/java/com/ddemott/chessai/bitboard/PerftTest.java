@@ -0,0 +1,43 @@
+package com.ddemott.chessai.bitboard;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerftTest {
+
+	// Keeps the whole suite to about a million nodes
+	private static final long NODE_BUDGET = 500_000L;
+
+	@Test
+	void testReferencePositions() {
+		for (PerftSuite entry : PerftSuite.values()) {
+			Perft perft = new Perft(Fen.parse(entry.getFen()));
+			for (int depth = 1; depth <= entry.getMaxDepth() && entry.getExpected(depth) <= NODE_BUDGET; depth++) {
+				assertEquals(entry.getExpected(depth), perft.perft(depth), entry.getTitle() + " at depth " + depth);
+			}
+		}
+	}
+
+	@Test
+	void testDivideSumsToPerft() {
+		Perft perft = new Perft(Fen.parse(PerftSuite.KIWIPETE.getFen()));
+		Map<String, Long> counts = perft.divide(2);
+		assertEquals(48, counts.size());
+		assertEquals(PerftSuite.KIWIPETE.getExpected(2), counts.values().stream().mapToLong(Long::longValue).sum());
+		// Both castling moves are among the root moves
+		assertTrue(counts.containsKey("e1 g1"));
+		assertTrue(counts.containsKey("e1 c1"));
+	}
+
+	@Test
+	void testPositionIsLeftUnchanged() {
+		Position position = Fen.parse(PerftSuite.POSITION_4.getFen());
+		long key = position.getKey();
+		new Perft(position).perft(3);
+		assertEquals(key, position.getKey());
+		assertEquals(0, position.getUndoDepth());
+		assertEquals(1, new Perft(position).perft(0));
+	}
+}
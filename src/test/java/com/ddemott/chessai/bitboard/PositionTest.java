@@ -0,0 +1,269 @@
+package com.ddemott.chessai.bitboard;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionTest {
+
+	private static int sq(String name) {
+		return Bitboards.squareOf(name);
+	}
+
+	@Test
+	void testSquareNamesRoundTrip() {
+		for (int square = 0; square < Bitboards.SQUARE_COUNT; square++) {
+			assertEquals(square, Bitboards.squareOf(Bitboards.squareName(square)));
+		}
+		assertEquals(0, sq("a1"));
+		assertEquals(63, sq("h8"));
+		assertEquals(28, sq("E4"));
+		assertEquals(Bitboards.NO_SQUARE, sq("i9"));
+		assertEquals(Bitboards.NO_SQUARE, sq("e"));
+		assertEquals(Bitboards.NO_SQUARE, sq(null));
+	}
+
+	@Test
+	void testPutAndRemovePieceUpdatesBitboards() {
+		Position position = new Position();
+		int whiteKnight = PieceType.make(Position.WHITE, PieceType.KNIGHT);
+		position.putPiece(sq("g1"), whiteKnight);
+
+		assertEquals(whiteKnight, position.getPiece(sq("g1")));
+		assertEquals(Bitboards.bit(sq("g1")), position.getPieces(Position.WHITE, PieceType.KNIGHT));
+		assertEquals(0L, position.getPieces(Position.BLACK, PieceType.KNIGHT));
+		assertEquals(Bitboards.bit(sq("g1")), position.getOccupancy());
+
+		// Replacing a piece clears the old type bit
+		position.putPiece(sq("g1"), PieceType.make(Position.BLACK, PieceType.ROOK));
+		assertEquals(0L, position.getPieces(PieceType.KNIGHT));
+		assertEquals(Bitboards.bit(sq("g1")), position.getSidePieces(Position.BLACK));
+
+		assertEquals(PieceType.make(Position.BLACK, PieceType.ROOK), position.removePiece(sq("g1")));
+		assertEquals(PieceType.NONE, position.getPiece(sq("g1")));
+		assertEquals(0L, position.getOccupancy());
+		assertEquals(PieceType.NONE, position.removePiece(sq("g1")));
+	}
+
+	@Test
+	void testLeaperAttacksStayOnBoard() {
+		assertEquals(2, Bitboards.count(Bitboards.knightAttacks(sq("a1"))));
+		assertEquals(8, Bitboards.count(Bitboards.knightAttacks(sq("d4"))));
+		assertEquals(3, Bitboards.count(Bitboards.kingAttacks(sq("h8"))));
+		assertEquals(8, Bitboards.count(Bitboards.kingAttacks(sq("e4"))));
+		assertEquals(Bitboards.bit(sq("b3")), Bitboards.pawnAttacks(Position.WHITE, sq("a2")));
+		assertEquals(Bitboards.bit(sq("g6")), Bitboards.pawnAttacks(Position.BLACK, sq("h7")));
+	}
+
+	@Test
+	void testSliderAttacksStopAtFirstBlocker() {
+		long occupied = Bitboards.bit(sq("d6")) | Bitboards.bit(sq("f4"));
+		long rook = Bitboards.rookAttacks(sq("d4"), occupied);
+		assertTrue((rook & Bitboards.bit(sq("d6"))) != 0);
+		assertFalse((rook & Bitboards.bit(sq("d7"))) != 0);
+		assertTrue((rook & Bitboards.bit(sq("f4"))) != 0);
+		assertFalse((rook & Bitboards.bit(sq("g4"))) != 0);
+		assertEquals(14, Bitboards.count(Bitboards.rookAttacks(sq("a1"), 0L)));
+		assertEquals(13, Bitboards.count(Bitboards.bishopAttacks(sq("d4"), 0L)));
+	}
+
+	@Test
+	void testAttackQueriesAndCheck() {
+		Position position = new Position();
+		position.putPiece(sq("e1"), PieceType.make(Position.WHITE, PieceType.KING));
+		position.putPiece(sq("e8"), PieceType.make(Position.BLACK, PieceType.ROOK));
+		assertTrue(position.isInCheck(Position.WHITE));
+		assertTrue(position.isSquareAttacked(sq("e4"), Position.BLACK));
+
+		// A blocker on the file stops the rook
+		position.putPiece(sq("e4"), PieceType.make(Position.WHITE, PieceType.PAWN));
+		assertFalse(position.isInCheck(Position.WHITE));
+		assertTrue(position.isSquareAttacked(sq("d5"), Position.WHITE));
+		assertFalse(position.isSquareAttacked(sq("e5"), Position.WHITE));
+		assertEquals(sq("e1"), position.getKingSquare(Position.WHITE));
+		assertEquals(Bitboards.NO_SQUARE, position.getKingSquare(Position.BLACK));
+	}
+
+	@Test
+	void testCopyIsIndependent() {
+		Position position = new Position();
+		position.putPiece(sq("a1"), PieceType.make(Position.WHITE, PieceType.ROOK));
+		Position copy = position.copy();
+		copy.removePiece(sq("a1"));
+		assertEquals(PieceType.make(Position.WHITE, PieceType.ROOK), position.getPiece(sq("a1")));
+		assertEquals(0L, copy.getOccupancy());
+	}
+
+	@Test
+	void testMakeUnmakeCastlingAndRights() {
+		Position position = new Position();
+		position.putPiece(sq("e1"), PieceType.make(Position.WHITE, PieceType.KING));
+		position.putPiece(sq("h1"), PieceType.make(Position.WHITE, PieceType.ROOK));
+		position.putPiece(sq("a1"), PieceType.make(Position.WHITE, PieceType.ROOK));
+		position.putPiece(sq("e8"), PieceType.make(Position.BLACK, PieceType.KING));
+		position.setCastlingRights(Position.WHITE_KINGSIDE | Position.WHITE_QUEENSIDE);
+		position.setHalfmoveClock(7);
+
+		position.makeMove(sq("e1"), sq("g1"), PieceType.NONE);
+		assertEquals(PieceType.make(Position.WHITE, PieceType.ROOK), position.getPiece(sq("f1")));
+		assertEquals(PieceType.NONE, position.getPiece(sq("h1")));
+		assertEquals(0, position.getCastlingRights());
+		assertEquals(8, position.getHalfmoveClock());
+		assertEquals(Position.BLACK, position.getSideToMove());
+
+		position.unmakeMove();
+		assertEquals(PieceType.make(Position.WHITE, PieceType.KING), position.getPiece(sq("e1")));
+		assertEquals(PieceType.make(Position.WHITE, PieceType.ROOK), position.getPiece(sq("h1")));
+		assertEquals(PieceType.NONE, position.getPiece(sq("f1")));
+		assertEquals(Position.WHITE_KINGSIDE | Position.WHITE_QUEENSIDE, position.getCastlingRights());
+		assertEquals(7, position.getHalfmoveClock());
+		assertEquals(Position.WHITE, position.getSideToMove());
+		assertEquals(0, position.getUndoDepth());
+	}
+
+	@Test
+	void testMakeUnmakeEnPassantAndPromotion() {
+		Position position = new Position();
+		position.putPiece(sq("e5"), PieceType.make(Position.WHITE, PieceType.PAWN));
+		position.putPiece(sq("d7"), PieceType.make(Position.BLACK, PieceType.PAWN));
+		position.putPiece(sq("b7"), PieceType.make(Position.WHITE, PieceType.PAWN));
+		position.putPiece(sq("a8"), PieceType.make(Position.BLACK, PieceType.ROOK));
+		long before = position.getOccupancy();
+
+		position.setSideToMove(Position.BLACK);
+		position.makeMove(sq("d7"), sq("d5"), PieceType.NONE);
+		assertEquals(sq("d6"), position.getEnPassantSquare());
+		position.makeMove(sq("e5"), sq("d6"), PieceType.NONE);
+		assertEquals(PieceType.NONE, position.getPiece(sq("d5")));
+		assertEquals(PieceType.make(Position.BLACK, PieceType.PAWN), position.getLastCapturedPiece());
+		position.unmakeMove();
+		assertEquals(PieceType.make(Position.BLACK, PieceType.PAWN), position.getPiece(sq("d5")));
+		assertEquals(sq("d6"), position.getEnPassantSquare());
+		position.unmakeMove();
+
+		position.setSideToMove(Position.WHITE);
+		position.makeMove(sq("b7"), sq("a8"), PieceType.KNIGHT);
+		assertEquals(PieceType.make(Position.WHITE, PieceType.KNIGHT), position.getPiece(sq("a8")));
+		assertEquals(0L, position.getPieces(Position.BLACK, PieceType.ROOK));
+		position.unmakeMove();
+
+		assertEquals(before, position.getOccupancy());
+		assertEquals(PieceType.make(Position.BLACK, PieceType.ROOK), position.getPiece(sq("a8")));
+		assertEquals(PieceType.make(Position.WHITE, PieceType.PAWN), position.getPiece(sq("b7")));
+		assertEquals(Bitboards.NO_SQUARE, position.getEnPassantSquare());
+		assertThrows(IllegalStateException.class, position::unmakeMove);
+	}
+
+	@Test
+	void testIncrementalKeyMatchesFullRecompute() {
+		Position position = new Position();
+		position.putPiece(sq("e1"), PieceType.make(Position.WHITE, PieceType.KING));
+		position.putPiece(sq("h1"), PieceType.make(Position.WHITE, PieceType.ROOK));
+		position.putPiece(sq("e8"), PieceType.make(Position.BLACK, PieceType.KING));
+		position.putPiece(sq("d7"), PieceType.make(Position.BLACK, PieceType.PAWN));
+		position.putPiece(sq("e5"), PieceType.make(Position.WHITE, PieceType.PAWN));
+		position.setCastlingRights(Position.WHITE_KINGSIDE);
+		assertEquals(position.computeKey(), position.getKey());
+		long start = position.getKey();
+
+		position.setSideToMove(Position.BLACK);
+		assertNotEquals(start, position.getKey());
+		position.makeMove(sq("d7"), sq("d5"), PieceType.NONE); // Sets the en passant square
+		assertEquals(position.computeKey(), position.getKey());
+		position.makeMove(sq("e5"), sq("d6"), PieceType.NONE); // En passant capture
+		assertEquals(position.computeKey(), position.getKey());
+		position.makeMove(sq("e8"), sq("e7"), PieceType.NONE);
+		position.makeMove(sq("e1"), sq("g1"), PieceType.NONE); // Castling clears the rights
+		assertEquals(position.computeKey(), position.getKey());
+
+		for (int i = 0; i < 4; i++) {
+			position.unmakeMove();
+			assertEquals(position.computeKey(), position.getKey());
+		}
+		position.setSideToMove(Position.WHITE);
+		assertEquals(start, position.getKey());
+	}
+
+	@Test
+	void testIncrementalAttackMapsAndScoresMatchFullRecompute() {
+		java.util.Random random = new java.util.Random(7);
+		MoveList moves = new MoveList();
+		for (PerftSuite entry : PerftSuite.values()) {
+			Position position = Fen.parse(entry.getFen());
+			assertIncrementalStateMatches(position);
+			int played = 0;
+			for (; played < 60; played++) {
+				moves.clear();
+				MoveGenerator.generateLegal(position, position.getSideToMove(), moves);
+				if (moves.size() == 0) {
+					break;
+				}
+				position.makeMove(moves.get(random.nextInt(moves.size())));
+				assertIncrementalStateMatches(position);
+			}
+			for (; played > 0; played--) {
+				position.unmakeMove();
+				assertIncrementalStateMatches(position);
+			}
+			assertIncrementalStateMatches(position.copy());
+		}
+	}
+
+	private static void assertIncrementalStateMatches(Position position) {
+		long occupied = position.getOccupancy();
+		for (int side = Position.WHITE; side <= Position.BLACK; side++) {
+			long attacked = 0L;
+			for (int square = 0; square < Bitboards.SQUARE_COUNT; square++) {
+				int count = Long.bitCount(position.attackersTo(square, occupied) & position.getSidePieces(side));
+				assertEquals(count, position.getAttackerCount(square, side), Bitboards.squareName(square));
+				if (count > 0) {
+					attacked |= Bitboards.bit(square);
+				}
+			}
+			assertEquals(attacked, position.getAttackedSquares(side));
+		}
+		int middlegame = 0;
+		int endgame = 0;
+		int phase = 0;
+		long pawnKey = 0L;
+		for (int square = 0; square < Bitboards.SQUARE_COUNT; square++) {
+			int piece = position.getPiece(square);
+			if (piece != PieceType.NONE && PieceType.typeOf(piece) == PieceType.PAWN) {
+				pawnKey ^= Zobrist.piece(piece, square);
+			}
+			if (piece != PieceType.NONE) {
+				middlegame += PieceSquareTables.middlegame(piece, square);
+				endgame += PieceSquareTables.endgame(piece, square);
+				phase += PieceSquareTables.phaseWeight(PieceType.typeOf(piece));
+			}
+		}
+		assertEquals(middlegame, position.getMiddlegameScore());
+		assertEquals(endgame, position.getEndgameScore());
+		assertEquals(phase, position.getPhase());
+		assertEquals(pawnKey, position.getPawnKey());
+	}
+
+	@Test
+	void testScoresAreSymmetricAndPhaseCountsPieces() {
+		Position position = Fen.parse(Fen.STARTING_POSITION);
+		assertEquals(0, position.getMiddlegameScore());
+		assertEquals(0, position.getEndgameScore());
+		assertEquals(PieceSquareTables.MAX_PHASE, position.getPhase());
+		assertEquals(0, Fen.parse("4k3/pppp4/8/8/8/8/4PPPP/4K3 w - - 0 1").getPhase());
+		// A knight on f3 is worth the same to White as one on f6 is to Black
+		int whiteKnight = PieceType.make(Position.WHITE, PieceType.KNIGHT);
+		int blackKnight = PieceType.make(Position.BLACK, PieceType.KNIGHT);
+		assertEquals(PieceSquareTables.middlegame(whiteKnight, sq("f3")),
+				-PieceSquareTables.middlegame(blackKnight, sq("f6")));
+		assertTrue(PieceSquareTables.middlegame(whiteKnight, sq("e4")) > PieceSquareTables.middlegame(whiteKnight,
+				sq("a1")));
+	}
+
+	@Test
+	void testTaperBlendsByPhase() {
+		assertEquals(100, PieceSquareTables.taper(100, -50, PieceSquareTables.MAX_PHASE));
+		assertEquals(-50, PieceSquareTables.taper(100, -50, 0));
+		assertEquals(25, PieceSquareTables.taper(100, -50, PieceSquareTables.MAX_PHASE / 2));
+		// Extra queens from promotion do not push past the middlegame
+		assertEquals(100, PieceSquareTables.taper(100, -50, PieceSquareTables.MAX_PHASE + 8));
+	}
+}
@@ -0,0 +1,64 @@
+package com.ddemott.chessai.bitboard;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaticExchangeTest {
+
+	private static int see(String fen, String from, String to) {
+		return StaticExchange.evaluate(Fen.parse(fen), Bitboards.squareOf(from), Bitboards.squareOf(to),
+				PieceType.NONE);
+	}
+
+	@Test
+	void testUndefendedAndDefendedCaptures() {
+		// Rook takes a knight: free, then defended by a pawn
+		assertEquals(320, see("6k1/8/3n4/8/8/8/8/3R2K1 w - - 0 1", "d1", "d6"));
+		assertEquals(320 - 500, see("6k1/2p5/3n4/8/8/8/8/3R2K1 w - - 0 1", "d1", "d6"));
+		// Pawn takes a defended knight and keeps the gain
+		assertEquals(320 - 100, see("6k1/2p5/3n4/4P3/8/8/8/6K1 w - - 0 1", "e5", "d6"));
+	}
+
+	@Test
+	void testXRayAttackerBehindSlider() {
+		// Rxd6 Rxd6 Rxd6: the second white rook only attacks d6 once the first has gone
+		assertEquals(100, see("3r2k1/8/3p4/8/8/3R4/8/3R2K1 w - - 0 1", "d3", "d6"));
+		// Without it the rook is lost for a pawn
+		assertEquals(100 - 500, see("3r2k1/8/3p4/8/8/3R4/8/6K1 w - - 0 1", "d3", "d6"));
+		// A queen behind a bishop wins the second pawn back along the diagonal
+		assertEquals(100 - 330 + 100, see("6k1/8/5p2/4p3/3B4/2Q5/8/6K1 w - - 0 1", "d4", "e5"));
+		assertEquals(100 - 330, see("6k1/8/5p2/4p3/3B4/8/8/6K1 w - - 0 1", "d4", "e5"));
+	}
+
+	@Test
+	void testKingDoesNotRecaptureDefendedPiece() {
+		assertEquals(320, see("4k3/3n4/8/1B6/8/8/8/3R2K1 w - - 0 1", "d1", "d7"));
+		// Undefended, the king takes the rook back
+		assertEquals(320 - 500, see("4k3/3n4/8/8/8/8/8/3R2K1 w - - 0 1", "d1", "d7"));
+	}
+
+	@Test
+	void testQuietMovesEnPassantAndPromotion() {
+		// A knight stepping onto a pawn-guarded square hangs itself
+		assertEquals(-320, see("6k1/8/8/8/3p4/8/8/1N4K1 w - - 0 1", "b1", "c3"));
+		assertEquals(0, see("6k1/8/8/8/3p4/8/8/1N4K1 w - - 0 1", "b1", "d2"));
+		assertEquals(100, see("6k1/8/8/3pP3/8/8/8/6K1 w - d6 0 1", "e5", "d6"));
+
+		Position position = Fen.parse("6k1/2P5/8/8/8/8/8/6K1 w - - 0 1");
+		int promotion = EncodedMove.of(Bitboards.squareOf("c7"), Bitboards.squareOf("c8"), PieceType.QUEEN, 0);
+		assertEquals(800, StaticExchange.evaluate(position, promotion));
+		// Castling scores nothing
+		assertEquals(0, see("6k1/8/8/8/8/8/8/4K2R w K - 0 1", "e1", "g1"));
+	}
+
+	@Test
+	void testCallerBufferGivesSameResults() {
+		Position position = Fen.parse("3r2k1/8/3p4/8/8/3R4/8/3R2K1 w - - 0 1");
+		int move = EncodedMove.of(Bitboards.squareOf("d3"), Bitboards.squareOf("d6"), PieceType.NONE,
+				EncodedMove.CAPTURE);
+		int[] buffer = StaticExchange.newBuffer();
+		assertEquals(StaticExchange.evaluate(position, move), StaticExchange.evaluate(position, move, buffer));
+		// The buffer holds nothing between calls
+		assertEquals(100, StaticExchange.evaluate(position, move, buffer));
+	}
+}